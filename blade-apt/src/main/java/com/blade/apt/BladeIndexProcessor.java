@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.apt;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes META-INF/blade.index, the classes annotated with @Path, @Interceptor and @Component
+ * <p>
+ * Put blade-apt on the compile classpath and Blade reads the index instead of scanning the route, 
+ * interceptor and ioc packages at startup. Every line is a class and the blade annotations it has:
+ * <pre>
+ * com.example.route.IndexRoute=com.blade.annotation.Path
+ * </pre>
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+// every round, a class compiled again may have lost its annotations
+@SupportedAnnotationTypes("*")
+public class BladeIndexProcessor extends AbstractProcessor {
+	
+	public static final String INDEX = "META-INF/blade.index";
+	
+	static final String PATH = "com.blade.annotation.Path";
+	
+	static final String INTERCEPTOR = "com.blade.annotation.Interceptor";
+	
+	static final String COMPONENT = "com.blade.annotation.Component";
+	
+	private static final Set<String> INDEXED_ANNOTATIONS = new TreeSet<String>(Arrays.asList(PATH, INTERCEPTOR, COMPONENT));
+	
+	// class name -> annotation names
+	private final Map<String, Set<String>> index = new TreeMap<String, Set<String>>();
+	
+	@Override
+	public synchronized void init(ProcessingEnvironment processingEnv) {
+		super.init(processingEnv);
+		readIndex();
+	}
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			writeIndex();
+			return false;
+		}
+		
+		// classes compiled again are indexed again, their annotations may have changed
+		for (Element element : roundEnv.getRootElements()) {
+			if (element instanceof TypeElement) {
+				index.remove(binaryName((TypeElement) element));
+			}
+		}
+		
+		for (TypeElement annotation : annotations) {
+			String annotationName = annotation.getQualifiedName().toString();
+			if (!INDEXED_ANNOTATIONS.contains(annotationName)) {
+				continue;
+			}
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.CLASS) {
+					continue;
+				}
+				String className = binaryName((TypeElement) element);
+				Set<String> names = index.get(className);
+				if (null == names) {
+					names = new TreeSet<String>();
+					index.put(className, names);
+				}
+				names.add(annotationName);
+			}
+		}
+		return false;
+	}
+	
+	private String binaryName(TypeElement type) {
+		return processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+	
+	/**
+	 * Keep the entries of an incremental build, when the classes still exist
+	 */
+	private void readIndex() {
+		BufferedReader reader = null;
+		try {
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+			reader = new BufferedReader(new InputStreamReader(file.openInputStream(), "UTF-8"));
+			String line;
+			while (null != (line = reader.readLine())) {
+				int pos = line.indexOf('=');
+				if (line.startsWith("#") || pos <= 0) {
+					continue;
+				}
+				String className = line.substring(0, pos).trim();
+				if (null == processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'))) {
+					continue;
+				}
+				Set<String> names = new TreeSet<String>();
+				for (String name : line.substring(pos + 1).split(",")) {
+					names.add(name.trim());
+				}
+				index.put(className, names);
+			}
+		} catch (FileNotFoundException e) {
+			// first build
+		} catch (IOException e) {
+			// first build on some compilers, or no class output
+		} finally {
+			if (null != reader) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+	
+	private void writeIndex() {
+		Writer writer = null;
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+			writer = new OutputStreamWriter(file.openOutputStream(), "UTF-8");
+			writer.write("# Generated by blade-apt, do not edit\n");
+			for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+				writer.write(entry.getKey());
+				writer.write('=');
+				boolean first = true;
+				for (String name : entry.getValue()) {
+					if (!first) {
+						writer.write(',');
+					}
+					writer.write(name);
+					first = false;
+				}
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Can not write " + INDEX + ": " + e.getMessage());
+		} finally {
+			if (null != writer) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,139 @@
+package com.blade.apt;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BladeIndexProcessorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File src;
+
+	private File out;
+
+	@Before
+	public void before() throws IOException {
+		src = folder.newFolder("src");
+		out = folder.newFolder("classes");
+		write("com/blade/annotation/Path.java", "package com.blade.annotation; public @interface Path {}");
+		write("com/blade/annotation/Component.java", "package com.blade.annotation; public @interface Component {}");
+		write("app/A.java", "package app; @com.blade.annotation.Path public class A {}");
+		write("app/B.java", "package app; @com.blade.annotation.Component public class B {}");
+		write("app/C.java", "package app; @com.blade.annotation.Path @com.blade.annotation.Component public class C {}");
+		write("app/D.java", "package app; public class D {}");
+		write("app/Outer.java", "package app; public class Outer { @com.blade.annotation.Component public static class Inner {} }");
+		compile("com/blade/annotation/Path.java", "com/blade/annotation/Component.java",
+				"app/A.java", "app/B.java", "app/C.java", "app/D.java", "app/Outer.java");
+	}
+
+	@Test
+	public void testIndex() throws IOException {
+		Assert.assertEquals(Arrays.asList(
+				"app.A=com.blade.annotation.Path",
+				"app.B=com.blade.annotation.Component",
+				"app.C=com.blade.annotation.Component,com.blade.annotation.Path",
+				"app.Outer$Inner=com.blade.annotation.Component"), index());
+	}
+
+	@Test
+	public void testIncrementalBuild() throws IOException {
+		// only A is compiled again, without its annotation
+		write("app/A.java", "package app; public class A {}");
+		compile("app/A.java");
+		Assert.assertEquals(Arrays.asList(
+				"app.B=com.blade.annotation.Component",
+				"app.C=com.blade.annotation.Component,com.blade.annotation.Path",
+				"app.Outer$Inner=com.blade.annotation.Component"), index());
+
+		// and D gets one
+		write("app/D.java", "package app; @com.blade.annotation.Path public class D {}");
+		compile("app/D.java");
+		Assert.assertEquals(Arrays.asList(
+				"app.B=com.blade.annotation.Component",
+				"app.C=com.blade.annotation.Component,com.blade.annotation.Path",
+				"app.D=com.blade.annotation.Path",
+				"app.Outer$Inner=com.blade.annotation.Component"), index());
+	}
+
+	@Test
+	public void testStaleEntry() throws IOException {
+		// B was deleted, its entry is dropped by the next build
+		Assert.assertTrue(new File(out, "app/B.class").delete());
+		compile("app/D.java");
+		Assert.assertEquals(Arrays.asList(
+				"app.A=com.blade.annotation.Path",
+				"app.C=com.blade.annotation.Component,com.blade.annotation.Path",
+				"app.Outer$Inner=com.blade.annotation.Component"), index());
+	}
+
+	private void compile(String... names) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			List<File> files = new ArrayList<File>();
+			for (String name : names) {
+				files.add(new File(src, name));
+			}
+			CompilationTask task = compiler.getTask(null, fileManager, null,
+					Arrays.asList("-d", out.getPath(), "-classpath", out.getPath()), null, fileManager.getJavaFileObjectsFromFiles(files));
+			task.setProcessors(Collections.singleton(new BladeIndexProcessor()));
+			Assert.assertTrue(task.call());
+		} finally {
+			fileManager.close();
+		}
+	}
+
+	/**
+	 * @return	Return the lines of the index, without the comment
+	 */
+	private List<String> index() throws IOException {
+		File file = new File(out, BladeIndexProcessor.INDEX);
+		FileInputStream in = new FileInputStream(file);
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			int read = 0;
+			while (read < bytes.length) {
+				read += in.read(bytes, read, bytes.length - read);
+			}
+			List<String> lines = new ArrayList<String>();
+			for (String line : new String(bytes, "UTF-8").split("\n")) {
+				if (!line.startsWith("#")) {
+					lines.add(line);
+				}
+			}
+			return lines;
+		} finally {
+			in.close();
+		}
+	}
+
+	private void write(String name, String content) throws IOException {
+		File file = new File(src, name);
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+}
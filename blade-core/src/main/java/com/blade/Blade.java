@@ -20,17 +20,22 @@ import java.io.InputStream;
 import java.text.ParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import blade.kit.Assert;
 import blade.kit.IOKit;
 import blade.kit.PropertyKit;
 import blade.kit.json.JSONKit;
+import blade.kit.resource.ClassPathClassReader;
+import blade.kit.resource.ClassReader;
 
+import com.blade.context.StartupReport;
 import com.blade.ioc.Container;
 import com.blade.ioc.SampleContainer;
 import com.blade.loader.ClassPathRouteLoader;
 import com.blade.loader.Config;
 import com.blade.loader.Configurator;
+import com.blade.loader.IndexedClassReader;
 import com.blade.plugin.Plugin;
 import com.blade.render.JspRender;
 import com.blade.render.Render;
@@ -39,6 +44,11 @@ import com.blade.route.RouteException;
 import com.blade.route.RouteHandler;
 import com.blade.route.Routers;
 import com.blade.server.Server;
+import com.blade.server.ServerConfig;
+import com.blade.web.ExecutionMode;
+import com.blade.web.RequestExecutor;
+import com.blade.web.RequestTracker;
+import com.blade.web.cache.ResponseCache;
 import com.blade.web.http.HttpMethod;
 
 /**
@@ -78,6 +88,11 @@ public class Blade {
 	 * ioc application object
 	 */
 	private IocApplication iocApplication = null;
+	
+	/**
+	 * class reader shared by route, interceptor and ioc scanning, it reads META-INF/blade.index when blade-apt made one
+	 */
+	private final ClassReader classReader = new IndexedClassReader(new ClassPathClassReader());
     
     /**
      * default render is jspRender
@@ -99,10 +114,30 @@ public class Blade {
      */
     private Server bladeServer;
     
+    /**
+     * worker pool of asynchronous requests
+     */
+    private volatile RequestExecutor requestExecutor;
+    
+    /**
+     * responses of the cached routes
+     */
+    private volatile ResponseCache responseCache;
+    
+    /**
+     * requests in flight
+     */
+    private final RequestTracker requestTracker = new RequestTracker();
+    
+    /**
+     * report of the last startup
+     */
+    private StartupReport startupReport = new StartupReport();
+    
 	private Blade() {
 		this.config = new Config();
 		this.container = new SampleContainer();
-		this.iocApplication = new IocApplication(container);
+		this.iocApplication = new IocApplication(container, classReader);
 		this.routers = new Routers(container);
 		this.render = new JspRender();
 	}
@@ -132,7 +167,61 @@ public class Blade {
 	 * @return		return server object
 	 */
 	public Server createServer(int port){
-		return new Server(port, isAsyn);
+		return new Server(port, isAsyn, config.getServerConfig());
+	}
+	
+	/**
+	 * create a jetty server
+	 * @param port			server port
+	 * @param serverConfig	thread pool and connector settings
+	 * @return				return server object
+	 */
+	public Server createServer(int port, ServerConfig serverConfig){
+		Assert.notNull(serverConfig);
+		return new Server(port, isAsyn, serverConfig);
+	}
+	
+	/**
+	 * Setting the thread pool and connector of the embedded jetty server
+	 * 
+	 * @param serverConfig	server settings
+	 * @return				return blade
+	 */
+	public Blade serverConfig(ServerConfig serverConfig){
+		Assert.notNull(serverConfig);
+		config.setServerConfig(serverConfig);
+		return this;
+	}
+	
+	/**
+	 * Serve HTTP/2 besides HTTP/1.1, h2c on the http port and h2 over ALPN on the https port.
+	 * Needs jetty http2-server, and jetty-alpn-server with the ALPN support of the JVM for h2.
+	 * The gain over HTTP/1.1 is not measured: the Jetty blade builds against has no HTTP/2 modules,
+	 * compare both protocols with your own pages and clients before enabling it for performance.
+	 * 
+	 * @param http2		enable HTTP/2
+	 * @return			return blade
+	 */
+	public Blade http2(boolean http2){
+		config.getServerConfig().setHttp2(http2);
+		return this;
+	}
+	
+	/**
+	 * Add a TLS connector to the embedded jetty server
+	 * 
+	 * @param sslPort			https port
+	 * @param keyStorePath		keystore file or classpath resource
+	 * @param keyStorePassword	keystore password
+	 * @return					return blade
+	 */
+	public Blade https(int sslPort, String keyStorePath, String keyStorePassword){
+		Assert.notBlank(keyStorePath);
+		ServerConfig serverConfig = config.getServerConfig();
+		serverConfig.setSslPort(sslPort);
+		serverConfig.setKeyStorePath(keyStorePath);
+		serverConfig.setKeyStorePassword(keyStorePassword);
+		return this;
 	}
 	
 	/**
@@ -142,6 +231,13 @@ public class Blade {
 		return routers;
 	}
 	
+	/**
+	 * @return	return the class reader of the scanned packages, it counts the scanned and loaded classes
+	 */
+	public ClassReader classReader(){
+		return classReader;
+	}
+	
 	/**
 	 * @return	return blade ioc container
 	 */
@@ -513,6 +609,86 @@ public class Blade {
 		return this;
 	}
 	
+	/**
+	 * Setting the in-memory cache of small static files
+	 * 
+	 * @param cacheSize		max bytes of file content kept in memory, default is 32MB
+	 * @param cacheFileSize	max size of a file kept in memory, default is 64KB
+	 * @return				return blade
+	 */
+	public Blade staticCache(long cacheSize, int cacheFileSize) {
+		Assert.isTrue(cacheSize >= 0 && cacheFileSize >= 0, "static cache size must not be negative");
+		config.setStaticCacheSize(cacheSize);
+		config.setStaticCacheFileSize(cacheFileSize);
+		return this;
+	}
+	
+	/**
+	 * Setting response compression is enable
+	 * 
+	 * @param compress	enable gzip/deflate compression, default is false
+	 * @return			return blade
+	 */
+	public Blade compress(boolean compress) {
+		config.setCompress(compress);
+		return this;
+	}
+	
+	/**
+	 * Setting response compression
+	 * 
+	 * @param threshold	min size of a compressed body, default is 1024
+	 * @param level		compression level 1 - 9, default is 6
+	 * @return			return blade
+	 */
+	public Blade compress(int threshold, int level) {
+		Assert.isTrue(threshold >= 0, "compress threshold must not be negative");
+		Assert.isTrue(level >= 1 && level <= 9, "compress level must be between 1 and 9");
+		config.setCompress(true);
+		config.setCompressThreshold(threshold);
+		config.setCompressLevel(level);
+		return this;
+	}
+	
+	/**
+	 * Setting whether all routes send an ETag hashed from the response body, 
+	 * a single route is enabled with @ETag
+	 * 
+	 * @param etag	enable ETag, default is false
+	 * @return		return blade
+	 */
+	public Blade etag(boolean etag) {
+		config.setEtag(etag);
+		return this;
+	}
+	
+	/**
+	 * Setting multipart parsing
+	 * 
+	 * @param threshold			max size of a part kept in memory, default is 16384
+	 * @param maxFileSize		max size of a part, -1 is no limit
+	 * @param maxRequestSize	max size of a request, -1 is no limit
+	 * @return					return blade
+	 */
+	public Blade multipart(int threshold, long maxFileSize, long maxRequestSize) {
+		Assert.isTrue(threshold >= 0, "multipart threshold must not be negative");
+		config.setMultipartThreshold(threshold);
+		config.setMultipartMaxFileSize(maxFileSize);
+		config.setMultipartMaxRequestSize(maxRequestSize);
+		return this;
+	}
+	
+	/**
+	 * Setting max size of a request body parsed as JSON by body().as and body().asJson
+	 * 
+	 * @param maxBodySize	max bytes, -1 is no limit, default is 8MB
+	 * @return				return blade
+	 */
+	public Blade maxBodySize(long maxBodySize) {
+		config.setMaxBodySize(maxBodySize);
+		return this;
+	}
+	
 	/**
 	 * Setting XSS is enable
 	 * 
@@ -617,6 +793,138 @@ public class Blade {
 		return this;
 	}
 	
+	/**
+	 * Setting the bounded worker pool of asynchronous requests.
+	 * When all workers are busy and the queue is full, requests are answered with 503 and Retry-After.
+	 * 
+	 * @param coreThreads	core worker threads
+	 * @param maxThreads	max worker threads
+	 * @param queueSize		max requests waiting for a worker
+	 * @return				return blade
+	 */
+	public Blade executor(int coreThreads, int maxThreads, int queueSize){
+		Assert.isTrue(coreThreads > 0 && maxThreads > 0 && queueSize > 0, "executor size must be greater than 0");
+		config.setThreadCore(coreThreads);
+		config.setThreadMax(maxThreads);
+		config.setThreadQueue(queueSize);
+		return this;
+	}
+	
+	/**
+	 * Setting a custom executor of asynchronous requests, it should reject tasks when overloaded
+	 * 
+	 * @param executor	executor service
+	 * @return			return blade
+	 */
+	public Blade executor(ExecutorService executor){
+		Assert.notNull(executor);
+		this.requestExecutor = new RequestExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Setting the execution mode of asynchronous requests.
+	 * With VIRTUAL_THREADS every request runs on a virtual thread when the JVM supports it, 
+	 * otherwise the bounded platform thread pool is used.
+	 * 
+	 * @param executionMode	execution mode
+	 * @return				return blade
+	 */
+	public Blade executionMode(ExecutionMode executionMode){
+		Assert.notNull(executionMode);
+		config.setExecutionMode(executionMode);
+		return this;
+	}
+	
+	/**
+	 * Setting asynchronous request timeout, a route can override it
+	 * 
+	 * @param timeout	timeout milliseconds, default is 10000
+	 * @return			return blade
+	 */
+	public Blade asyncTimeout(long timeout){
+		config.setAsyncTimeout(timeout);
+		return this;
+	}
+	
+	/**
+	 * @return	Return the worker pool of asynchronous requests, its counters can be read at runtime
+	 */
+	public RequestExecutor requestExecutor(){
+		if(null == requestExecutor){
+			synchronized (this) {
+				if(null == requestExecutor){
+					requestExecutor = RequestExecutor.create(config.getExecutionMode(), 
+							config.getThreadCore(), config.getThreadMax(), config.getThreadQueue());
+				}
+			}
+		}
+		return requestExecutor;
+	}
+	
+	/**
+	 * Run the plugins registered by {@link #plugin(Class)} at startup, on a pool of startup threads. 
+	 * A plugin runs after the plugins of its @DependsOn, while routes and ioc are scanned. 
+	 * Do not call run() on these plugins yourself.
+	 * 
+	 * @param runPlugins	run the plugins at startup, default is false
+	 * @return				return blade
+	 */
+	public Blade runPlugins(boolean runPlugins){
+		config.setRunPlugins(runPlugins);
+		return this;
+	}
+	
+	/**
+	 * Setting the number of threads running the plugins at startup
+	 * 
+	 * @param startupThreads	startup threads, default is the number of processors
+	 * @return					return blade
+	 */
+	public Blade startupThreads(int startupThreads){
+		config.setStartupThreads(startupThreads);
+		return this;
+	}
+	
+	/**
+	 * @return	Return the wall time of the startup phases and plugins
+	 */
+	public StartupReport startupReport(){
+		return startupReport;
+	}
+	
+	/**
+	 * @return	Return the requests in flight, its counters can be read at runtime
+	 */
+	public RequestTracker requestTracker(){
+		return requestTracker;
+	}
+	
+	/**
+	 * Setting the max time a stop waits for the requests in flight
+	 * 
+	 * @param timeout	timeout milliseconds, default is 30000
+	 * @return			return blade
+	 */
+	public Blade shutdownTimeout(long timeout){
+		config.getServerConfig().setShutdownTimeout(timeout);
+		return this;
+	}
+	
+	/**
+	 * @return	Return the responses of the routes with @CacheResponse, they can be invalidated by tag
+	 */
+	public ResponseCache responseCache(){
+		if(null == responseCache){
+			synchronized (this) {
+				if(null == responseCache){
+					responseCache = new ResponseCache(config.getResponseCacheSize());
+				}
+			}
+		}
+		return responseCache;
+	}
+	
 	/**
 	 * Setting jetty context
 	 * 
@@ -625,7 +933,7 @@ public class Blade {
 	public void start(String contextPath) {
 		try {
 			Assert.notBlank(contextPath);
-			bladeServer = new Server(this.port, this.isAsyn);
+			bladeServer = new Server(this.port, this.isAsyn, config.getServerConfig());
 			bladeServer.start(contextPath);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
@@ -640,13 +948,15 @@ public class Blade {
 	}
 	
 	/**
-	 * Jetty sever shutdown
+	 * Jetty sever shutdown, the requests in flight are drained before the plugins are destroyed
 	 */
 	public void stop() {
 		try {
 			bladeServer.stop();
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			iocApplication.destroy();
 		}
 	}
 	
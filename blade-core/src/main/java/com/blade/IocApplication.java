@@ -19,10 +19,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import blade.kit.CollectionKit;
 import blade.kit.log.Logger;
 import blade.kit.resource.ClassPathClassReader;
 import blade.kit.resource.ClassReader;
 
+import com.blade.annotation.Component;
+import com.blade.annotation.Path;
 import com.blade.ioc.Container;
 import com.blade.ioc.Scope;
 import com.blade.plugin.Plugin;
@@ -53,7 +56,11 @@ public class IocApplication {
 	private List<Plugin> plugins = null;
 	
 	public IocApplication(Container container) {
-		this.classReader = new ClassPathClassReader();
+		this(container, new ClassPathClassReader());
+	}
+	
+	public IocApplication(Container container, ClassReader classReader) {
+		this.classReader = classReader;
 		this.plugins = new ArrayList<Plugin>();
 		this.container = container;
 	}
@@ -82,7 +89,7 @@ public class IocApplication {
 		
 		Set<String> names = container.getBeanNames();
 		for(String name : names){
-			LOGGER.info("Add Object：" + name + "=" + container.getBean(name, null));
+			LOGGER.info("Add Object：" + name + "=" + container.getBean(name, Scope.SINGLE));
 		}
 		
 	}
@@ -97,7 +104,7 @@ public class IocApplication {
 
 	public <T extends Plugin> T getPlugin(Class<T> plugin){
 		if(null != plugin && null != container){
-			return container.getBean(plugin, null);
+			return container.getBean(plugin, Scope.SINGLE);
 		}
 		return null;
 	}
@@ -116,8 +123,10 @@ public class IocApplication {
 			recursive = true;
 		}
 		
-		// Scan package all class
-		Set<Class<?>> classes = classReader.getClass(packageName, recursive);
+		// Scan the annotated classes only, the others are never loaded
+		Set<Class<?>> classes = CollectionKit.newHashSet();
+		classes.addAll(classReader.getClassByAnnotation(packageName, Component.class, recursive));
+		classes.addAll(classReader.getClassByAnnotation(packageName, Path.class, recursive));
 		for (Class<?> clazz : classes) {
 			// 注册带有Component和Service注解的类
 			if (container.isRegister(clazz.getAnnotations())) {
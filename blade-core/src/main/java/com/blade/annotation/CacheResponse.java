@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cache the response of a route
+ * <p>
+ * Put it on a route method, or on the handle method of a RouteHandler registered with Blade.get. 
+ * A cached response is served after the before interceptors, without running the route.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheResponse {
+	
+	/**
+	 * @return Time to live in milliseconds
+	 */
+	long ttl() default 60000;
+	
+	/**
+	 * @return Query parameters in the cache key, "*" is the whole query string
+	 */
+	String[] query() default { "*" };
+	
+	/**
+	 * @return Request headers in the cache key
+	 */
+	String[] headers() default {};
+	
+	/**
+	 * @return Tags to invalidate the cached responses with
+	 */
+	String[] tags() default {};
+	
+}
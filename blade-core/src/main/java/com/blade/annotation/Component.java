@@ -20,6 +20,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.blade.ioc.Scope;
+
 /**
  * Bean annotations can be injected
  *
@@ -30,4 +32,10 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface Component{
+	
+	/**
+	 * @return	Scope of the bean, the container creates PROTOTYPE and REQUEST beans on lookup
+	 */
+	Scope scope() default Scope.SINGLE;
+	
 }
\ No newline at end of file
@@ -61,4 +61,9 @@ public @interface Route {
 	 */
 	String[] values() default {};
 	
+	/**
+	 * @return Asynchronous request timeout in milliseconds, 0 is the global timeout
+	 */
+	long timeout() default 0;
+	
 }
\ No newline at end of file
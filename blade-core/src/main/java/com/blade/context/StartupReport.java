@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.context;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import blade.kit.CollectionKit;
+import blade.kit.json.JsonArray;
+import blade.kit.json.JsonObject;
+
+/**
+ * Wall time of the startup phases and plugins, and what the startup registered
+ * <p>
+ * Logged as one JSON line when blade has started, so CI can track startup regressions.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class StartupReport {
+	
+	private final Map<String, Long> phases = CollectionKit.newLinkedHashMap();
+	
+	private final JsonArray plugins = new JsonArray();
+	
+	private long totalTime = -1;
+	
+	private int classesScanned = -1;
+	
+	private int classesLoaded = -1;
+	
+	private int routes;
+	
+	private int interceptors;
+	
+	private int beans;
+	
+	public StartupReport() {
+	}
+	
+	/**
+	 * A phase has completed
+	 * 
+	 * @param name			phase name
+	 * @param startNanos	System.nanoTime() at the start of the phase
+	 */
+	public synchronized void phase(String name, long startNanos) {
+		phases.put(name, millis(startNanos));
+	}
+	
+	/**
+	 * A plugin has run
+	 * 
+	 * @param name			plugin name
+	 * @param startNanos	System.nanoTime() at the start of the plugin
+	 * @param success		whether the plugin succeeded
+	 */
+	public synchronized void plugin(String name, long startNanos, boolean success) {
+		JsonObject plugin = new JsonObject();
+		plugin.add("name", name);
+		plugin.add("time", millis(startNanos));
+		plugin.add("thread", Thread.currentThread().getName());
+		plugin.add("success", success);
+		plugins.add(plugin);
+	}
+	
+	/**
+	 * The startup has completed
+	 * 
+	 * @param startNanos	System.nanoTime() at the start of the startup
+	 */
+	public synchronized void finish(long startNanos) {
+		totalTime = millis(startNanos);
+	}
+	
+	private static long millis(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+	
+	public synchronized Map<String, Long> getPhases() {
+		return new LinkedHashMap<String, Long>(phases);
+	}
+	
+	public synchronized long getTotalTime() {
+		return totalTime;
+	}
+	
+	public int getClassesScanned() {
+		return classesScanned;
+	}
+
+	public void setClassesScanned(int classesScanned) {
+		this.classesScanned = classesScanned;
+	}
+
+	public int getClassesLoaded() {
+		return classesLoaded;
+	}
+
+	public void setClassesLoaded(int classesLoaded) {
+		this.classesLoaded = classesLoaded;
+	}
+
+	public int getRoutes() {
+		return routes;
+	}
+
+	public void setRoutes(int routes) {
+		this.routes = routes;
+	}
+
+	public int getInterceptors() {
+		return interceptors;
+	}
+
+	public void setInterceptors(int interceptors) {
+		this.interceptors = interceptors;
+	}
+
+	public int getBeans() {
+		return beans;
+	}
+
+	public void setBeans(int beans) {
+		this.beans = beans;
+	}
+	
+	/**
+	 * @return	Return the report as a JSON object
+	 */
+	public synchronized String toJson() {
+		JsonObject report = new JsonObject();
+		report.add("total", totalTime);
+		JsonObject phaseTimes = new JsonObject();
+		for (Map.Entry<String, Long> phase : phases.entrySet()) {
+			phaseTimes.add(phase.getKey(), phase.getValue().longValue());
+		}
+		report.add("phases", phaseTimes);
+		report.add("plugins", plugins);
+		report.add("classesScanned", classesScanned);
+		report.add("classesLoaded", classesLoaded);
+		report.add("routes", routes);
+		report.add("interceptors", interceptors);
+		report.add("beans", beans);
+		return report.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return toJson();
+	}
+	
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.ioc;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import blade.kit.CollectionKit;
+
+import com.blade.Aop;
+import com.blade.annotation.Component;
+import com.blade.annotation.Inject;
+import com.blade.annotation.Path;
+
+/**
+ * Creates the instances of a bean class, the constructor and the injected fields are looked up once
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class BeanFactory {
+	
+	// the annotated class, AOP proxies are created from it
+	private final Class<?> type;
+	
+	private final Scope scope;
+	
+	// null when the instances are AOP proxies
+	private final Constructor<?> constructor;
+	
+	private final Field[] fields;
+	
+	private final Inject[] injects;
+	
+	BeanFactory(Class<?> beanClass) {
+		Class<?> annotated = beanClass;
+		while (null != annotated && !annotated.isAnnotationPresent(Component.class) && !annotated.isAnnotationPresent(Path.class)) {
+			annotated = annotated.getSuperclass();
+		}
+		this.type = null != annotated ? annotated : beanClass;
+		
+		Component component = type.getAnnotation(Component.class);
+		this.scope = null != component ? component.scope() : Scope.SINGLE;
+		
+		Constructor<?> noArgs = null;
+		if (type == beanClass) {
+			try {
+				noArgs = beanClass.getDeclaredConstructor();
+				noArgs.setAccessible(true);
+			} catch (NoSuchMethodException e) {
+				// created by Aop, which reports the error
+			}
+		}
+		this.constructor = noArgs;
+		
+		List<Field> injectFields = CollectionKit.newArrayList();
+		List<Inject> injectList = CollectionKit.newArrayList();
+		for (Field field : beanClass.getDeclaredFields()) {
+			Inject inject = field.getAnnotation(Inject.class);
+			if (null != inject) {
+				field.setAccessible(true);
+				injectFields.add(field);
+				injectList.add(inject);
+			}
+		}
+		this.fields = injectFields.toArray(new Field[injectFields.size()]);
+		this.injects = injectList.toArray(new Inject[injectList.size()]);
+	}
+	
+	/**
+	 * @return	Return a new instance, its fields are not injected yet
+	 */
+	Object create() {
+		if (null == constructor) {
+			return Aop.create(type);
+		}
+		try {
+			return constructor.newInstance();
+		} catch (Exception e) {
+			throw new IocException("create " + type.getName() + " error", e);
+		}
+	}
+	
+	Scope getScope() {
+		return scope;
+	}
+	
+	Field[] getFields() {
+		return fields;
+	}
+	
+	Inject[] getInjects() {
+		return injects;
+	}
+	
+}
@@ -22,9 +22,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import blade.kit.Assert;
-import blade.kit.CloneKit;
 import blade.kit.CollectionKit;
 import blade.kit.StringKit;
 import blade.kit.log.Logger;
@@ -32,6 +32,8 @@ import blade.kit.log.Logger;
 import com.blade.annotation.Component;
 import com.blade.annotation.Inject;
 import com.blade.annotation.Path;
+import com.blade.context.BladeWebContext;
+import com.blade.web.http.Request;
 
 /**
  * IOC default implement
@@ -43,6 +45,11 @@ import com.blade.annotation.Path;
 public class SampleContainer implements Container {
 	
     private static final Logger LOGGER = Logger.getLogger(SampleContainer.class);
+    
+    /**
+     * Request attribute prefix of the request scoped beans
+     */
+    private static final String REQUEST_BEAN_PREFIX = "blade.bean.";
 
     /**
      * Save all bean objects, e.g: com.xxxx.User @Userx7asc
@@ -59,6 +66,21 @@ public class SampleContainer implements Container {
      */
     private Map<Class<? extends Annotation>, List<Object>> annotaionBeans = CollectionKit.newConcurrentHashMap();
     
+    /**
+     * Scope, constructor and injected fields of every bean class
+     */
+    private ConcurrentHashMap<Class<?>, BeanFactory> factories = CollectionKit.newConcurrentHashMap();
+    
+    /**
+     * Prototype and request scoped classes being created by the current thread, to report circular injection
+     */
+    private ThreadLocal<List<Class<?>>> creating = new ThreadLocal<List<Class<?>>>() {
+    	@Override
+    	protected List<Class<?>> initialValue() {
+    		return CollectionKit.newArrayList();
+    	}
+    };
+    
     
     public SampleContainer() {
     }
@@ -70,24 +92,98 @@ public class SampleContainer implements Container {
 	@Override
     public <T> T getBean(String name, Scope scope) {
 		Assert.notBlank(name);
-		String className = beanKeys.get(name);
-		if(StringKit.isBlank(className)){
-			if(null == beans.get(name)){
-				return null;
-			} else {
-				className = name;
-			}
+		String className = className(name);
+		if(null == className){
+			return null;
 		}
 		
     	Object obj = beans.get(className);
-    	if(null != scope && null != Scope.SINGLE){
-    		try {
-				return (T) CloneKit.deepClone(obj);
-			} catch (Exception e) {
-				throw new IocException("clone object error", e);
-			}
+    	if(null == obj){
+    		return null;
+    	}
+    	
+    	// no scope is the scope of the bean
+    	Scope beanScope = null != scope ? scope : factory(obj.getClass()).getScope();
+    	return (T) scoped(className, obj, beanScope);
+    }
+    
+    /**
+     * @param name	bean name or class name
+     * @return		return the class name of the registered bean, null if there is none
+     */
+    private String className(String name) {
+		String className = beanKeys.get(name);
+		if(StringKit.isBlank(className)){
+			return null == beans.get(name) ? null : name;
+		}
+		return className;
+    }
+    
+    private Object scoped(String className, Object obj, Scope scope) {
+    	switch (scope) {
+		case PROTOTYPE:
+			return newInstance(obj.getClass());
+		case REQUEST:
+			return requestBean(className, obj.getClass());
+		default:
+			return obj;
+		}
+    }
+    
+    /**
+     * @param beanClass	bean class
+     * @return			return the factory of the class, created once
+     */
+    private BeanFactory factory(Class<?> beanClass) {
+    	BeanFactory factory = factories.get(beanClass);
+    	if(null == factory){
+    		factory = new BeanFactory(beanClass);
+    		BeanFactory exists = factories.putIfAbsent(beanClass, factory);
+    		if(null != exists){
+    			factory = exists;
+    		}
+    	}
+    	return factory;
+    }
+    
+    /**
+     * Create and inject a new instance of a prototype bean
+     */
+    private Object newInstance(Class<?> beanClass) {
+    	List<Class<?>> stack = creating.get();
+    	if(stack.contains(beanClass)){
+    		StringBuilder path = new StringBuilder();
+    		for(Class<?> clazz : stack.subList(stack.indexOf(beanClass), stack.size())){
+    			path.append(clazz.getName()).append(" -> ");
+    		}
+    		throw new IocException("Circular injection of prototype or request scoped beans: " + path.append(beanClass.getName()));
+    	}
+    	stack.add(beanClass);
+    	try {
+    		Object object = factory(beanClass).create();
+    		injection(object);
+    		return object;
+    	} finally {
+    		stack.remove(stack.size() - 1);
     	}
-        return (T) obj;
+    }
+    
+    /**
+     * The instance of a request scoped bean, kept in the attributes of the current request
+     */
+    private Object requestBean(String className, Class<?> beanClass) {
+    	BladeWebContext context = BladeWebContext.me();
+    	if(null == context){
+    		throw new IocException("No request for the request scoped bean " + className);
+    	}
+    	Request request = context.getRequest();
+    	String key = REQUEST_BEAN_PREFIX + className;
+    	Object object = request.attribute(key);
+    	if(null == object){
+    		object = newInstance(beanClass);
+    		request.attribute(key, object);
+    	}
+    	return object;
     }
 
     @Override
@@ -239,7 +335,7 @@ public class SampleContainer implements Container {
     }
     
     /**
-     * Initialization injection
+     * Initialization injection, request scoped beans are injected when a request creates them
      */
     @Override
     public void initWired() throws RuntimeException {
@@ -247,18 +343,10 @@ public class SampleContainer implements Container {
     	Set<String> keys = beans.keySet();
     	for(String className : keys){
     		Object object = beans.get(className);
-			injection(object);
-    	}
-    }
-    
-    // Assemble
-    private Object recursiveAssembly(Class<?> clazz){
-    	Object field = null;
-    	if(null != clazz){
-    		String className = beanKeys.get(clazz.getName());
-    		field = beans.get(className);
+    		if(factory(object.getClass()).getScope() != Scope.REQUEST){
+    			injection(object);
+    		}
     	}
-    	return field;
     }
     
     
@@ -316,57 +404,56 @@ public class SampleContainer implements Container {
 		beanKeys.clear();
 		beans.clear();
 		annotaionBeans.clear();
+		factories.clear();
 		return true;
 	}
 
 	@Override
 	public void injection(Object object) {
-		// Traverse all fields 
+		// The fields to inject are found once per class
+		BeanFactory factory = factory(object.getClass());
+		Field[] fields = factory.getFields();
+		Inject[] injects = factory.getInjects();
 	    try {
-			Field[] fields = object.getClass().getDeclaredFields();
-			for (Field field : fields) {
-				// Need to inject the field 
-			    Inject inject = field.getAnnotation(Inject.class);
-			    if (null != inject ) {
-			    	// Bean to be injected 
-			        Object injectField = null;
-			        String name = inject.name();
-			        if(!name.equals("")){
-	        			String className = beanKeys.get(name);
-	        			if(null != className && !className.equals("")){
-	        				injectField = beans.get(className);
-	        			}
-	        			if (null == injectField) {
-				            throw new RuntimeException("Unable to load " + name);
-				        }
-	        		} else {
-	        			if(inject.value() == Class.class){
-	        				injectField = recursiveAssembly(field.getType());
-				        } else {
-				        	// Specify an assembly
-				        	injectField = this.getBean(inject.value(), null);
-				            if (null == injectField) {
-				            	injectField = recursiveAssembly(inject.value());
-				            }
-						}
-					}
-			        
-			        if (null == injectField) {
-			            throw new RuntimeException("Unable to load " + field.getType().getName() + "!");
+			for (int i = 0; i < fields.length; i++) {
+				Field field = fields[i];
+				Inject inject = injects[i];
+				
+		        String name = inject.name();
+		        String className = null;
+		        if(!name.equals("")){
+		        	className = className(name);
+        			if (null == className) {
+			            throw new RuntimeException("Unable to load " + name);
 			        }
-			        
-			        boolean accessible = field.isAccessible();
-			        field.setAccessible(true);
-			        field.set(object, injectField);
-			        field.setAccessible(accessible);
-			    }
+        		} else {
+        			if(inject.value() == Class.class){
+        				className = className(field.getType().getName());
+			        } else {
+			        	// Specify an assembly
+			        	className = className(inject.value().getName());
+					}
+				}
+		        
+		        Object bean = null == className ? null : beans.get(className);
+		        if (null == bean) {
+		            throw new RuntimeException("Unable to load " + field.getType().getName() + "!");
+		        }
+		        
+		        // Bean to be injected, in its own scope
+		        Scope scope = factory(bean.getClass()).getScope();
+		        if(scope == Scope.REQUEST && factory.getScope() != Scope.REQUEST){
+		        	throw new IocException("The request scoped bean " + className + " can not be injected into the "
+		        			+ factory.getScope() + " bean " + object.getClass().getName()
+		        			+ ", declare it request scoped or look the bean up with Container.getBean while handling a request");
+		        }
+		        
+		        field.set(object, scoped(className, bean, scope));
 			}
-		} catch (SecurityException e) {
-        	LOGGER.error(e);
-        } catch (IllegalArgumentException e) {
-        	LOGGER.error(e);
+		} catch (IllegalArgumentException e) {
+			throw new IocException("Unable to inject the fields of " + object.getClass().getName(), e);
         } catch (IllegalAccessException e) {
-        	LOGGER.error(e);
+        	throw new IocException("Unable to inject the fields of " + object.getClass().getName(), e);
         }
 	}
 	
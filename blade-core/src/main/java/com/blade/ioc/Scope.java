@@ -17,11 +17,13 @@ package com.blade.ioc;
 
 /**
  * Bean create type 
- * SINGLE, PROTOTYPE
+ * SINGLE, one instance shared by all lookups
+ * PROTOTYPE, a new instance for every lookup
+ * REQUEST, one instance for every request, kept in the request attributes
  *
  * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
  * @since	1.0
  */
 public enum Scope {
-	SINGLE, PROTOTYPE
+	SINGLE, PROTOTYPE, REQUEST
 }
\ No newline at end of file
@@ -22,6 +22,9 @@ import java.util.Map;
 import blade.kit.CollectionKit;
 import blade.kit.PatternKit;
 
+import com.blade.server.ServerConfig;
+import com.blade.web.ExecutionMode;
+
 /**
  * Blade Config Class
  * 
@@ -73,6 +76,69 @@ public class Config {
 	// Enabled XSS
 	private boolean enableXSS = false;
 	
+	// Core threads of the request executor
+	private int threadCore = Runtime.getRuntime().availableProcessors() * 2;
+	
+	// Max threads of the request executor
+	private int threadMax = 200;
+	
+	// Max requests waiting for a worker
+	private int threadQueue = 1000;
+	
+	// Asynchronous request timeout, milliseconds
+	private long asyncTimeout = 10000L;
+	
+	// Retry-After seconds of a rejected request
+	private int retryAfter = 1;
+	
+	// Execution mode of asynchronous requests
+	private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+	
+	// Max bytes of static files kept in memory
+	private long staticCacheSize = 32 * 1024 * 1024;
+	
+	// Max size of a static file kept in memory
+	private int staticCacheFileSize = 64 * 1024;
+	
+	// Compress responses with gzip or deflate, opt in with blade.compress
+	private boolean compress = false;
+	
+	// Min size of a compressed response body
+	private int compressThreshold = 1024;
+	
+	// Compression level, 1 - 9
+	private int compressLevel = 6;
+	
+	// Max bytes of compressed bodies kept for cacheable responses
+	private long compressCacheSize = 8 * 1024 * 1024;
+	
+	// Max number of responses kept by @CacheResponse routes
+	private int responseCacheSize = 1024;
+	
+	// Send ETags hashed from the response bodies of all routes
+	private boolean etag = false;
+	
+	// Max size of a multipart part kept in memory
+	private int multipartThreshold = 16 * 1024;
+	
+	// Max size of a multipart part, -1 is no limit
+	private long multipartMaxFileSize = -1;
+	
+	// Max size of a multipart request, -1 is no limit
+	private long multipartMaxRequestSize = -1;
+	
+	// Max size of a body parsed as JSON, -1 is no limit
+	private long maxBodySize = 8 * 1024 * 1024;
+	
+	// Run the registered plugins at startup, in parallel
+	private boolean runPlugins = false;
+	
+	// Threads running the plugins at startup
+	private int startupThreads = Runtime.getRuntime().availableProcessors();
+	
+	// Jetty thread pool and connector of the embedded server
+	private ServerConfig serverConfig = new ServerConfig();
+	
 	public Config() {
 	}
 	
@@ -236,4 +302,172 @@ public class Config {
 		this.enableXSS = enableXSS;
 	}
 
+	public int getThreadCore() {
+		return threadCore;
+	}
+
+	public void setThreadCore(int threadCore) {
+		this.threadCore = threadCore;
+	}
+
+	public int getThreadMax() {
+		return threadMax;
+	}
+
+	public void setThreadMax(int threadMax) {
+		this.threadMax = threadMax;
+	}
+
+	public int getThreadQueue() {
+		return threadQueue;
+	}
+
+	public void setThreadQueue(int threadQueue) {
+		this.threadQueue = threadQueue;
+	}
+
+	public long getAsyncTimeout() {
+		return asyncTimeout;
+	}
+
+	public void setAsyncTimeout(long asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
+	public int getRetryAfter() {
+		return retryAfter;
+	}
+
+	public void setRetryAfter(int retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public ExecutionMode getExecutionMode() {
+		return executionMode;
+	}
+
+	public void setExecutionMode(ExecutionMode executionMode) {
+		this.executionMode = executionMode;
+	}
+
+	public long getStaticCacheSize() {
+		return staticCacheSize;
+	}
+
+	public void setStaticCacheSize(long staticCacheSize) {
+		this.staticCacheSize = staticCacheSize;
+	}
+
+	public int getStaticCacheFileSize() {
+		return staticCacheFileSize;
+	}
+
+	public void setStaticCacheFileSize(int staticCacheFileSize) {
+		this.staticCacheFileSize = staticCacheFileSize;
+	}
+
+	public boolean isCompress() {
+		return compress;
+	}
+
+	public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+
+	public int getCompressThreshold() {
+		return compressThreshold;
+	}
+
+	public void setCompressThreshold(int compressThreshold) {
+		this.compressThreshold = compressThreshold;
+	}
+
+	public int getCompressLevel() {
+		return compressLevel;
+	}
+
+	public void setCompressLevel(int compressLevel) {
+		this.compressLevel = compressLevel;
+	}
+
+	public long getCompressCacheSize() {
+		return compressCacheSize;
+	}
+
+	public void setCompressCacheSize(long compressCacheSize) {
+		this.compressCacheSize = compressCacheSize;
+	}
+
+	public int getResponseCacheSize() {
+		return responseCacheSize;
+	}
+
+	public void setResponseCacheSize(int responseCacheSize) {
+		this.responseCacheSize = responseCacheSize;
+	}
+
+	public boolean isEtag() {
+		return etag;
+	}
+
+	public void setEtag(boolean etag) {
+		this.etag = etag;
+	}
+
+	public int getMultipartThreshold() {
+		return multipartThreshold;
+	}
+
+	public void setMultipartThreshold(int multipartThreshold) {
+		this.multipartThreshold = multipartThreshold;
+	}
+
+	public long getMultipartMaxFileSize() {
+		return multipartMaxFileSize;
+	}
+
+	public void setMultipartMaxFileSize(long multipartMaxFileSize) {
+		this.multipartMaxFileSize = multipartMaxFileSize;
+	}
+
+	public long getMultipartMaxRequestSize() {
+		return multipartMaxRequestSize;
+	}
+
+	public void setMultipartMaxRequestSize(long multipartMaxRequestSize) {
+		this.multipartMaxRequestSize = multipartMaxRequestSize;
+	}
+
+	public long getMaxBodySize() {
+		return maxBodySize;
+	}
+
+	public void setMaxBodySize(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	public boolean isRunPlugins() {
+		return runPlugins;
+	}
+
+	public void setRunPlugins(boolean runPlugins) {
+		this.runPlugins = runPlugins;
+	}
+
+	public int getStartupThreads() {
+		return startupThreads;
+	}
+
+	public void setStartupThreads(int startupThreads) {
+		this.startupThreads = startupThreads;
+	}
+
+	public ServerConfig getServerConfig() {
+		return serverConfig;
+	}
+
+	public void setServerConfig(ServerConfig serverConfig) {
+		this.serverConfig = serverConfig;
+	}
+
 }
@@ -19,6 +19,9 @@ import java.util.Map;
 
 import blade.kit.StringKit;
 
+import com.blade.server.ServerConfig;
+import com.blade.web.ExecutionMode;
+
 /**
  * Blade configuration
  * 
@@ -50,6 +53,44 @@ public class Configurator {
 	private static final String BLADE_VIEW_500 = "blade.view500";
 	private static final String BLADE_DEBUG = "blade.debug";
 	private static final String BLADE_ENABLEXSS = "blade.enableXSS";
+	private static final String BLADE_THREAD_CORE = "blade.thread.core";
+	private static final String BLADE_THREAD_MAX = "blade.thread.max";
+	private static final String BLADE_THREAD_QUEUE = "blade.thread.queue";
+	private static final String BLADE_ASYNC_TIMEOUT = "blade.async.timeout";
+	private static final String BLADE_RETRY_AFTER = "blade.retry_after";
+	private static final String BLADE_EXECUTION_MODE = "blade.execution_mode";
+	private static final String BLADE_STATIC_CACHE_SIZE = "blade.static.cache_size";
+	private static final String BLADE_STATIC_CACHE_FILE_SIZE = "blade.static.cache_file_size";
+	private static final String BLADE_COMPRESS = "blade.compress";
+	private static final String BLADE_COMPRESS_THRESHOLD = "blade.compress.threshold";
+	private static final String BLADE_COMPRESS_LEVEL = "blade.compress.level";
+	private static final String BLADE_COMPRESS_CACHE_SIZE = "blade.compress.cache_size";
+	private static final String BLADE_RESPONSE_CACHE_SIZE = "blade.cache.response_size";
+	private static final String BLADE_ETAG = "blade.etag";
+	private static final String BLADE_MULTIPART_THRESHOLD = "blade.multipart.threshold";
+	private static final String BLADE_MULTIPART_MAX_FILE_SIZE = "blade.multipart.max_file_size";
+	private static final String BLADE_MULTIPART_MAX_REQUEST_SIZE = "blade.multipart.max_request_size";
+	private static final String BLADE_BODY_MAX_SIZE = "blade.body.max_size";
+	private static final String BLADE_PLUGIN_RUN = "blade.plugin.run";
+	private static final String BLADE_STARTUP_THREADS = "blade.startup.threads";
+	private static final String BLADE_SERVER_MIN_THREADS = "blade.server.min_threads";
+	private static final String BLADE_SERVER_MAX_THREADS = "blade.server.max_threads";
+	private static final String BLADE_SERVER_ACCEPTORS = "blade.server.acceptors";
+	private static final String BLADE_SERVER_SELECTORS = "blade.server.selectors";
+	private static final String BLADE_SERVER_ACCEPT_QUEUE = "blade.server.accept_queue";
+	private static final String BLADE_SERVER_THREAD_IDLE_TIMEOUT = "blade.server.thread_idle_timeout";
+	private static final String BLADE_SERVER_CONNECTOR_IDLE_TIMEOUT = "blade.server.connector_idle_timeout";
+	private static final String BLADE_SERVER_REQUEST_HEADER_SIZE = "blade.server.request_header_size";
+	private static final String BLADE_SERVER_RESPONSE_HEADER_SIZE = "blade.server.response_header_size";
+	private static final String BLADE_SERVER_OUTPUT_BUFFER_SIZE = "blade.server.output_buffer_size";
+	private static final String BLADE_SERVER_REUSE_ADDRESS = "blade.server.reuse_address";
+	private static final String BLADE_SERVER_TCP_NODELAY = "blade.server.tcp_nodelay";
+	private static final String BLADE_SERVER_SHUTDOWN_TIMEOUT = "blade.server.shutdown_timeout";
+	private static final String BLADE_SERVER_HTTP2 = "blade.server.http2";
+	private static final String BLADE_SERVER_SSL_PORT = "blade.server.ssl_port";
+	private static final String BLADE_SERVER_KEY_STORE = "blade.server.key_store";
+	private static final String BLADE_SERVER_KEY_STORE_PASSWORD = "blade.server.key_store_password";
+	private static final String BLADE_SERVER_KEY_MANAGER_PASSWORD = "blade.server.key_manager_password";
 	
 	public void run() {
 		
@@ -68,6 +109,44 @@ public class Configurator {
 			String view500 = configMap.get(BLADE_VIEW_500);
 			String debug = configMap.get(BLADE_DEBUG);
 			String xss = configMap.get(BLADE_ENABLEXSS);
+			Integer threadCore = bladeConfig.getAsInt(BLADE_THREAD_CORE);
+			Integer threadMax = bladeConfig.getAsInt(BLADE_THREAD_MAX);
+			Integer threadQueue = bladeConfig.getAsInt(BLADE_THREAD_QUEUE);
+			Long asyncTimeout = bladeConfig.getAsLong(BLADE_ASYNC_TIMEOUT);
+			Integer retryAfter = bladeConfig.getAsInt(BLADE_RETRY_AFTER);
+			String executionMode = configMap.get(BLADE_EXECUTION_MODE);
+			Long staticCacheSize = bladeConfig.getAsLong(BLADE_STATIC_CACHE_SIZE);
+			Integer staticCacheFileSize = bladeConfig.getAsInt(BLADE_STATIC_CACHE_FILE_SIZE);
+			String compress = configMap.get(BLADE_COMPRESS);
+			Integer compressThreshold = bladeConfig.getAsInt(BLADE_COMPRESS_THRESHOLD);
+			Integer compressLevel = bladeConfig.getAsInt(BLADE_COMPRESS_LEVEL);
+			Long compressCacheSize = bladeConfig.getAsLong(BLADE_COMPRESS_CACHE_SIZE);
+			Integer responseCacheSize = bladeConfig.getAsInt(BLADE_RESPONSE_CACHE_SIZE);
+			String etag = configMap.get(BLADE_ETAG);
+			Integer multipartThreshold = bladeConfig.getAsInt(BLADE_MULTIPART_THRESHOLD);
+			Long multipartMaxFileSize = bladeConfig.getAsLong(BLADE_MULTIPART_MAX_FILE_SIZE);
+			Long multipartMaxRequestSize = bladeConfig.getAsLong(BLADE_MULTIPART_MAX_REQUEST_SIZE);
+			Long maxBodySize = bladeConfig.getAsLong(BLADE_BODY_MAX_SIZE);
+			String pluginRun = configMap.get(BLADE_PLUGIN_RUN);
+			Integer startupThreads = bladeConfig.getAsInt(BLADE_STARTUP_THREADS);
+			Integer serverMinThreads = bladeConfig.getAsInt(BLADE_SERVER_MIN_THREADS);
+			Integer serverMaxThreads = bladeConfig.getAsInt(BLADE_SERVER_MAX_THREADS);
+			Integer serverAcceptors = bladeConfig.getAsInt(BLADE_SERVER_ACCEPTORS);
+			Integer serverSelectors = bladeConfig.getAsInt(BLADE_SERVER_SELECTORS);
+			Integer serverAcceptQueue = bladeConfig.getAsInt(BLADE_SERVER_ACCEPT_QUEUE);
+			Integer serverThreadIdleTimeout = bladeConfig.getAsInt(BLADE_SERVER_THREAD_IDLE_TIMEOUT);
+			Long serverConnectorIdleTimeout = bladeConfig.getAsLong(BLADE_SERVER_CONNECTOR_IDLE_TIMEOUT);
+			Integer serverRequestHeaderSize = bladeConfig.getAsInt(BLADE_SERVER_REQUEST_HEADER_SIZE);
+			Integer serverResponseHeaderSize = bladeConfig.getAsInt(BLADE_SERVER_RESPONSE_HEADER_SIZE);
+			Integer serverOutputBufferSize = bladeConfig.getAsInt(BLADE_SERVER_OUTPUT_BUFFER_SIZE);
+			String serverReuseAddress = configMap.get(BLADE_SERVER_REUSE_ADDRESS);
+			String serverTcpNodelay = configMap.get(BLADE_SERVER_TCP_NODELAY);
+			Long serverShutdownTimeout = bladeConfig.getAsLong(BLADE_SERVER_SHUTDOWN_TIMEOUT);
+			String serverHttp2 = configMap.get(BLADE_SERVER_HTTP2);
+			Integer serverSslPort = bladeConfig.getAsInt(BLADE_SERVER_SSL_PORT);
+			String serverKeyStore = configMap.get(BLADE_SERVER_KEY_STORE);
+			String serverKeyStorePassword = configMap.get(BLADE_SERVER_KEY_STORE_PASSWORD);
+			String serverKeyManagerPassword = configMap.get(BLADE_SERVER_KEY_MANAGER_PASSWORD);
 			
 			if (StringKit.isNotBlank(route)) {
 				String[] blade_routes = StringKit.split(route, ",");
@@ -117,6 +196,159 @@ public class Configurator {
 				Boolean enableXssBool = Boolean.valueOf(xss);
 				bladeConfig.setEnableXSS(enableXssBool);
 			}
+			
+			if (null != threadCore) {
+				bladeConfig.setThreadCore(threadCore);
+			}
+			
+			if (null != threadMax) {
+				bladeConfig.setThreadMax(threadMax);
+			}
+			
+			if (null != threadQueue) {
+				bladeConfig.setThreadQueue(threadQueue);
+			}
+			
+			if (null != asyncTimeout) {
+				bladeConfig.setAsyncTimeout(asyncTimeout);
+			}
+			
+			if (null != retryAfter) {
+				bladeConfig.setRetryAfter(retryAfter);
+			}
+			
+			if (StringKit.isNotBlank(executionMode)) {
+				bladeConfig.setExecutionMode(ExecutionMode.valueOf(executionMode.trim().toUpperCase()));
+			}
+			
+			if (null != staticCacheSize) {
+				bladeConfig.setStaticCacheSize(staticCacheSize);
+			}
+			
+			if (null != staticCacheFileSize) {
+				bladeConfig.setStaticCacheFileSize(staticCacheFileSize);
+			}
+			
+			if (StringKit.isNotBlank(compress)) {
+				bladeConfig.setCompress(Boolean.valueOf(compress));
+			}
+			
+			if (null != compressThreshold) {
+				bladeConfig.setCompressThreshold(compressThreshold);
+			}
+			
+			if (null != compressLevel) {
+				bladeConfig.setCompressLevel(compressLevel);
+			}
+			
+			if (null != compressCacheSize) {
+				bladeConfig.setCompressCacheSize(compressCacheSize);
+			}
+			
+			if (null != responseCacheSize) {
+				bladeConfig.setResponseCacheSize(responseCacheSize);
+			}
+			
+			if (StringKit.isNotBlank(etag)) {
+				bladeConfig.setEtag(Boolean.valueOf(etag));
+			}
+			
+			if (null != multipartThreshold) {
+				bladeConfig.setMultipartThreshold(multipartThreshold);
+			}
+			
+			if (null != multipartMaxFileSize) {
+				bladeConfig.setMultipartMaxFileSize(multipartMaxFileSize);
+			}
+			
+			if (null != multipartMaxRequestSize) {
+				bladeConfig.setMultipartMaxRequestSize(multipartMaxRequestSize);
+			}
+			
+			if (null != maxBodySize) {
+				bladeConfig.setMaxBodySize(maxBodySize);
+			}
+			
+			if (StringKit.isNotBlank(pluginRun)) {
+				bladeConfig.setRunPlugins(Boolean.valueOf(pluginRun));
+			}
+			
+			if (null != startupThreads) {
+				bladeConfig.setStartupThreads(startupThreads);
+			}
+			
+			ServerConfig serverConfig = bladeConfig.getServerConfig();
+			if (null != serverMinThreads) {
+				serverConfig.setMinThreads(serverMinThreads);
+			}
+			
+			if (null != serverMaxThreads) {
+				serverConfig.setMaxThreads(serverMaxThreads);
+			}
+			
+			if (null != serverAcceptors) {
+				serverConfig.setAcceptors(serverAcceptors);
+			}
+			
+			if (null != serverSelectors) {
+				serverConfig.setSelectors(serverSelectors);
+			}
+			
+			if (null != serverAcceptQueue) {
+				serverConfig.setAcceptQueueSize(serverAcceptQueue);
+			}
+			
+			if (null != serverThreadIdleTimeout) {
+				serverConfig.setThreadIdleTimeout(serverThreadIdleTimeout);
+			}
+			
+			if (null != serverConnectorIdleTimeout) {
+				serverConfig.setConnectorIdleTimeout(serverConnectorIdleTimeout);
+			}
+			
+			if (null != serverRequestHeaderSize) {
+				serverConfig.setRequestHeaderSize(serverRequestHeaderSize);
+			}
+			
+			if (null != serverResponseHeaderSize) {
+				serverConfig.setResponseHeaderSize(serverResponseHeaderSize);
+			}
+			
+			if (null != serverOutputBufferSize) {
+				serverConfig.setOutputBufferSize(serverOutputBufferSize);
+			}
+			
+			if (StringKit.isNotBlank(serverReuseAddress)) {
+				serverConfig.setReuseAddress(Boolean.valueOf(serverReuseAddress));
+			}
+			
+			if (StringKit.isNotBlank(serverTcpNodelay)) {
+				serverConfig.setTcpNoDelay(Boolean.valueOf(serverTcpNodelay));
+			}
+			
+			if (null != serverShutdownTimeout) {
+				serverConfig.setShutdownTimeout(serverShutdownTimeout);
+			}
+			
+			if (StringKit.isNotBlank(serverHttp2)) {
+				serverConfig.setHttp2(Boolean.valueOf(serverHttp2));
+			}
+			
+			if (null != serverSslPort) {
+				serverConfig.setSslPort(serverSslPort);
+			}
+			
+			if (StringKit.isNotBlank(serverKeyStore)) {
+				serverConfig.setKeyStorePath(serverKeyStore);
+			}
+			
+			if (null != serverKeyStorePassword) {
+				serverConfig.setKeyStorePassword(serverKeyStorePassword);
+			}
+			
+			if (null != serverKeyManagerPassword) {
+				serverConfig.setKeyManagerPassword(serverKeyManagerPassword);
+			}
 		}
 	}
 }
\ No newline at end of file
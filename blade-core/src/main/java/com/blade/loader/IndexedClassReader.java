@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.loader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import blade.kit.CollectionKit;
+import blade.kit.IOKit;
+import blade.kit.log.Logger;
+import blade.kit.resource.AbstractClassReader;
+import blade.kit.resource.ClassReader;
+
+import com.blade.annotation.Component;
+import com.blade.annotation.Interceptor;
+import com.blade.annotation.Path;
+
+/**
+ * Class reader that answers from META-INF/blade.index, generated by blade-apt at compile time
+ * <p>
+ * Queries for @Path, @Interceptor and @Component are answered from the index without scanning the classpath, 
+ * when every classpath root holding the package has an index. A package that is also in a root without an 
+ * index, e.g. the application next to a plugin jar built with blade-apt, is scanned. All other queries go to 
+ * the scanning reader.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class IndexedClassReader implements ClassReader {
+	
+	private static final Logger LOGGER = Logger.getLogger(IndexedClassReader.class);
+	
+	public static final String INDEX = "META-INF/blade.index";
+	
+	private static final Set<String> INDEXED_ANNOTATIONS = CollectionKit.newHashSet();
+	
+	static {
+		INDEXED_ANNOTATIONS.add(Path.class.getName());
+		INDEXED_ANNOTATIONS.add(Interceptor.class.getName());
+		INDEXED_ANNOTATIONS.add(Component.class.getName());
+	}
+	
+	private final ClassReader classReader;
+	
+	// annotation name -> class names, null when there is no index
+	private volatile Map<String, List<String>> index;
+	
+	// classpath roots with an index, e.g: file:/app/classes/, jar:file:/lib/plugin.jar!/
+	private final List<String> indexedRoots = CollectionKit.newArrayList();
+	
+	private volatile boolean loaded = false;
+	
+	private int indexedCount;
+	
+	private int loadedCount;
+	
+	public IndexedClassReader(ClassReader classReader) {
+		this.classReader = classReader;
+	}
+	
+	@Override
+	public Set<Class<?>> getClass(String packageName, boolean recursive) {
+		return classReader.getClass(packageName, recursive);
+	}
+	
+	@Override
+	public Set<Class<?>> getClass(String packageName, Class<?> parent, boolean recursive) {
+		return classReader.getClass(packageName, parent, recursive);
+	}
+	
+	@Override
+	public Set<Class<?>> getClassByAnnotation(String packageName, Class<? extends Annotation> annotation, boolean recursive) {
+		return this.getClassByAnnotation(packageName, null, annotation, recursive);
+	}
+	
+	@Override
+	public Set<Class<?>> getClassByAnnotation(String packageName, Class<?> parent, Class<? extends Annotation> annotation, boolean recursive) {
+		Map<String, List<String>> index = index();
+		if (null == index || null != parent || null == annotation || !INDEXED_ANNOTATIONS.contains(annotation.getName()) 
+				|| !isIndexedPackage(packageName)) {
+			return classReader.getClassByAnnotation(packageName, parent, annotation, recursive);
+		}
+		
+		Set<Class<?>> classes = CollectionKit.newHashSet();
+		List<String> classNames = index.get(annotation.getName());
+		if (null == classNames) {
+			return classes;
+		}
+		ClassLoader classLoader = classLoader();
+		for (String className : classNames) {
+			if (!inPackage(className, packageName, recursive)) {
+				continue;
+			}
+			try {
+				Class<?> clazz = Class.forName(className, false, classLoader);
+				loadedCount++;
+				// an index of an incremental build may be stale
+				if (clazz.isAnnotationPresent(annotation)) {
+					classes.add(clazz);
+				}
+			} catch (ClassNotFoundException e) {
+				LOGGER.warn("Class " + className + " of " + INDEX + " not found, rebuild the project");
+			}
+		}
+		return classes;
+	}
+	
+	/**
+	 * @return	Return the number of classes listed by the index and scanned, -1 if unknown
+	 */
+	public int getScannedCount() {
+		int scanned = classReader instanceof AbstractClassReader ? ((AbstractClassReader) classReader).getScannedCount() : -1;
+		if (isIndexed()) {
+			return indexedCount + Math.max(scanned, 0);
+		}
+		return scanned;
+	}
+	
+	/**
+	 * @return	Return the number of loaded classes, -1 if unknown
+	 */
+	public int getLoadedCount() {
+		int loaded = classReader instanceof AbstractClassReader ? ((AbstractClassReader) classReader).getLoadedCount() : -1;
+		if (isIndexed()) {
+			return loadedCount + Math.max(loaded, 0);
+		}
+		return loaded;
+	}
+	
+	/**
+	 * Release the class headers read by the scanning reader, the startup scans are done
+	 */
+	public void clearCache() {
+		if (classReader instanceof AbstractClassReader) {
+			((AbstractClassReader) classReader).clearCache();
+		}
+	}
+	
+	/**
+	 * @return	Return whether there is a META-INF/blade.index on the classpath
+	 */
+	public boolean isIndexed() {
+		return null != index();
+	}
+	
+	/**
+	 * @return	Return whether every classpath root holding the package has an index
+	 */
+	private boolean isIndexedPackage(String packageName) {
+		try {
+			Enumeration<URL> urls = classLoader().getResources(packageName.replace('.', '/'));
+			while (urls.hasMoreElements()) {
+				if (!isIndexedRoot(urls.nextElement().toExternalForm())) {
+					return false;
+				}
+			}
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	private boolean isIndexedRoot(String location) {
+		for (String root : indexedRoots) {
+			if (location.startsWith(root)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return	Return the context class loader, the loader of blade when the thread has none
+	 */
+	private ClassLoader classLoader() {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return null != classLoader ? classLoader : IndexedClassReader.class.getClassLoader();
+	}
+	
+	private boolean inPackage(String className, String packageName, boolean recursive) {
+		int pos = className.lastIndexOf('.');
+		String classPackage = pos > 0 ? className.substring(0, pos) : "";
+		if (recursive) {
+			return classPackage.equals(packageName) || classPackage.startsWith(packageName + ".");
+		}
+		return classPackage.equals(packageName);
+	}
+	
+	private Map<String, List<String>> index() {
+		if (!loaded) {
+			synchronized (this) {
+				if (!loaded) {
+					index = readIndex();
+					loaded = true;
+				}
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Merge the indexes of all jars and class folders
+	 * 
+	 * @return	Return the index, null if there is none
+	 */
+	private Map<String, List<String>> readIndex() {
+		try {
+			Enumeration<URL> urls = classLoader().getResources(INDEX);
+			if (!urls.hasMoreElements()) {
+				return null;
+			}
+			Map<String, List<String>> index = CollectionKit.newHashMap();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				String location = url.toExternalForm();
+				indexedRoots.add(location.substring(0, location.length() - INDEX.length()));
+				BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+				try {
+					String line;
+					while (null != (line = reader.readLine())) {
+						int pos = line.indexOf('=');
+						if (line.startsWith("#") || pos <= 0) {
+							continue;
+						}
+						String className = line.substring(0, pos).trim();
+						for (String annotationName : line.substring(pos + 1).split(",")) {
+							List<String> classNames = index.get(annotationName.trim());
+							if (null == classNames) {
+								classNames = CollectionKit.newArrayList();
+								index.put(annotationName.trim(), classNames);
+							}
+							classNames.add(className);
+						}
+						indexedCount++;
+					}
+				} finally {
+					IOKit.closeQuietly(reader);
+				}
+			}
+			return index;
+		} catch (IOException e) {
+			LOGGER.warn("Can not read " + INDEX + ", scanning the classpath: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		if (isIndexed()) {
+			return "from " + INDEX + " of " + indexedRoots.size() + " classpath roots, indexed " + indexedCount 
+					+ " classes, loaded " + loadedCount + ", " + classReader;
+		}
+		return classReader.toString();
+	}
+	
+}
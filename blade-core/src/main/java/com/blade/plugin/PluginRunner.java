@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.plugin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import blade.kit.CollectionKit;
+import blade.kit.log.Logger;
+
+import com.blade.annotation.DependsOn;
+import com.blade.context.StartupReport;
+
+/**
+ * Runs plugins in parallel, a plugin runs once all plugins of its @DependsOn have run
+ * <p>
+ * Plugins are submitted as their dependencies complete, so no worker waits on another one 
+ * and a pool smaller than the number of plugins can not dead lock. When a plugin fails, 
+ * the plugins that depend on it are skipped and await throws the failure.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class PluginRunner {
+	
+	private static final Logger LOGGER = Logger.getLogger(PluginRunner.class);
+	
+	private final Executor executor;
+	
+	private final StartupReport report;
+	
+	private final List<Node> nodes = CollectionKit.newArrayList();
+	
+	private final CountDownLatch done;
+	
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	
+	private long startNanos;
+	
+	public PluginRunner(List<Plugin> plugins, Executor executor, StartupReport report) {
+		this.executor = executor;
+		this.report = report;
+		
+		Map<Plugin, Node> nodeMap = CollectionKit.newHashMap();
+		for (Plugin plugin : plugins) {
+			Node node = new Node(plugin);
+			nodes.add(node);
+			nodeMap.put(plugin, node);
+		}
+		for (Node node : nodes) {
+			DependsOn dependsOn = node.plugin.getClass().getAnnotation(DependsOn.class);
+			if (null == dependsOn) {
+				continue;
+			}
+			for (Class<? extends Plugin> type : dependsOn.value()) {
+				Node dependency = find(type);
+				if (null == dependency) {
+					throw new IllegalStateException(node + " depends on " + type.getName() + ", which is not registered");
+				}
+				dependency.dependents.add(node);
+				node.pending.incrementAndGet();
+			}
+		}
+		checkCycles();
+		this.done = new CountDownLatch(nodes.size());
+	}
+	
+	private Node find(Class<? extends Plugin> type) {
+		for (Node node : nodes) {
+			if (type.isInstance(node.plugin)) {
+				return node;
+			}
+		}
+		return null;
+	}
+	
+	private void checkCycles() {
+		Map<Node, Boolean> visiting = CollectionKit.newHashMap();
+		for (Node node : nodes) {
+			visit(node, visiting);
+		}
+	}
+	
+	private void visit(Node node, Map<Node, Boolean> visiting) {
+		Boolean state = visiting.get(node);
+		if (Boolean.FALSE.equals(state)) {
+			return;
+		}
+		if (Boolean.TRUE.equals(state)) {
+			throw new IllegalStateException("Plugin dependency cycle at " + node);
+		}
+		visiting.put(node, Boolean.TRUE);
+		for (Node dependent : node.dependents) {
+			visit(dependent, visiting);
+		}
+		visiting.put(node, Boolean.FALSE);
+	}
+	
+	/**
+	 * Submit the plugins without dependencies, the others follow as they become ready
+	 */
+	public void start() {
+		startNanos = System.nanoTime();
+		for (Node node : nodes) {
+			if (node.pending.get() == 0) {
+				submit(node);
+			}
+		}
+	}
+	
+	/**
+	 * Wait for all plugins
+	 * 
+	 * @throws InterruptedException
+	 * @throws IllegalStateException	if a plugin failed
+	 */
+	public void await() throws InterruptedException {
+		done.await();
+		report.phase("plugins", startNanos);
+		Throwable error = failure.get();
+		if (null != error) {
+			throw new IllegalStateException("Plugin startup failed", error);
+		}
+	}
+	
+	private void submit(final Node node) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				long start = System.nanoTime();
+				try {
+					node.plugin.run();
+					report.plugin(node.toString(), start, true);
+					finish(node);
+					for (Node dependent : node.dependents) {
+						if (dependent.pending.decrementAndGet() == 0) {
+							submit(dependent);
+						}
+					}
+				} catch (Throwable e) {
+					LOGGER.error(node + " failed: " + e.getMessage());
+					failure.compareAndSet(null, e);
+					report.plugin(node.toString(), start, false);
+					finish(node);
+					skip(node);
+				}
+			}
+		});
+	}
+	
+	private void skip(Node node) {
+		for (Node dependent : node.dependents) {
+			if (finish(dependent)) {
+				LOGGER.warn(dependent + " skipped, " + node + " failed");
+				skip(dependent);
+			}
+		}
+	}
+	
+	private boolean finish(Node node) {
+		if (node.finished.compareAndSet(false, true)) {
+			done.countDown();
+			return true;
+		}
+		return false;
+	}
+	
+	static class Node {
+		
+		final Plugin plugin;
+		
+		final List<Node> dependents = CollectionKit.newArrayList();
+		
+		final AtomicInteger pending = new AtomicInteger();
+		
+		final AtomicBoolean finished = new AtomicBoolean();
+		
+		Node(Plugin plugin) {
+			this.plugin = plugin;
+		}
+		
+		@Override
+		public String toString() {
+			return plugin.getClass().getName();
+		}
+	}
+	
+}
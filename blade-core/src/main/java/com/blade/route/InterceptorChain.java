@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.route;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import com.blade.web.http.Path;
+
+/**
+ * Ordered interceptor chain of a route
+ * <p>
+ * Built once when the route matcher is created. Interceptors that match every path of the route
+ * are resolved up front; if some interceptor can only match part of them (e.g. <code>/user/1</code>
+ * for the route <code>/user/:id</code>), the chain is resolved for the concrete path and memoized.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class InterceptorChain {
+	
+	public static final InterceptorChain EMPTY = new InterceptorChain(new Route[0], new Pattern[0]);
+	
+	/**
+	 * Maximum number of concrete paths memoized per chain
+	 */
+	private static final int MAX_MEMO_SIZE = 256;
+	
+	private final Route[] interceptors;
+	
+	/**
+	 * Pattern of each interceptor, null means it always matches
+	 */
+	private final Pattern[] patterns;
+	
+	private final boolean conditional;
+	
+	private final ConcurrentHashMap<String, Route[]> memo;
+	
+	InterceptorChain(Route[] interceptors, Pattern[] patterns) {
+		this.interceptors = interceptors;
+		this.patterns = patterns;
+		boolean hasPattern = false;
+		for(Pattern pattern : patterns){
+			if(null != pattern){
+				hasPattern = true;
+				break;
+			}
+		}
+		this.conditional = hasPattern;
+		this.memo = hasPattern ? new ConcurrentHashMap<String, Route[]>() : null;
+	}
+	
+	/**
+	 * Return the interceptors to execute for a request path, in order.
+	 * The returned array is shared and must not be modified.
+	 * 
+	 * @param path	request path
+	 * @return		return interceptor array
+	 */
+	public Route[] get(String path) {
+		if(!conditional){
+			return interceptors;
+		}
+		Route[] chain = memo.get(path);
+		if(null == chain){
+			chain = resolve(Path.fixPath(path));
+			if(memo.size() < MAX_MEMO_SIZE){
+				memo.put(path, chain);
+			}
+		}
+		return chain;
+	}
+	
+	/**
+	 * @return	Return whether the chain has no interceptor
+	 */
+	public boolean isEmpty() {
+		return interceptors.length == 0;
+	}
+	
+	private Route[] resolve(String path) {
+		int count = 0;
+		boolean[] matched = new boolean[interceptors.length];
+		for(int i=0; i<interceptors.length; i++){
+			if(null == patterns[i] || patterns[i].matcher(path).matches()){
+				matched[i] = true;
+				count++;
+			}
+		}
+		Route[] chain = new Route[count];
+		for(int i=0, j=0; i<interceptors.length; i++){
+			if(matched[i]){
+				chain[j++] = interceptors[i];
+			}
+		}
+		return chain;
+	}
+	
+}
@@ -16,7 +16,16 @@
 package com.blade.route;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import com.blade.annotation.CacheResponse;
+import com.blade.annotation.ETag;
+import com.blade.web.RouteInvoker;
+import com.blade.web.cache.CachePolicy;
 import com.blade.web.http.HttpMethod;
 import com.blade.web.http.Path;
 
@@ -28,6 +37,8 @@ import com.blade.web.http.Path;
  */
 public class Route {
 	
+	private static final Pattern PARAM_PATTERN = Pattern.compile(Path.VAR_REGEXP);
+	
 	/**
 	 * HTTP Request Method
 	 */
@@ -38,6 +49,16 @@ public class Route {
 	 */
 	private String path;
 	
+	/**
+	 * Compiled route path, path parameters are its capturing groups
+	 */
+	private Pattern pattern;
+	
+	/**
+	 * Path parameter names, in the order of the capturing groups
+	 */
+	private String[] paramNames;
+	
 	/**
 	 * Logical controller object 
 	 */
@@ -48,6 +69,36 @@ public class Route {
 	 */
 	private Method action;
 	
+	/**
+	 * Invoker of the action, prepared when the route is created
+	 */
+	private RouteInvoker invoker;
+	
+	/**
+	 * Before interceptors of the route, built by the route matcher
+	 */
+	private InterceptorChain befores = InterceptorChain.EMPTY;
+	
+	/**
+	 * After interceptors of the route, built by the route matcher
+	 */
+	private InterceptorChain afters = InterceptorChain.EMPTY;
+	
+	/**
+	 * Asynchronous request timeout of the route in milliseconds, 0 is the global timeout
+	 */
+	private long timeout;
+	
+	/**
+	 * Response cache policy of the route, null if its responses are not cached
+	 */
+	private CachePolicy cachePolicy;
+	
+	/**
+	 * Whether the route sends an ETag hashed from the response body
+	 */
+	private boolean etag;
+	
 	public Route() {
 	}
 
@@ -57,6 +108,10 @@ public class Route {
 		this.path = Path.fixPath(path);
 		this.target = target;
 		this.action = action;
+		this.invoker = null != action ? new RouteInvoker(action) : null;
+		this.cachePolicy = cachePolicy(action);
+		this.etag = null != action && action.isAnnotationPresent(ETag.class);
+		compilePath();
 	}
 	
 	public HttpMethod getHttpMethod() {
@@ -73,6 +128,48 @@ public class Route {
 
 	public void setPath(String path) {
 		this.path = path;
+		compilePath();
+	}
+	
+	public Pattern getPattern() {
+		return pattern;
+	}
+	
+	public String[] getParamNames() {
+		return paramNames;
+	}
+	
+	/**
+	 * Parse path parameters of the route from a request path
+	 * 
+	 * @param requestPath	request path
+	 * @param pathParams	receive the path parameters
+	 * @return				return whether the request path matches the route
+	 */
+	public boolean parsePathParams(String requestPath, Map<String, String> pathParams) {
+		Matcher matcher = pattern.matcher(requestPath);
+		if(!matcher.matches()){
+			return false;
+		}
+		for(int i=0; i<paramNames.length; i++){
+			pathParams.put(paramNames[i], matcher.group(i + 1));
+		}
+		return true;
+	}
+	
+	private void compilePath() {
+		if(null == path){
+			this.pattern = null;
+			this.paramNames = null;
+			return;
+		}
+		List<String> names = new ArrayList<String>();
+		Matcher matcher = PARAM_PATTERN.matcher(path);
+		while (matcher.find()) {
+			names.add(matcher.group(1));
+		}
+		this.paramNames = names.toArray(new String[names.size()]);
+		this.pattern = RouteMatcher.compile(path);
 	}
 
 	public Object getTarget() {
@@ -89,6 +186,61 @@ public class Route {
 
 	public void setAction(Method action) {
 		this.action = action;
+		this.invoker = null != action ? new RouteInvoker(action) : null;
+		this.cachePolicy = cachePolicy(action);
+		this.etag = null != action && action.isAnnotationPresent(ETag.class);
+	}
+	
+	private static CachePolicy cachePolicy(Method action) {
+		if(null == action){
+			return null;
+		}
+		CacheResponse cacheResponse = action.getAnnotation(CacheResponse.class);
+		return null != cacheResponse ? new CachePolicy(cacheResponse) : null;
+	}
+	
+	public RouteInvoker getInvoker() {
+		return invoker;
+	}
+	
+	public long getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+	
+	public CachePolicy getCachePolicy() {
+		return cachePolicy;
+	}
+	
+	public void setCachePolicy(CachePolicy cachePolicy) {
+		this.cachePolicy = cachePolicy;
+	}
+	
+	public boolean isEtag() {
+		return etag;
+	}
+	
+	public void setEtag(boolean etag) {
+		this.etag = etag;
+	}
+	
+	public InterceptorChain getBefores() {
+		return befores;
+	}
+
+	public void setBefores(InterceptorChain befores) {
+		this.befores = befores;
+	}
+
+	public InterceptorChain getAfters() {
+		return afters;
+	}
+
+	public void setAfters(InterceptorChain afters) {
+		this.afters = afters;
 	}
 	
 	@Override
@@ -19,7 +19,6 @@ import java.lang.reflect.Method;
 import java.util.Set;
 
 import blade.kit.StringKit;
-import blade.kit.resource.ClassPathClassReader;
 import blade.kit.resource.ClassReader;
 
 import com.blade.Aop;
@@ -53,7 +52,7 @@ public class RouteBuilder {
     /**
      * Class reader, used to scan the class specified in the rules
      */
-    private ClassReader classReader = new ClassPathClassReader();
+    private ClassReader classReader;
     
     /**
      * IOC container, storage route to IOC
@@ -68,6 +67,7 @@ public class RouteBuilder {
     	this.blade = blade;
     	this.routers = blade.routers();
     	this.container = blade.container();
+    	this.classReader = blade.classReader();
     }
     
     /**
@@ -248,14 +248,14 @@ public class RouteBuilder {
 				
 				HttpMethod methodType = mapping.method();
 				
-				buildRoute(router, method, path, methodType);
+				buildRoute(router, method, path, methodType, mapping.timeout());
 				
 				// build multiple route
 				String[] paths = mapping.values();
 				if(null != paths && paths.length > 0){
 					for(String value : paths){
 						String pathV = getRoutePath(value, nameSpace, suffix);
-						buildRoute(router, method, pathV, methodType);
+						buildRoute(router, method, pathV, methodType, mapping.timeout());
 					}
 				}
 			}
@@ -281,9 +281,13 @@ public class RouteBuilder {
      * @param execMethod	route execution method 
      * @param path			route path
      * @param method		route httpmethod
+     * @param timeout		route asynchronous timeout
      */
-    private void buildRoute(Class<?> clazz, Method execMethod, String path, HttpMethod method){
-    	routers.buildRoute(path, clazz, execMethod, method);
+    private void buildRoute(Class<?> clazz, Method execMethod, String path, HttpMethod method, long timeout){
+    	com.blade.route.Route route = routers.buildRoute(path, clazz, execMethod, method);
+    	if(null != route){
+    		route.setTimeout(timeout);
+    	}
     }
     
     /**
@@ -19,17 +19,30 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.blade.web.http.HttpMethod;
 import com.blade.web.http.Path;
 
 /**
  * Default Route Matcher
+ * <p>
+ * Routes are indexed once into a segment tree per {@link HttpMethod}, a lookup costs O(path segments).
+ * Matching precedence on every segment is: static, then <code>:param</code>, then <code>*</code>.
+ * Routes written as regular expressions (e.g. <code>/user/\d+</code>) are compiled once and tried
+ * in registration order after the tree.
+ * </p>
+ * <p>
+ * A trailing <code>*</code> matches the path and every path below it (<code>/x/*</code> matches
+ * <code>/x</code> and <code>/x/a/b</code>), a <code>*</code> anywhere else is still a regular expression.
+ * Interceptors run in registration order.
+ * </p>
  *
  * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
  * @since	1.0
@@ -38,21 +51,48 @@ public class RouteMatcher {
 
 //	private static final Logger LOGGER = Logger.getLogger(SampleRouteMatcher.class);
     
+	// How an interceptor covers the paths of a route
+	private static final int NEVER = 0;
+	private static final int MAYBE = 1;
+	private static final int ALWAYS = 2;
+	
     // Storage URL and route
 	private Map<String, Route> routes = null;
 	private Map<String, Route> interceptors = null;
 	
-	// Storage Map Key
-	private Set<String> routeKeys = null;
-	private List<Route> interceptorRoutes = new ArrayList<Route>();
+	// Interceptors in registration order
+	private List<Route> beforeRoutes = new ArrayList<Route>();
+	private List<Route> afterRoutes = new ArrayList<Route>();
+	
+	// Route tree of each http method
+	private Map<HttpMethod, Node> routeTrees = new EnumMap<HttpMethod, Node>(HttpMethod.class);
+	
+	// Routes that can not be expressed by the tree, matched by regular expression
+	private Map<HttpMethod, List<Route>> regexRoutes = new EnumMap<HttpMethod, List<Route>>(HttpMethod.class);
+	
+	// Whether some route has its own asynchronous timeout
+	private boolean hasRouteTimeout = false;
 	
     public RouteMatcher(Routers routers) {
 		this.routes = routers.getRoutes();
 		this.interceptors = routers.getInterceptors();
-		this.routeKeys = routes.keySet();
 		Collection<Route> inters = interceptors.values();
 		if (null != inters && inters.size() > 0) {
-			this.interceptorRoutes.addAll(inters);
+			for(Route route : inters){
+				if(route.getHttpMethod() == HttpMethod.BEFORE){
+					beforeRoutes.add(route);
+				} else {
+					afterRoutes.add(route);
+				}
+			}
+		}
+		for(Route route : routes.values()){
+			index(route);
+			if(route.getTimeout() > 0){
+				hasRouteTimeout = true;
+			}
+			route.setBefores(buildChain(route, beforeRoutes));
+			route.setAfters(buildChain(route, afterRoutes));
 		}
     }
     
@@ -63,8 +103,18 @@ public class RouteMatcher {
      * @return				return route object
      */
     public Route getRoute(String httpMethod, String path) {
-		String cleanPath = parsePath(path);
-		
+    	return getRoute(httpMethod, path, null);
+    }
+    
+    /**
+     * Find a route and extract its path parameters in the same pass
+     * 
+     * @param httpMethod	httpMethod
+     * @param path			request path
+     * @param pathParams	receive the path parameters of the matched route, can be null
+     * @return				return route object
+     */
+    public Route getRoute(String httpMethod, String path, Map<String, String> pathParams) {
 		String routeKey = path + "#" + httpMethod.toUpperCase();
 		Route route = routes.get(routeKey);
 		if(null != route){
@@ -75,40 +125,56 @@ public class RouteMatcher {
 			return route;
 		}
 		
-		List<Route> matchRoutes = new ArrayList<Route>();
-		for(String key : routeKeys){
-			String[] keyArr = key.split("#");
-			HttpMethod routeMethod = HttpMethod.valueOf(keyArr[1]);
-			if (matchesPath(keyArr[0], cleanPath)) {
-				if (routeMethod == HttpMethod.ALL || HttpMethod.valueOf(httpMethod) == routeMethod) {
-					route = routes.get(key);
-					matchRoutes.add(route);
-				}
+		String cleanPath = parsePath(path);
+		if(null == cleanPath){
+			return null;
+		}
+		
+		String[] segments = split(cleanPath);
+		String[] lowerSegments = segments;
+		String lowerPath = cleanPath.toLowerCase(Locale.ENGLISH);
+		if(lowerPath != cleanPath){
+			lowerSegments = split(lowerPath);
+			if(lowerSegments.length != segments.length){
+				segments = lowerSegments;
+			}
+		}
+		
+		HttpMethod method = parseMethod(httpMethod);
+		if(null != method && method != HttpMethod.ALL){
+			route = find(routeTrees.get(method), segments, lowerSegments, pathParams);
+			if(null != route){
+				return route;
 			}
 		}
+		route = find(routeTrees.get(HttpMethod.ALL), segments, lowerSegments, pathParams);
+		if(null != route){
+			return route;
+		}
 		
-		// Priority matching principle 
-        giveMatch(path, matchRoutes);
-        
-        return matchRoutes.size() > 0 ? matchRoutes.get(0) : null;
+		if(null != method && method != HttpMethod.ALL){
+			route = findRegex(regexRoutes.get(method), cleanPath, pathParams);
+			if(null != route){
+				return route;
+			}
+		}
+		return findRegex(regexRoutes.get(HttpMethod.ALL), cleanPath, pathParams);
 	}
     
+    /**
+     * @return	Return whether some route has its own asynchronous timeout
+     */
+    public boolean hasRouteTimeout() {
+    	return hasRouteTimeout;
+    }
+    
     /**
      * Find all in before of the interceptor 
      * @param path	request path
      * @return		return interceptor list
      */
     public List<Route> getBefore(String path) {
-    	
-		List<Route> befores = new ArrayList<Route>();
-		String cleanPath = parsePath(path);
-		for (Route route : interceptorRoutes) {
-			if(matchesPath(route.getPath(), cleanPath) && route.getHttpMethod() == HttpMethod.BEFORE){
-				befores.add(route);
-			}
-        }
-		giveMatch(path, befores);
-		return befores;
+		return matchInterceptors(parsePath(path), beforeRoutes);
 	}
 	
     /**
@@ -117,44 +183,99 @@ public class RouteMatcher {
      * @return		return interceptor list
      */
 	public List<Route> getAfter(String path) {
-		List<Route> afters = new ArrayList<Route>();
-		String cleanPath = parsePath(path);
-		for (Route route : interceptorRoutes) {
-			if(matchesPath(route.getPath(), cleanPath) && route.getHttpMethod() == HttpMethod.AFTER){
-				afters.add(route);
-			}
-        }
-		giveMatch(path, afters);
-		return afters;
+		return matchInterceptors(parsePath(path), afterRoutes);
 	}
     
+	private List<Route> matchInterceptors(String path, List<Route> interceptorRoutes) {
+		List<Route> matched = new ArrayList<Route>();
+		if(null == path){
+			return matched;
+		}
+		for(int i=0, len=interceptorRoutes.size(); i<len; i++){
+			Route route = interceptorRoutes.get(i);
+			if(route.getPattern().matcher(path).matches()){
+				matched.add(route);
+			}
+		}
+		return matched;
+	}
+	
 	/**
-	 * Sort of path 
-	 * @param uri		request uri	
-	 * @param routes	route list
+	 * Build the interceptor chain of a route, interceptors keep their registration order
+	 * 
+	 * @param route				route object
+	 * @param interceptorRoutes	all before or after interceptors
+	 * @return					return the interceptor chain
 	 */
-    private void giveMatch(final String uri, List<Route> routes) {
-		Collections.sort(routes, new Comparator<Route>() {
-		    @Override
-		    public int compare(Route o1, Route o2) {
-				if(o2.getPath().equals(uri)){
-					return o2.getPath().indexOf(uri);
-				}
-				return -1;
+	private InterceptorChain buildChain(Route route, List<Route> interceptorRoutes) {
+		if(interceptorRoutes.isEmpty()){
+			return InterceptorChain.EMPTY;
+		}
+		String[] routeSegments = split(route.getPath());
+		boolean routeRegex = isRegexPath(routeSegments);
+		
+		List<Route> chain = new ArrayList<Route>();
+		List<Pattern> chainPatterns = new ArrayList<Pattern>();
+		for(int i=0, len=interceptorRoutes.size(); i<len; i++){
+			Route interceptor = interceptorRoutes.get(i);
+			int coverage = coverage(routeSegments, routeRegex, split(interceptor.getPath()));
+			if(coverage == NEVER){
+				continue;
 			}
-		});
+			chain.add(interceptor);
+			chainPatterns.add(coverage == ALWAYS ? null : interceptor.getPattern());
+		}
+		if(chain.isEmpty()){
+			return InterceptorChain.EMPTY;
+		}
+		return new InterceptorChain(chain.toArray(new Route[chain.size()]), chainPatterns.toArray(new Pattern[chainPatterns.size()]));
 	}
-    
-    /**
-     * Matching path
-     * 
-     * @param routePath		route path
-     * @param pathToMatch	match path
-     * @return				return match is success
-     */
-    private boolean matchesPath(String routePath, String pathToMatch) {
-		routePath = routePath.replaceAll(Path.VAR_REGEXP, Path.VAR_REPLACE);
-		return pathToMatch.matches("(?i)" + routePath);
+	
+	/**
+	 * Decide whether an interceptor matches all, some or none of the paths of a route
+	 * 
+	 * @param routeSegments			route path segments
+	 * @param routeRegex			whether the route path is a regular expression
+	 * @param interceptorSegments	interceptor path segments
+	 * @return						return NEVER, MAYBE or ALWAYS
+	 */
+	static int coverage(String[] routeSegments, boolean routeRegex, String[] interceptorSegments) {
+		if(isRegexPath(interceptorSegments)){
+			return MAYBE;
+		}
+		if(routeRegex){
+			return interceptorSegments.length == 1 && isWildcard(interceptorSegments[0]) ? ALWAYS : MAYBE;
+		}
+		int result = ALWAYS;
+		for(int i=0; ; i++){
+			if(i < interceptorSegments.length && isWildcard(interceptorSegments[i])){
+				return result;
+			}
+			if(i == interceptorSegments.length){
+				if(i == routeSegments.length){
+					return result;
+				}
+				return isWildcard(routeSegments[i]) ? MAYBE : NEVER;
+			}
+			if(i == routeSegments.length){
+				return NEVER;
+			}
+			String routeSegment = routeSegments[i];
+			String interceptorSegment = interceptorSegments[i];
+			if(isWildcard(routeSegment)){
+				return MAYBE;
+			}
+			if(Path.isParam(interceptorSegment)){
+				continue;
+			}
+			if(Path.isParam(routeSegment)){
+				result = MAYBE;
+				continue;
+			}
+			if(!routeSegment.equalsIgnoreCase(interceptorSegment)){
+				return NEVER;
+			}
+		}
 	}
     
     /**
@@ -172,5 +293,237 @@ public class RouteMatcher {
 			return null;
 		}
 	}
+    
+    /**
+     * Add a route to the tree of its http method, or to the regex list when the path is a regular expression
+     * 
+     * @param route	route object
+     */
+    private void index(Route route) {
+    	HttpMethod method = route.getHttpMethod();
+    	String[] segments = split(route.getPath());
+    	
+    	if(isRegexPath(segments)){
+    		List<Route> list = regexRoutes.get(method);
+    		if(null == list){
+    			list = new ArrayList<Route>();
+    			regexRoutes.put(method, list);
+    		}
+    		list.add(route);
+    		return;
+    	}
+    	
+    	Node node = routeTrees.get(method);
+    	if(null == node){
+    		node = new Node();
+    		routeTrees.put(method, node);
+    	}
+    	
+    	for(String segment : segments){
+    		if(isWildcard(segment)){
+    			if(null == node.wildcard){
+    				node.wildcard = route;
+    			}
+    			return;
+    		}
+    		if(Path.isParam(segment)){
+    			if(null == node.param){
+    				node.param = new Node();
+    			}
+    			node = node.param;
+    		} else {
+    			if(null == node.statics){
+    				node.statics = new HashMap<String, Node>();
+    			}
+    			String key = segment.toLowerCase(Locale.ENGLISH);
+    			Node child = node.statics.get(key);
+    			if(null == child){
+    				child = new Node();
+    				node.statics.put(key, child);
+    			}
+    			node = child;
+    		}
+    	}
+    	if(null == node.route){
+    		node.route = route;
+    	}
+    }
+    
+    /**
+     * Walk the tree, static segment first, then parameter, then wildcard
+     * 
+     * @param root				tree root
+     * @param segments			request path segments
+     * @param lowerSegments		lower case request path segments
+     * @param pathParams		receive path parameters
+     * @return					return the matched route
+     */
+    private Route find(Node root, String[] segments, String[] lowerSegments, Map<String, String> pathParams) {
+    	if(null == root){
+    		return null;
+    	}
+    	String[] values = new String[segments.length];
+    	Route route = find(root, segments, lowerSegments, 0, values, 0);
+    	if(null != route && null != pathParams){
+    		String[] names = route.getParamNames();
+    		for(int i=0, len=names.length; i<len; i++){
+    			pathParams.put(names[i], values[i]);
+    		}
+    	}
+    	return route;
+    }
+    
+    private Route find(Node node, String[] segments, String[] lowerSegments, int index, String[] values, int paramIndex) {
+    	if(index == segments.length){
+    		if(null != node.route){
+    			return node.route;
+    		}
+    		return node.wildcard;
+    	}
+    	
+    	if(null != node.statics){
+    		Node child = node.statics.get(lowerSegments[index]);
+    		if(null != child){
+    			Route match = find(child, segments, lowerSegments, index + 1, values, paramIndex);
+    			if(null != match){
+    				return match;
+    			}
+    		}
+    	}
+    	
+    	if(null != node.param){
+    		values[paramIndex] = segments[index];
+    		Route match = find(node.param, segments, lowerSegments, index + 1, values, paramIndex + 1);
+    		if(null != match){
+    			return match;
+    		}
+    	}
+    	
+    	return node.wildcard;
+    }
+    
+    private Route findRegex(List<Route> list, String path, Map<String, String> pathParams) {
+    	if(null == list){
+    		return null;
+    	}
+    	for(int i=0, len=list.size(); i<len; i++){
+    		Route route = list.get(i);
+    		Matcher matcher = route.getPattern().matcher(path);
+    		if(matcher.matches()){
+    			if(null != pathParams){
+    				String[] names = route.getParamNames();
+    				for(int j=0; j<names.length; j++){
+    					pathParams.put(names[j], matcher.group(j + 1));
+    				}
+    			}
+    			return route;
+    		}
+    	}
+    	return null;
+    }
+    
+    private HttpMethod parseMethod(String httpMethod) {
+    	try {
+			return HttpMethod.valueOf(httpMethod.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+    }
+    
+    /**
+     * Split a path into segments, empty segments are ignored
+     * 
+     * @param path	path
+     * @return		return path segments
+     */
+    static String[] split(String path) {
+    	List<String> segments = new ArrayList<String>(8);
+    	int len = path.length();
+    	int start = 0;
+    	for(int i=0; i<=len; i++){
+    		if(i == len || path.charAt(i) == '/'){
+    			if(i > start){
+    				segments.add(path.substring(start, i));
+    			}
+    			start = i + 1;
+    		}
+    	}
+    	return segments.toArray(new String[segments.size()]);
+    }
+    
+    /**
+     * Compile a route path to a case insensitive pattern, path parameters become capturing groups
+     * 
+     * @param path	route path
+     * @return		return compiled pattern
+     */
+    static Pattern compile(String path) {
+    	String[] segments = split(path);
+    	if(isRegexPath(segments)){
+    		return Pattern.compile(path.replaceAll(Path.VAR_REGEXP, Path.VAR_REPLACE), Pattern.CASE_INSENSITIVE);
+    	}
+    	if(segments.length == 0){
+    		return Pattern.compile("/");
+    	}
+    	StringBuilder regex = new StringBuilder();
+    	for(String segment : segments){
+    		if(isWildcard(segment)){
+    			regex.append("(?:/.*)?");
+    		} else if(Path.isParam(segment)){
+    			regex.append("/([^/]+)");
+    		} else {
+    			regex.append('/').append(Pattern.quote(segment));
+    		}
+    	}
+    	return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+    
+    static boolean isWildcard(String segment) {
+    	return Path.isSplat(segment) || segment.equals(".*");
+    }
+    
+    static boolean isRegexPath(String[] segments) {
+    	for(int i=0; i<segments.length; i++){
+    		String segment = segments[i];
+    		if(isWildcard(segment)){
+    			if(i != segments.length - 1){
+    				return true;
+    			}
+    			continue;
+    		}
+    		if(Path.isParam(segment)){
+    			for(int j=1, len=segment.length(); j<len; j++){
+    				if(!Character.isLetterOrDigit(segment.charAt(j)) && segment.charAt(j) != '_'){
+    					return true;
+    				}
+    			}
+    			if(segment.length() == 1){
+    				return true;
+    			}
+    			continue;
+    		}
+    		for(int j=0, len=segment.length(); j<len; j++){
+    			if("\\^$*+?()[]{}|".indexOf(segment.charAt(j)) != -1){
+    				return true;
+    			}
+    		}
+    	}
+    	return false;
+    }
+    
+    /**
+     * Route tree node
+     */
+    static final class Node {
+    	
+    	Map<String, Node> statics;
+    	
+    	Node param;
+    	
+    	Route route;
+    	
+    	Route wildcard;
+    	
+    }
 
 }
@@ -16,7 +16,7 @@
 package com.blade.route;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -50,8 +50,8 @@ public class Routers {
 	
 	public Routers(Container container) {
 		this.container = container;
-		this.routes = new HashMap<String, Route>();
-		this.interceptors = new HashMap<String, Route>();
+		this.routes = new LinkedHashMap<String, Route>();
+		this.interceptors = new LinkedHashMap<String, Route>();
 	}
 	
 	public Map<String, Route> getRoutes() {
@@ -96,7 +96,7 @@ public class Routers {
 		addRoute(httpMethod, path, handler, method);
 	}
 	
-	public void addRoute(HttpMethod httpMethod, String path, Object controller, Method method) {
+	public Route addRoute(HttpMethod httpMethod, String path, Object controller, Method method) {
 		
 		Assert.notNull(httpMethod);
 		Assert.notBlank(path);
@@ -119,7 +119,7 @@ public class Routers {
 			this.routes.put(key, route);
 			LOGGER.debug("Add Route：" + route);
 		}
-		
+		return route;
 	}
 	
 	public void route(String path, RouteHandler handler, HttpMethod httpMethod) {
@@ -187,17 +187,18 @@ public class Routers {
 		}
 	}
 	
-	public void buildRoute(String path, Class<?> clazz, Method method, HttpMethod httpMethod) {
+	public Route buildRoute(String path, Class<?> clazz, Method method, HttpMethod httpMethod) {
 		try {
 			Object controller = container.getBean(clazz, Scope.SINGLE);
 			if(null == controller){
 				controller = Aop.create(clazz);
 				container.registerBean(controller);
 			}
-			addRoute(httpMethod, path, null, method);
+			return addRoute(httpMethod, path, null, method);
 		} catch (SecurityException e) {
 			e.printStackTrace();
 		}
+		return null;
 	}
 	
 	public void route(String path, Object target, String methodName, HttpMethod httpMethod) {
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.server;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Comparator;
+
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import blade.kit.log.Logger;
+
+/**
+ * Creates the HTTP/2 connection factories of Jetty
+ * <p>
+ * HTTP/2 lives in jetty http2-server (and jetty-alpn-server for TLS), which are not dependencies of blade,
+ * so the factories are created by name and the connectors fall back to HTTP/1.1 when they are not on the classpath.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class Http2 {
+	
+	private static final Logger LOGGER = Logger.getLogger(Http2.class);
+	
+	static final String H2 = "h2";
+	
+	static final String H2C = "h2c";
+	
+	static final String HTTP_1_1 = "http/1.1";
+	
+	static final String ALPN = "alpn";
+	
+	private static final String H2C_FACTORY = "org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory";
+	
+	private static final String H2_FACTORY = "org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory";
+	
+	private static final String ALPN_FACTORY = "org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory";
+	
+	private static final String CIPHER = "org.eclipse.jetty.http2.HTTP2Cipher";
+	
+	private Http2() {
+	}
+	
+	/**
+	 * @param httpConfig	configuration of the connector
+	 * @return				the h2c factory, null when jetty http2-server is missing
+	 */
+	static ConnectionFactory h2c(HttpConfiguration httpConfig) {
+		return create(H2C_FACTORY, new Class<?>[]{ HttpConfiguration.class }, httpConfig);
+	}
+	
+	/**
+	 * @param httpConfig	configuration of the connector
+	 * @return				the h2 factory, null when jetty http2-server is missing
+	 */
+	static ConnectionFactory h2(HttpConfiguration httpConfig) {
+		return create(H2_FACTORY, new Class<?>[]{ HttpConfiguration.class }, httpConfig);
+	}
+	
+	/**
+	 * @param defaultProtocol	protocol of clients without ALPN
+	 * @param protocols			protocols offered to clients, most preferred first
+	 * @return					the ALPN factory, null when jetty-alpn-server or the ALPN support of the JVM is missing
+	 */
+	static ConnectionFactory alpn(String defaultProtocol, String... protocols) {
+		ConnectionFactory alpn = create(ALPN_FACTORY, new Class<?>[]{ String[].class }, (Object) protocols);
+		if (null != alpn) {
+			try {
+				alpn.getClass().getMethod("setDefaultProtocol", String.class).invoke(alpn, defaultProtocol);
+			} catch (Exception e) {
+				LOGGER.warn("Can not set the default ALPN protocol: " + e.getMessage());
+			}
+		}
+		return alpn;
+	}
+	
+	/**
+	 * Prefer the ciphers allowed by HTTP/2, otherwise browsers may negotiate a blacklisted cipher 
+	 * and close the connection with INADEQUATE_SECURITY
+	 * 
+	 * @param sslContextFactory	ssl context of the h2 connector
+	 * @return					return whether the cipher order is set, h2 must not be offered otherwise
+	 */
+	static boolean cipherOrder(SslContextFactory sslContextFactory) {
+		try {
+			Object comparator = Class.forName(CIPHER, true, Server.class.getClassLoader()).getField("COMPARATOR").get(null);
+			SslContextFactory.class.getMethod("setCipherComparator", Comparator.class).invoke(sslContextFactory, comparator);
+			SslContextFactory.class.getMethod("setUseCipherSuitesOrder", boolean.class).invoke(sslContextFactory, true);
+			return true;
+		} catch (ClassNotFoundException e) {
+			LOGGER.warn(CIPHER + " is not on the classpath, HTTP/2 is disabled");
+		} catch (Exception e) {
+			Throwable cause = null != e.getCause() ? e.getCause() : e;
+			LOGGER.warn("Can not set the HTTP/2 cipher order, HTTP/2 is disabled: " + cause);
+		}
+		return false;
+	}
+	
+	/**
+	 * Resolve a keystore from the file system or the classpath
+	 * 
+	 * @param path	keystore path
+	 * @return		location usable by SslContextFactory, null when it does not exist
+	 */
+	static String keyStore(String path) {
+		if (null == path) {
+			return null;
+		}
+		File file = new File(path);
+		if (file.isFile()) {
+			return file.getAbsolutePath();
+		}
+		URL url = Thread.currentThread().getContextClassLoader().getResource(path.startsWith("/") ? path.substring(1) : path);
+		return null != url ? url.toExternalForm() : null;
+	}
+	
+	private static ConnectionFactory create(String className, Class<?>[] types, Object... args) {
+		try {
+			Class<?> type = Class.forName(className, true, Server.class.getClassLoader());
+			return (ConnectionFactory) type.getConstructor(types).newInstance(args);
+		} catch (ClassNotFoundException e) {
+			LOGGER.warn(className + " is not on the classpath, HTTP/2 is disabled");
+		} catch (Exception e) {
+			Throwable cause = null != e.getCause() ? e.getCause() : e;
+			LOGGER.warn("Can not create " + className + ": " + cause.getMessage());
+		}
+		return null;
+	}
+	
+}
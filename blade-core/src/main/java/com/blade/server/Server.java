@@ -15,12 +15,29 @@
  */
 package com.blade.server;
 
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
+import blade.kit.CollectionKit;
 import blade.kit.log.Logger;
 
+import com.blade.Blade;
 import com.blade.web.DispatcherServlet;
+import com.blade.web.RequestTracker;
 
 /**
  * Jetty Server
@@ -40,9 +57,16 @@ public class Server {
 	
 	private ServletContextHandler context;
 	
+	private ServerConfig serverConfig;
+	
 	public Server(int port, boolean async) {
+		this(port, async, new ServerConfig());
+	}
+	
+	public Server(int port, boolean async, ServerConfig serverConfig) {
 		this.port = port;
 		this.async = async;
+		this.serverConfig = serverConfig;
 	}
 	
 	public void setPort(int port){
@@ -52,10 +76,21 @@ public class Server {
 	public void setAsync(boolean async) {
 		this.async = async;
 	}
+	
+	public ServerConfig getServerConfig() {
+		return serverConfig;
+	}
 
 	public void start(String contextPath) throws Exception{
 		
-		server = new org.eclipse.jetty.server.Server(this.port);
+		QueuedThreadPool threadPool = new QueuedThreadPool(serverConfig.getMaxThreads(), serverConfig.getMinThreads(), 
+				serverConfig.getThreadIdleTimeout());
+		threadPool.setName("blade-server");
+		server = new org.eclipse.jetty.server.Server(threadPool);
+		server.addConnector(createConnector(server));
+		if (serverConfig.getSslPort() > 0) {
+			server.addConnector(createSslConnector(server));
+		}
 		
 	    context = new ServletContextHandler(ServletContextHandler.SESSIONS);
 	    context.setContextPath(contextPath);
@@ -68,15 +103,118 @@ public class Server {
         server.setHandler(this.context);
 	    server.start();
 //	    server.dump(System.err);
-	    LOGGER.info("Blade Server Listen on 0.0.0.0:" + this.port);
+	    for (Connector connector : server.getConnectors()) {
+	    	ServerConnector serverConnector = (ServerConnector) connector;
+	    	LOGGER.info("Blade Server Listen on 0.0.0.0:" + serverConnector.getPort() + " " + serverConnector.getProtocols());
+	    }
+	    LOGGER.debug("Blade Server " + serverConfig);
+	}
+	
+	private ServerConnector createConnector(org.eclipse.jetty.server.Server server) {
+		HttpConfiguration httpConfig = httpConfiguration();
+		List<ConnectionFactory> factories = CollectionKit.newArrayList();
+		factories.add(new HttpConnectionFactory(httpConfig));
+		if (serverConfig.isHttp2()) {
+			// HTTP/1.1 upgrades to h2c and answers the prior knowledge preface through this factory
+			ConnectionFactory h2c = Http2.h2c(httpConfig);
+			if (null != h2c) {
+				factories.add(h2c);
+			}
+		}
+		ServerConnector connector = newConnector(server, factories);
+		connector.setPort(this.port);
+		return connector;
+	}
+	
+	private ServerConnector createSslConnector(org.eclipse.jetty.server.Server server) {
+		String keyStore = Http2.keyStore(serverConfig.getKeyStorePath());
+		if (null == keyStore) {
+			throw new IllegalArgumentException("Keystore not found: " + serverConfig.getKeyStorePath());
+		}
+		SslContextFactory sslContextFactory = new SslContextFactory();
+		sslContextFactory.setKeyStorePath(keyStore);
+		sslContextFactory.setKeyStorePassword(serverConfig.getKeyStorePassword());
+		if (null != serverConfig.getKeyManagerPassword()) {
+			sslContextFactory.setKeyManagerPassword(serverConfig.getKeyManagerPassword());
+		}
+		
+		HttpConfiguration httpsConfig = httpConfiguration();
+		httpsConfig.setSecureScheme("https");
+		httpsConfig.setSecurePort(serverConfig.getSslPort());
+		httpsConfig.addCustomizer(new SecureRequestCustomizer());
+		
+		List<ConnectionFactory> factories = CollectionKit.newArrayList();
+		HttpConnectionFactory http = new HttpConnectionFactory(httpsConfig);
+		if (serverConfig.isHttp2() && Http2.cipherOrder(sslContextFactory)) {
+			ConnectionFactory h2 = Http2.h2(httpsConfig);
+			ConnectionFactory alpn = null != h2 ? Http2.alpn(http.getProtocol(), Http2.H2, Http2.HTTP_1_1) : null;
+			if (null != alpn) {
+				factories.add(new SslConnectionFactory(sslContextFactory, alpn.getProtocol()));
+				factories.add(alpn);
+				factories.add(h2);
+			}
+		}
+		if (factories.isEmpty()) {
+			factories.add(new SslConnectionFactory(sslContextFactory, http.getProtocol()));
+		}
+		factories.add(http);
+		
+		ServerConnector connector = newConnector(server, factories);
+		connector.setPort(serverConfig.getSslPort());
+		return connector;
+	}
+	
+	private HttpConfiguration httpConfiguration() {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setRequestHeaderSize(serverConfig.getRequestHeaderSize());
+		httpConfig.setResponseHeaderSize(serverConfig.getResponseHeaderSize());
+		httpConfig.setOutputBufferSize(serverConfig.getOutputBufferSize());
+		return httpConfig;
+	}
+	
+	private ServerConnector newConnector(org.eclipse.jetty.server.Server server, List<ConnectionFactory> factories) {
+		final boolean tcpNoDelay = serverConfig.isTcpNoDelay();
+		ServerConnector connector = new ServerConnector(server, serverConfig.getAcceptors(), serverConfig.getSelectors(), 
+				factories.toArray(new ConnectionFactory[factories.size()])) {
+			@Override
+			protected void configure(Socket socket) {
+				super.configure(socket);
+				if (!tcpNoDelay) {
+					try {
+						socket.setTcpNoDelay(false);
+					} catch (SocketException e) {
+						LOGGER.warn(e.getMessage());
+					}
+				}
+			}
+		};
+		connector.setIdleTimeout(serverConfig.getConnectorIdleTimeout());
+		connector.setAcceptQueueSize(serverConfig.getAcceptQueueSize());
+		connector.setReuseAddress(serverConfig.isReuseAddress());
+		return connector;
 	}
 	
 	public void join() throws InterruptedException {
 		server.join();
 	}
 	
+	/**
+	 * Stop gracefully: close the listening sockets, answer 503 to new requests on open connections, 
+	 * wait up to the shutdown timeout for the requests in flight, then stop jetty
+	 * 
+	 * @throws Exception
+	 */
 	public void stop() throws Exception{
+		for (Connector connector : server.getConnectors()) {
+			if (connector instanceof NetworkConnector) {
+				((NetworkConnector) connector).close();
+			}
+		}
+		RequestTracker requestTracker = Blade.me().requestTracker();
+		LOGGER.info("Blade Server stopping, " + requestTracker);
+		DispatcherServlet.drain(requestTracker, serverConfig.getShutdownTimeout());
 		context.stop();
 		server.stop();
+		LOGGER.info("Blade Server stopped, " + requestTracker);
 	}
 }
@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.server;
+
+/**
+ * Jetty thread pool and connector settings
+ * <p>
+ * The defaults are the Jetty defaults, -1 acceptors or selectors lets Jetty size them from the cores.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class ServerConfig {
+	
+	// Min threads of the QueuedThreadPool
+	private int minThreads = 8;
+	
+	// Max threads of the QueuedThreadPool
+	private int maxThreads = 200;
+	
+	// Acceptor threads of the connector, -1 is the Jetty default
+	private int acceptors = -1;
+	
+	// Selectors of the connector, -1 is the Jetty default
+	private int selectors = -1;
+	
+	// Backlog of the server socket, 0 is the system default
+	private int acceptQueueSize = 0;
+	
+	// Milliseconds an idle thread above the min threads is kept by the QueuedThreadPool
+	private int threadIdleTimeout = 60000;
+	
+	// Milliseconds an idle connection is kept open
+	private long connectorIdleTimeout = 30000;
+	
+	private int requestHeaderSize = 8 * 1024;
+	
+	private int responseHeaderSize = 8 * 1024;
+	
+	// Response bytes buffered before they are written to the connection
+	private int outputBufferSize = 32 * 1024;
+	
+	// SO_REUSEADDR of the server socket
+	private boolean reuseAddress = true;
+	
+	// TCP_NODELAY of accepted connections
+	private boolean tcpNoDelay = true;
+	
+	// Max milliseconds to wait for the requests in flight on stop
+	private long shutdownTimeout = 30000;
+	
+	// Accept h2c on the http port and h2 over TLS, needs jetty http2-server
+	private boolean http2 = false;
+	
+	// Port of the TLS connector, -1 is no TLS connector
+	private int sslPort = -1;
+	
+	// Keystore of the TLS connector, a file path or a classpath resource
+	private String keyStorePath;
+	
+	private String keyStorePassword;
+	
+	private String keyManagerPassword;
+	
+	public ServerConfig() {
+	}
+
+	public int getMinThreads() {
+		return minThreads;
+	}
+
+	public void setMinThreads(int minThreads) {
+		this.minThreads = minThreads;
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	public void setMaxThreads(int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+
+	public int getAcceptors() {
+		return acceptors;
+	}
+
+	public void setAcceptors(int acceptors) {
+		this.acceptors = acceptors;
+	}
+
+	public int getSelectors() {
+		return selectors;
+	}
+
+	public void setSelectors(int selectors) {
+		this.selectors = selectors;
+	}
+
+	public int getAcceptQueueSize() {
+		return acceptQueueSize;
+	}
+
+	public void setAcceptQueueSize(int acceptQueueSize) {
+		this.acceptQueueSize = acceptQueueSize;
+	}
+
+	public int getThreadIdleTimeout() {
+		return threadIdleTimeout;
+	}
+
+	public void setThreadIdleTimeout(int threadIdleTimeout) {
+		this.threadIdleTimeout = threadIdleTimeout;
+	}
+
+	public long getConnectorIdleTimeout() {
+		return connectorIdleTimeout;
+	}
+
+	public void setConnectorIdleTimeout(long connectorIdleTimeout) {
+		this.connectorIdleTimeout = connectorIdleTimeout;
+	}
+
+	public int getRequestHeaderSize() {
+		return requestHeaderSize;
+	}
+
+	public void setRequestHeaderSize(int requestHeaderSize) {
+		this.requestHeaderSize = requestHeaderSize;
+	}
+
+	public int getResponseHeaderSize() {
+		return responseHeaderSize;
+	}
+
+	public void setResponseHeaderSize(int responseHeaderSize) {
+		this.responseHeaderSize = responseHeaderSize;
+	}
+
+	public int getOutputBufferSize() {
+		return outputBufferSize;
+	}
+
+	public void setOutputBufferSize(int outputBufferSize) {
+		this.outputBufferSize = outputBufferSize;
+	}
+
+	public boolean isReuseAddress() {
+		return reuseAddress;
+	}
+
+	public void setReuseAddress(boolean reuseAddress) {
+		this.reuseAddress = reuseAddress;
+	}
+
+	public boolean isTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	public void setTcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+	}
+
+	public long getShutdownTimeout() {
+		return shutdownTimeout;
+	}
+
+	public void setShutdownTimeout(long shutdownTimeout) {
+		this.shutdownTimeout = shutdownTimeout;
+	}
+
+	public boolean isHttp2() {
+		return http2;
+	}
+
+	public void setHttp2(boolean http2) {
+		this.http2 = http2;
+	}
+
+	public int getSslPort() {
+		return sslPort;
+	}
+
+	public void setSslPort(int sslPort) {
+		this.sslPort = sslPort;
+	}
+
+	public String getKeyStorePath() {
+		return keyStorePath;
+	}
+
+	public void setKeyStorePath(String keyStorePath) {
+		this.keyStorePath = keyStorePath;
+	}
+
+	public String getKeyStorePassword() {
+		return keyStorePassword;
+	}
+
+	public void setKeyStorePassword(String keyStorePassword) {
+		this.keyStorePassword = keyStorePassword;
+	}
+
+	public String getKeyManagerPassword() {
+		return keyManagerPassword;
+	}
+
+	public void setKeyManagerPassword(String keyManagerPassword) {
+		this.keyManagerPassword = keyManagerPassword;
+	}
+	
+	@Override
+	public String toString() {
+		return "threads=" + minThreads + "-" + maxThreads + ", acceptors=" + acceptors + ", selectors=" + selectors 
+				+ ", acceptQueue=" + acceptQueueSize + ", threadIdleTimeout=" + threadIdleTimeout 
+				+ ", connectorIdleTimeout=" + connectorIdleTimeout + ", outputBuffer=" + outputBufferSize
+				+ ", http2=" + http2 + ", sslPort=" + sslPort;
+	}
+	
+}
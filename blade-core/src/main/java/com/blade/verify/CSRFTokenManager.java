@@ -53,24 +53,20 @@ public class CSRFTokenManager {
 	 * @return				return token
 	 */
     public static String createToken(Request request, Response response) {
-        String token = null;
-        synchronized (request) {
-        	Session session = request.session();
-            String objToken = session.attribute(config.session);
-            if (null == objToken) {
-            	token = HASHID.encode( System.currentTimeMillis() );
-            } else {
-            	token = objToken.toString();
-			}
-            session.attribute(config.session, token);
-        	if(config.setHeader){
-        		response.header(config.header, token);
-        	}
-        	if(config.setCookie){
-        		response.cookie(config.cookiePath, config.cookie, token, config.expire, config.secured);
-        	}
-        	LOGGER.info("create csrf_token：" + token);
+        // the request is confined to one thread, only the session is shared
+        Session session = request.session();
+        String token = session.attribute(config.session);
+        if (null == token) {
+        	token = HASHID.encode( System.currentTimeMillis() );
+        	session.attribute(config.session, token);
+        }
+        if(config.setHeader){
+        	response.header(config.header, token);
+        }
+        if(config.setCookie){
+        	response.cookie(config.cookiePath, config.cookie, token, config.expire, config.secured);
         }
+        LOGGER.info("create csrf_token：" + token);
         return token;
     }
     
@@ -8,9 +8,16 @@ import javax.servlet.AsyncListener;
 //@WebListener
 public class AppAsyncListener implements AsyncListener {
 	
+	private final RequestTracker requestTracker;
+	
+	public AppAsyncListener(RequestTracker requestTracker) {
+		this.requestTracker = requestTracker;
+	}
+	
     @Override
     public void onComplete(AsyncEvent asyncEvent) throws IOException {
-//        System.out.println("AppAsyncListener onComplete");
+    	// also called after a timeout or an error
+    	requestTracker.exit();
     }
  
     @Override
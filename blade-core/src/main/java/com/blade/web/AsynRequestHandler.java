@@ -15,8 +15,7 @@
  */
 package com.blade.web;
 
-import java.lang.reflect.Method;
-import java.util.List;
+import java.io.IOException;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletContext;
@@ -32,14 +31,22 @@ import com.blade.Const;
 import com.blade.context.BladeWebContext;
 import com.blade.render.ModelAndView;
 import com.blade.route.Route;
-import com.blade.route.RouteHandler;
 import com.blade.route.RouteMatcher;
+import com.blade.web.cache.CachePolicy;
+import com.blade.web.cache.CachedResponse;
+import com.blade.web.cache.ResponseCache;
+import com.blade.web.http.AsyncCompletion;
+import com.blade.web.http.HttpException;
+import com.blade.web.http.HttpMethod;
 import com.blade.web.http.HttpStatus;
 import com.blade.web.http.Path;
 import com.blade.web.http.Request;
 import com.blade.web.http.Response;
 import com.blade.web.http.wrapper.ServletRequest;
 import com.blade.web.http.wrapper.ServletResponse;
+import com.blade.web.multipart.MultipartException;
+import com.blade.web.multipart.SizeLimitExceededException;
+import com.blade.web.resource.StaticFileHandler;
 
 /**
  * Asynchronous request processor
@@ -55,7 +62,7 @@ public class AsynRequestHandler implements Runnable {
 	
 	private ServletContext servletContext;
 	
-	static RouteMatcher routeMatcher;
+	private StaticFileHandler staticFileHandler;
 	
 	private HttpServletRequest httpRequest;
 	
@@ -63,69 +70,118 @@ public class AsynRequestHandler implements Runnable {
 	
 	private AsyncContext asyncContext;
 	
-	public AsynRequestHandler(ServletContext servletContext, AsyncContext asyncCtx) {
+	// request uri relative to the context path
+	private String uri;
+	
+	// null for a static resource
+	private Request request;
+	
+	// matched route, null if there is none
+	private Route route;
+	
+	/**
+	 * Match the route of the request, the route decides the asynchronous timeout before the request is dispatched
+	 * 
+	 * @param servletContext		servlet context
+	 * @param asyncCtx				asynchronous context of the request
+	 * @param routeMatcher			route matcher
+	 * @param staticFileHandler		static file handler, null if there is no static folder
+	 * @throws IOException
+	 * @throws MultipartException
+	 */
+	public AsynRequestHandler(ServletContext servletContext, AsyncContext asyncCtx, RouteMatcher routeMatcher, 
+			StaticFileHandler staticFileHandler) throws MultipartException, IOException {
 		this.asyncContext = asyncCtx;
 		this.servletContext = servletContext;
+		this.staticFileHandler = staticFileHandler;
 		this.httpRequest = (HttpServletRequest) asyncCtx.getRequest();
 		this.httpResponse = (HttpServletResponse) asyncCtx.getResponse();
+		this.uri = Path.getRelativePath(httpRequest.getRequestURI(), servletContext.getContextPath());
+		if(null == staticFileHandler || !staticFileHandler.isStatic(uri)){
+			this.request = new ServletRequest(httpRequest);
+			this.route = routeMatcher.getRoute(httpRequest.getMethod(), uri, request.pathParams());
+		}
+	}
+	
+	/**
+	 * @param defaultTimeout	global asynchronous timeout
+	 * @return					return the timeout of the matched route if it has one, otherwise the global timeout
+	 */
+	public long getTimeout(long defaultTimeout) {
+		return null != route && route.getTimeout() > 0 ? route.getTimeout() : defaultTimeout;
 	}
 	
 	@Override
 	public void run(){
 		
-		Response response = null;
+		// the request completes when this handler and all non-blocking transfers are done
+		AsyncCompletion completion = AsyncCompletion.begin(asyncContext);
+		ServletResponse response = null;
         try {
         	// http method, GET/POST ...
             String method = httpRequest.getMethod();
             
-            // reuqest uri
-            String uri = Path.getRelativePath(httpRequest.getRequestURI(), servletContext.getContextPath());
-            
-            // If it is static, the resource is handed over to the filter
-            if(null != blade.staticFolder() && blade.staticFolder().length > 0){
-            	if(!filterStaticFolder(uri)){
-            		asyncContext.complete();
-            		return;
-            	}
+            // If it is static, the resource is served by the static file handler
+            if(null == request){
+            	staticFileHandler.handle(httpRequest, httpResponse, uri, completion);
+            	return;
             }
             
             if(blade.debug()){
             	LOGGER.debug("Request : " + method + "\t" + uri);
             }
             
-            // Create Request
-    		Request request = new ServletRequest(httpRequest);
-            
     		// Create Response
-            response = new ServletResponse(httpResponse, blade.render());
+            response = new ServletResponse(httpRequest, httpResponse, blade.render(), completion);
             
-            // Init Context
+            // Init Context, the interceptors and the route share it
          	BladeWebContext.setContext(servletContext, request, response);
          	
-			Route route = routeMatcher.getRoute(method, uri);
+			// the route was matched before the request was dispatched
+			Route route = this.route;
 			
 			// If find it
 			if (route != null) {
 				request.setRoute(route);
+				if(route.isEtag() || blade.config().isEtag()){
+					response.autoETag();
+				}
+				
 				// before inteceptor
-				List<Route> befores = routeMatcher.getBefore(uri);
+				Route[] befores = route.getBefores().get(uri);
 				invokeInterceptor(request, response, befores);
 				
-				// execute
-				handle(request, response, route);
+				// execute, a cached route replays its response instead, 
+				// nothing is executed when a before interceptor found the client has the current version
+				CachePolicy cachePolicy = route.getCachePolicy();
+				if(!response.isNotModified()){
+					if(null != cachePolicy && isCacheable(method) && !response.isWritten() && !httpResponse.isCommitted()){
+						handleCached(request, response, route, cachePolicy, uri);
+					} else {
+						handle(request, response, route);
+					}
+				}
 				
 				// after inteceptor
-				List<Route> afters = routeMatcher.getAfter(uri);
+				Route[] afters = route.getAfters().get(uri);
 				invokeInterceptor(request, response, afters);
-				asyncContext.complete();
 				return;
 			}
 			
 			// Not found
 			render404(response, uri);
-			asyncContext.complete();
 			return;
 		} catch (Exception e) {
+			// the body is parsed by the route, the limit and malformed body errors arrive wrapped
+			Throwable clientError = clientError(e);
+			if (null != clientError) {
+				LOGGER.warn(clientError.getMessage());
+				if (!httpResponse.isCommitted()) {
+					httpResponse.setStatus(clientError instanceof HttpException ? 
+							((HttpException) clientError).getStatus() : HttpStatus.REQUEST_ENTITY_TOO_LARGE);
+				}
+				return;
+			}
         	String error = ThrowableKit.getStackTraceAsString(e);
             LOGGER.error(error);
             ThrowableKit.propagate(e);
@@ -134,12 +190,26 @@ public class AsynRequestHandler implements Runnable {
         	// Write content to the browser
             if (!httpResponse.isCommitted()) {
                 response.html(Const.INTERNAL_ERROR);
-                asyncContext.complete();
-                return;
             }
+        } finally {
+        	// workers are pooled, do not keep the request reachable from the thread
+        	BladeWebContext.remove();
+        	completion.release();
         }
-        asyncContext.complete();
-        return;
+	}
+	
+	/**
+	 * @param e	exception of a request
+	 * @return	Return the size limit error or the HttpException with a status that caused the exception, null if there is none
+	 */
+	private Throwable clientError(Throwable e) {
+		for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+			if (cause instanceof SizeLimitExceededException 
+					|| (cause instanceof HttpException && ((HttpException) cause).getStatus() > 0)) {
+				return cause;
+			}
+		}
+		return null;
 	}
 	
 	/**
@@ -167,12 +237,44 @@ public class AsynRequestHandler implements Runnable {
 	 * @param response		response object
 	 * @param interceptors	execute the interceptor list
 	 */
-	private void invokeInterceptor(Request request, Response response, List<Route> interceptors) {
-		for(Route route : interceptors){
-			handle(request, response, route);
+	private void invokeInterceptor(Request request, Response response, Route[] interceptors) {
+		for(int i=0, len=interceptors.length; i<len; i++){
+			handle(request, response, interceptors[i]);
 		}
 	}
 
+	/**
+	 * @param method	http method
+	 * @return			return whether the response of the method can be cached
+	 */
+	private boolean isCacheable(String method) {
+		return HttpMethod.GET.name().equals(method) || HttpMethod.HEAD.name().equals(method);
+	}
+	
+	/**
+	 * Replay the cached response of a route, or execute the route and cache its response
+	 * 
+	 * @param request		request object
+	 * @param response		response object
+	 * @param route			route object
+	 * @param cachePolicy	cache policy of the route
+	 * @param uri			request uri
+	 */
+	private void handleCached(Request request, ServletResponse response, Route route, CachePolicy cachePolicy, String uri){
+		ResponseCache responseCache = blade.responseCache();
+		String key = cachePolicy.key(request.raw(), uri);
+		CachedResponse cached = responseCache.get(key);
+		if(null != cached){
+			cachePolicy.hit();
+			cached.replay(response);
+			return;
+		}
+		cachePolicy.miss();
+		response.capture();
+		handle(request, response, route);
+		responseCache.put(key, cachePolicy, response.raw(), response.captured());
+	}
+	
 	/**
 	 * Actual routing method execution
 	 * 
@@ -187,34 +289,10 @@ public class AsynRequestHandler implements Runnable {
 			Class<?> clazz = route.getAction().getDeclaringClass();
 			target = Blade.me().container().getBean(clazz, null);
 		}
-		request.initPathParams(route.getPath());
+		request.initPathParams(route);
 		
-		// Init context
-		BladeWebContext.setContext(servletContext, request, response);
-		if(target instanceof RouteHandler){
-			RouteHandler routeHandler = (RouteHandler)target;
-			routeHandler.handle(request, response);
-		} else {
-			Method actionMethod = route.getAction();
-			// execute
-			RouteArgument.executeMethod(target, actionMethod, request, response);
-		}
-	}
-
-	/**
-	 * Filter out the directory
-	 * 
-	 * @param uri	URI represents the current path, filtering in a static directory
-	 * @return		Return false, filter the success; return true, do not filter
-	 */
-	private boolean filterStaticFolder(String uri){
-		int len = blade.staticFolder().length;
-    	for(int i=0; i<len; i++){
-    		if(uri.startsWith(blade.staticFolder()[i])){
-    			return false;
-    		}
-    	}
-    	return true;
+		// execute, the context was set once for the whole request
+		route.getInvoker().invoke(target, request, response);
 	}
 	
 }
@@ -16,6 +16,9 @@
 package com.blade.web;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
@@ -27,12 +30,21 @@ import javax.servlet.http.HttpServletResponse;
 
 import blade.kit.StringKit;
 import blade.kit.log.Logger;
+import blade.kit.resource.ClassReader;
 
 import com.blade.Aop;
 import com.blade.Blade;
 import com.blade.Bootstrap;
+import com.blade.context.StartupReport;
+import com.blade.loader.Config;
+import com.blade.loader.IndexedClassReader;
+import com.blade.plugin.Plugin;
+import com.blade.plugin.PluginRunner;
 import com.blade.route.RouteBuilder;
 import com.blade.route.RouteMatcher;
+import com.blade.web.http.HttpStatus;
+import com.blade.web.multipart.MultipartException;
+import com.blade.web.resource.StaticFileHandler;
 
 /**
  * Blade Core DispatcherServlet
@@ -54,6 +66,14 @@ public class DispatcherServlet extends HttpServlet {
 	
 	private SyncRequestHandler syncRequestHandler;
 	
+	private RouteMatcher routeMatcher;
+	
+	private StaticFileHandler staticFileHandler;
+	
+	private RequestExecutor requestExecutor;
+	
+	private RequestTracker requestTracker;
+	
 	public DispatcherServlet() {
 	}
 	
@@ -66,7 +86,9 @@ public class DispatcherServlet extends HttpServlet {
 	public void init(ServletConfig config) throws ServletException {
 		servletContext = config.getServletContext();
 		if(!blade.isInit()){
-		    blade.webRoot(servletContext.getRealPath("/"));
+		    if(StringKit.isBlank(blade.webRoot())){
+		    	blade.webRoot(servletContext.getRealPath("/"));
+		    }
 			this.bootstrap = blade.bootstrap();
 			if(null == bootstrap){
 				String bootStrapClassName = config.getInitParameter("bootstrap");
@@ -81,22 +103,76 @@ public class DispatcherServlet extends HttpServlet {
 				}
 				blade.app(bootstrap);
 			}
+			
+			StartupReport report = blade.startupReport();
+			long start = System.nanoTime();
+			long phaseStart = start;
 			bootstrap.init(blade);
+			report.phase("bootstrap", phaseStart);
 			
-		    // buiding route
-			new RouteBuilder(blade).building();
+			// plugins run while routes and ioc are scanned
+			ExecutorService startupExecutor = null;
+			PluginRunner pluginRunner = null;
+			List<Plugin> plugins = blade.iocApplication().getPlugins();
+			if(blade.config().isRunPlugins() && !plugins.isEmpty()){
+				startupExecutor = Executors.newFixedThreadPool(Math.max(1, blade.config().getStartupThreads()), 
+						new RequestExecutor.NamedThreadFactory("blade-startup"));
+				pluginRunner = new PluginRunner(plugins, startupExecutor, report);
+				pluginRunner.start();
+			}
 			
-			// initialization ioc
-			blade.iocInit();
+			try {
+			    // buiding route
+				phaseStart = System.nanoTime();
+				new RouteBuilder(blade).building();
+				report.phase("routes", phaseStart);
+				
+				// initialization ioc
+				phaseStart = System.nanoTime();
+				blade.iocInit();
+				report.phase("ioc", phaseStart);
+				
+				if(null != pluginRunner){
+					pluginRunner.await();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ServletException(e);
+			} finally {
+				if(null != startupExecutor){
+					startupExecutor.shutdown();
+				}
+			}
 			
+			phaseStart = System.nanoTime();
 		    blade.bootstrap().contextInitialized(blade);
+		    report.phase("contextInitialized", phaseStart);
+		    
+		    ClassReader classReader = blade.classReader();
+		    if(classReader instanceof IndexedClassReader){
+		    	report.setClassesScanned(((IndexedClassReader) classReader).getScannedCount());
+		    	report.setClassesLoaded(((IndexedClassReader) classReader).getLoadedCount());
+		    }
+		    report.setRoutes(blade.routers().getRoutes().size());
+		    report.setInterceptors(blade.routers().getInterceptors().size());
+		    report.setBeans(blade.container().getBeanNames().size());
+		    report.finish(start);
+		    LOGGER.info("Startup report: " + report);
 		    
-		    syncRequestHandler = new SyncRequestHandler(servletContext, blade.routers());
-		    AsynRequestHandler.routeMatcher = new RouteMatcher(blade.routers());
+		    // the class headers are only read by the startup scans
+		    if(classReader instanceof IndexedClassReader){
+		    	((IndexedClassReader) classReader).clearCache();
+		    }
+		    
+		    staticFileHandler = getStaticFileHandler();
+		    routeMatcher = new RouteMatcher(blade.routers());
+		    syncRequestHandler = new SyncRequestHandler(servletContext, routeMatcher, staticFileHandler);
 		    
 		    blade.setInit(true);
 		    LOGGER.info("blade init complete!");
 		}
+		requestExecutor = blade.requestExecutor();
+		requestTracker = blade.requestTracker();
 	}
 
 	@Override
@@ -104,14 +180,94 @@ public class DispatcherServlet extends HttpServlet {
 		httpRequest.setCharacterEncoding(blade.encoding());
 		httpResponse.setCharacterEncoding(blade.encoding());
 		
+		if(!requestTracker.enter()){
+			// Shutting down, send the client to another instance
+			httpResponse.setStatus(HttpStatus.SERVICE_UNAVAILABLE);
+			httpResponse.setHeader("Retry-After", String.valueOf(blade.config().getRetryAfter()));
+			httpResponse.setHeader("Connection", "close");
+			return;
+		}
+		
 		boolean isAsync = httpRequest.isAsyncSupported();
-		if (isAsync) {
-			AsyncContext asyncCtx = httpRequest.startAsync();
-			asyncCtx.addListener(new AppAsyncListener());
-			asyncCtx.setTimeout(10000L);
-			asyncCtx.start(new AsynRequestHandler(servletContext, asyncCtx));
-		} else {
-			syncRequestHandler.handle(httpRequest, httpResponse);
+		boolean started = false;
+		try {
+			if (isAsync) {
+				AsyncContext asyncCtx = httpRequest.startAsync();
+				asyncCtx.addListener(new AppAsyncListener(requestTracker));
+				// the listener exits the tracker from here on
+				started = true;
+				// the route is matched once, here, its timeout applies before the request is dispatched
+				AsynRequestHandler handler = new AsynRequestHandler(servletContext, asyncCtx, routeMatcher, staticFileHandler);
+				asyncCtx.setTimeout(handler.getTimeout(blade.config().getAsyncTimeout()));
+				if(!requestExecutor.execute(handler)){
+					// Overloaded, shed the request
+					httpResponse.setStatus(HttpStatus.SERVICE_UNAVAILABLE);
+					httpResponse.setHeader("Retry-After", String.valueOf(blade.config().getRetryAfter()));
+					asyncCtx.complete();
+				}
+			} else {
+				syncRequestHandler.handle(httpRequest, httpResponse);
+			}
+		} catch (MultipartException e) {
+			throw new ServletException(e);
+		} finally {
+			if(!started){
+				requestTracker.exit();
+			}
+		}
+	}
+	
+	@Override
+	public void destroy() {
+		super.destroy();
+		if(null != requestTracker){
+			// the embedded server has drained already, a servlet container may not
+			drain(requestTracker, blade.config().getServerConfig().getShutdownTimeout());
+		}
+		if(null != requestExecutor){
+			requestExecutor.shutdown();
+		}
+	}
+	
+	/**
+	 * Refuse new requests and wait for the requests in flight
+	 * 
+	 * @param requestTracker	requests in flight
+	 * @param timeout			max milliseconds to wait
+	 * @return					return false if requests are still running after the timeout
+	 */
+	public static boolean drain(RequestTracker requestTracker, long timeout) {
+		requestTracker.drain();
+		if(requestTracker.inFlight() == 0){
+			return true;
+		}
+		LOGGER.info("Waiting for " + requestTracker.inFlight() + " requests in flight...");
+		try {
+			if(requestTracker.awaitIdle(timeout)){
+				return true;
+			}
+			LOGGER.warn(requestTracker.inFlight() + " requests still running after " + timeout + "ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+	
+	/**
+	 * @return	Return the static file handler, null if there is no static folder
+	 * @throws ServletException
+	 */
+	private StaticFileHandler getStaticFileHandler() throws ServletException {
+		String[] folders = blade.staticFolder();
+		if(null == folders || folders.length == 0 || StringKit.isBlank(blade.webRoot())){
+			return null;
+		}
+		try {
+			Config config = blade.config();
+			return new StaticFileHandler(servletContext, blade.webRoot(), folders, 
+					config.getStaticCacheSize(), config.getStaticCacheFileSize());
+		} catch (IOException e) {
+			throw new ServletException(e);
 		}
 	}
 	
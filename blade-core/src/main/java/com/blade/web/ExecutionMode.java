@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web;
+
+/**
+ * Execution mode of asynchronous requests
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public enum ExecutionMode {
+	
+	/**
+	 * Bounded pool of platform threads
+	 */
+	PLATFORM_THREADS,
+	
+	/**
+	 * One virtual thread per request, falls back to platform threads when the JDK has no virtual threads
+	 */
+	VIRTUAL_THREADS
+	
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import blade.kit.log.Logger;
+
+import com.blade.Const;
+
+/**
+ * Worker pool of asynchronous requests
+ * <p>
+ * By default a bounded thread pool: requests wait in a bounded queue, and when the queue is full
+ * and all workers are busy the request is rejected, so the dispatcher can shed load instead of
+ * letting latency grow without bound. A custom ExecutorService can be plugged in through Blade.
+ * </p>
+ * <p>
+ * In virtual thread mode every request runs on its own virtual thread, and the number of requests
+ * in flight is bounded by a permit count instead of a queue.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class RequestExecutor {
+	
+	private static final Logger LOGGER = Logger.getLogger(RequestExecutor.class);
+	
+	private final ExecutorService executor;
+	
+	private final AtomicLong rejectedCount = new AtomicLong();
+	
+	private final Semaphore permits;
+	
+	private final int maxRequests;
+	
+	private final AtomicLong completedCount = new AtomicLong();
+	
+	public RequestExecutor(int coreThreads, int maxThreads, int queueSize) {
+		this(new ThreadPoolExecutor(coreThreads, Math.max(coreThreads, maxThreads), 60L, TimeUnit.SECONDS, 
+				new ArrayBlockingQueue<Runnable>(queueSize), new NamedThreadFactory(Const.BLADE_EXECUTOR)));
+	}
+	
+	public RequestExecutor(ExecutorService executor) {
+		this(executor, 0);
+	}
+	
+	private RequestExecutor(ExecutorService executor, int maxRequests) {
+		this.executor = executor;
+		this.maxRequests = maxRequests;
+		this.permits = maxRequests > 0 ? new Semaphore(maxRequests) : null;
+	}
+	
+	/**
+	 * Create an executor by the execution mode
+	 * 
+	 * @param mode			execution mode
+	 * @param coreThreads	core worker threads
+	 * @param maxThreads	max worker threads
+	 * @param queueSize		max requests waiting for a worker
+	 * @return				return request executor
+	 */
+	public static RequestExecutor create(ExecutionMode mode, int coreThreads, int maxThreads, int queueSize) {
+		if(mode == ExecutionMode.VIRTUAL_THREADS){
+			ExecutorService virtualExecutor = newVirtualThreadExecutor();
+			if(null != virtualExecutor){
+				return new RequestExecutor(virtualExecutor, Math.max(coreThreads, maxThreads) + queueSize);
+			}
+			LOGGER.warn("Virtual threads are not supported by this JVM, fall back to platform threads.");
+		}
+		return new RequestExecutor(coreThreads, maxThreads, queueSize);
+	}
+	
+	/**
+	 * @return	Return a virtual thread per task executor, null if the JVM has no virtual threads
+	 */
+	static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (Exception e) {
+			// preview feature not enabled
+			LOGGER.debug("Can not create virtual thread executor: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * @return	Return whether requests run on virtual threads
+	 */
+	public boolean isVirtual() {
+		return null != permits;
+	}
+	
+	/**
+	 * Submit a request task
+	 * 
+	 * @param task	request task
+	 * @return		return false if the task is rejected
+	 */
+	public boolean execute(final Runnable task) {
+		if(null != permits){
+			if(!permits.tryAcquire()){
+				rejectedCount.incrementAndGet();
+				return false;
+			}
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							task.run();
+						} finally {
+							permits.release();
+							completedCount.incrementAndGet();
+						}
+					}
+				});
+				return true;
+			} catch (RejectedExecutionException e) {
+				permits.release();
+				rejectedCount.incrementAndGet();
+				return false;
+			}
+		}
+		try {
+			executor.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			rejectedCount.incrementAndGet();
+			return false;
+		}
+	}
+	
+	/**
+	 * @return	Return the number of requests waiting in the queue, -1 if unknown
+	 */
+	public int queueSize() {
+		if(executor instanceof ThreadPoolExecutor){
+			return ((ThreadPoolExecutor) executor).getQueue().size();
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return	Return the number of workers executing a request, -1 if unknown
+	 */
+	public int activeCount() {
+		if(null != permits){
+			return maxRequests - permits.availablePermits();
+		}
+		if(executor instanceof ThreadPoolExecutor){
+			return ((ThreadPoolExecutor) executor).getActiveCount();
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return	Return the number of workers in the pool, -1 if unknown
+	 */
+	public int poolSize() {
+		if(executor instanceof ThreadPoolExecutor){
+			return ((ThreadPoolExecutor) executor).getPoolSize();
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return	Return the number of completed requests, -1 if unknown
+	 */
+	public long completedCount() {
+		if(null != permits){
+			return completedCount.get();
+		}
+		if(executor instanceof ThreadPoolExecutor){
+			return ((ThreadPoolExecutor) executor).getCompletedTaskCount();
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return	Return the number of rejected requests
+	 */
+	public long rejectedCount() {
+		return rejectedCount.get();
+	}
+	
+	public ExecutorService executor() {
+		return executor;
+	}
+	
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	@Override
+	public String toString() {
+		return "RequestExecutor [queue=" + queueSize() + ", active=" + activeCount() + ", pool=" + poolSize() 
+				+ ", completed=" + completedCount() + ", rejected=" + rejectedCount() + "]";
+	}
+	
+	static class NamedThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		private final String prefix;
+		
+		NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+	
+}
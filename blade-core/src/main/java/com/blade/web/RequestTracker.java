@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the requests in flight, and drains them on shutdown
+ * <p>
+ * A request enters when the dispatcher receives it and exits when its response is complete, 
+ * for asynchronous requests that is when the AsyncContext completes. Once draining starts 
+ * new requests are refused so the dispatcher can answer 503 while the running ones finish.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class RequestTracker {
+	
+	private final AtomicInteger inFlight = new AtomicInteger();
+	
+	private final AtomicLong totalCount = new AtomicLong();
+	
+	private final AtomicLong refusedCount = new AtomicLong();
+	
+	private final Object idle = new Object();
+	
+	private volatile boolean draining = false;
+	
+	public RequestTracker() {
+	}
+	
+	/**
+	 * A request is received
+	 * 
+	 * @return	return false if the tracker is draining, the request must not run
+	 */
+	public boolean enter() {
+		inFlight.incrementAndGet();
+		// counted before the check, so awaitIdle can not miss a request that passed it
+		if(draining){
+			exit();
+			refusedCount.incrementAndGet();
+			return false;
+		}
+		totalCount.incrementAndGet();
+		return true;
+	}
+	
+	/**
+	 * A request is complete, once for every successful enter
+	 */
+	public void exit() {
+		if(inFlight.decrementAndGet() == 0 && draining){
+			synchronized (idle) {
+				idle.notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Refuse new requests from now on
+	 */
+	public void drain() {
+		draining = true;
+	}
+	
+	/**
+	 * Wait for the requests in flight to complete
+	 * 
+	 * @param timeout	max milliseconds to wait
+	 * @return			return false if requests are still running after the timeout
+	 * @throws InterruptedException
+	 */
+	public boolean awaitIdle(long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		synchronized (idle) {
+			while(inFlight.get() > 0){
+				long left = deadline - System.currentTimeMillis();
+				if(left <= 0){
+					return false;
+				}
+				idle.wait(left);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return	Return whether new requests are refused
+	 */
+	public boolean isDraining() {
+		return draining;
+	}
+	
+	/**
+	 * @return	Return the number of requests in flight
+	 */
+	public int inFlight() {
+		return inFlight.get();
+	}
+	
+	/**
+	 * @return	Return the number of accepted requests
+	 */
+	public long totalCount() {
+		return totalCount.get();
+	}
+	
+	/**
+	 * @return	Return the number of requests refused while draining
+	 */
+	public long refusedCount() {
+		return refusedCount.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "RequestTracker [inFlight=" + inFlight() + ", total=" + totalCount() + ", refused=" + refusedCount() 
+				+ ", draining=" + draining + "]";
+	}
+	
+}
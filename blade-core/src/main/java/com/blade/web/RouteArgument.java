@@ -15,48 +15,271 @@
  */
 package com.blade.web;
 
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import blade.kit.ReflectKit;
+import blade.kit.json.JsonValue;
 
+import com.blade.annotation.Body;
+import com.blade.annotation.CookieParam;
+import com.blade.annotation.Header;
+import com.blade.annotation.PathParam;
+import com.blade.annotation.QueryParam;
+import com.blade.web.http.HttpException;
+import com.blade.web.http.HttpStatus;
 import com.blade.web.http.Request;
 import com.blade.web.http.Response;
 
 /**
  * Route parameters of injector
+ * <p>
+ * A route method parameter is either Request, Response, or annotated with
+ * {@link PathParam}, {@link QueryParam}, {@link Header}, {@link CookieParam} or {@link Body}.
+ * The binding plan of a method is resolved once when its route is registered, see {@link #plan(Method)}.
+ * </p>
  * 
  * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
  * @since	1.0
  */
 public final class RouteArgument {
-
+	
+	/**
+	 * Convert a request string value to a parameter type
+	 */
+	public interface Converter<T> {
+		T convert(String value);
+	}
+	
+	private static final int SOURCE_NONE = 0;
+	private static final int SOURCE_REQUEST = 1;
+	private static final int SOURCE_RESPONSE = 2;
+	private static final int SOURCE_PATH = 3;
+	private static final int SOURCE_QUERY = 4;
+	private static final int SOURCE_HEADER = 5;
+	private static final int SOURCE_COOKIE = 6;
+	private static final int SOURCE_BODY = 7;
+	
+	private static final Map<Class<?>, Converter<?>> CONVERTERS = new ConcurrentHashMap<Class<?>, Converter<?>>();
+	
+	/**
+	 * Invokers of the methods executed through {@link #executeMethod(Object, Method, Request, Response)}
+	 */
+	private static final ConcurrentHashMap<Method, RouteInvoker> INVOKERS = new ConcurrentHashMap<Method, RouteInvoker>();
+	
+	static {
+		Converter<Integer> intConverter = new Converter<Integer>() {
+			@Override
+			public Integer convert(String value) {
+				return Integer.valueOf(value);
+			}
+		};
+		Converter<Long> longConverter = new Converter<Long>() {
+			@Override
+			public Long convert(String value) {
+				return Long.valueOf(value);
+			}
+		};
+		Converter<Boolean> boolConverter = new Converter<Boolean>() {
+			@Override
+			public Boolean convert(String value) {
+				return Boolean.valueOf(value);
+			}
+		};
+		Converter<Double> doubleConverter = new Converter<Double>() {
+			@Override
+			public Double convert(String value) {
+				return Double.valueOf(value);
+			}
+		};
+		Converter<Float> floatConverter = new Converter<Float>() {
+			@Override
+			public Float convert(String value) {
+				return Float.valueOf(value);
+			}
+		};
+		Converter<Short> shortConverter = new Converter<Short>() {
+			@Override
+			public Short convert(String value) {
+				return Short.valueOf(value);
+			}
+		};
+		Converter<Byte> byteConverter = new Converter<Byte>() {
+			@Override
+			public Byte convert(String value) {
+				return Byte.valueOf(value);
+			}
+		};
+		CONVERTERS.put(int.class, intConverter);
+		CONVERTERS.put(Integer.class, intConverter);
+		CONVERTERS.put(long.class, longConverter);
+		CONVERTERS.put(Long.class, longConverter);
+		CONVERTERS.put(boolean.class, boolConverter);
+		CONVERTERS.put(Boolean.class, boolConverter);
+		CONVERTERS.put(double.class, doubleConverter);
+		CONVERTERS.put(Double.class, doubleConverter);
+		CONVERTERS.put(float.class, floatConverter);
+		CONVERTERS.put(Float.class, floatConverter);
+		CONVERTERS.put(short.class, shortConverter);
+		CONVERTERS.put(Short.class, shortConverter);
+		CONVERTERS.put(byte.class, byteConverter);
+		CONVERTERS.put(Byte.class, byteConverter);
+	}
+	
+	private final int source;
+	
+	private final String name;
+	
+	private final Class<?> type;
+	
+	private final Converter<?> converter;
+	
+	/**
+	 * Value used when the request has no value for a primitive parameter
+	 */
+	private final Object defaultValue;
+	
+	private RouteArgument(int source, String name, Class<?> type) {
+		this.source = source;
+		this.name = name;
+		this.type = type;
+		this.converter = CONVERTERS.get(type);
+		this.defaultValue = type.isPrimitive() && null != converter ? converter.convert(type == boolean.class ? "false" : "0") : null;
+		if(source >= SOURCE_PATH && source <= SOURCE_COOKIE && type != String.class && null == converter){
+			throw new IllegalArgumentException("No converter registered for parameter \"" + name + "\" of type " + type.getName());
+		}
+	}
+	
+	/**
+	 * Register a converter for request values, must be called before the routes are built
+	 * 
+	 * @param type		parameter type
+	 * @param converter	converter of the type
+	 */
+	public static <T> void converter(Class<T> type, Converter<T> converter) {
+		CONVERTERS.put(type, converter);
+	}
+	
 	/**
-	 * Parameters in the method
+	 * Resolve the binding plan of a route method
 	 * 
-	 * @param request		Request object for injection to the method parameter list
-	 * @param response		Response object for injection to the method parameter list
-	 * @param params		Params parameter list
-	 * @return				Return the generated array of parameters
+	 * @param method	route method
+	 * @return			return an argument binder for each method parameter
 	 */
-	public static Object[] getArgs(Request request, Response response, Class<?>[] params){
-		
-		int len = params.length;
-		Object[] args = new Object[len];
-		
-		for(int i=0; i<len; i++){
-			Class<?> paramTypeClazz = params[i];
-			if(paramTypeClazz.getName().equals(Request.class.getName())){
-				args[i] = request;
+	public static RouteArgument[] plan(Method method) {
+		Class<?>[] paramTypes = method.getParameterTypes();
+		Annotation[][] annotations = method.getParameterAnnotations();
+		RouteArgument[] arguments = new RouteArgument[paramTypes.length];
+		for(int i=0; i<paramTypes.length; i++){
+			Class<?> type = paramTypes[i];
+			int source = SOURCE_NONE;
+			String name = null;
+			for(Annotation annotation : annotations[i]){
+				if(annotation instanceof PathParam){
+					source = SOURCE_PATH;
+					name = ((PathParam) annotation).value();
+				} else if(annotation instanceof QueryParam){
+					source = SOURCE_QUERY;
+					name = ((QueryParam) annotation).value();
+				} else if(annotation instanceof Header){
+					source = SOURCE_HEADER;
+					name = ((Header) annotation).value();
+				} else if(annotation instanceof CookieParam){
+					source = SOURCE_COOKIE;
+					name = ((CookieParam) annotation).value();
+				} else if(annotation instanceof Body){
+					source = SOURCE_BODY;
+				}
 			}
-			if(paramTypeClazz.getName().equals(Response.class.getName())){
-				args[i] = response;
+			if(source == SOURCE_NONE){
+				if(type == Request.class){
+					source = SOURCE_REQUEST;
+				} else if(type == Response.class){
+					source = SOURCE_RESPONSE;
+				}
 			}
+			arguments[i] = new RouteArgument(source, name, type);
 		}
-		return args;
+		return arguments;
+	}
+	
+	/**
+	 * @return	Return whether the argument is the Request object
+	 */
+	public boolean isRequest() {
+		return source == SOURCE_REQUEST;
 	}
 	
 	/**
-	 * Implementation route
+	 * @return	Return whether the argument is the Response object
+	 */
+	public boolean isResponse() {
+		return source == SOURCE_RESPONSE;
+	}
+	
+	/**
+	 * Resolve the argument value of a request
+	 * 
+	 * @param request	request object
+	 * @param response	response object
+	 * @return			return the argument value
+	 */
+	public Object resolve(Request request, Response response) {
+		switch (source) {
+		case SOURCE_REQUEST:
+			return request;
+		case SOURCE_RESPONSE:
+			return response;
+		case SOURCE_PATH:
+			return convert(request.param(name));
+		case SOURCE_QUERY:
+			return convert(request.query(name));
+		case SOURCE_HEADER:
+			return convert(request.header(name));
+		case SOURCE_COOKIE:
+			return convert(request.cookie(name));
+		case SOURCE_BODY:
+			return body(request);
+		default:
+			return defaultValue;
+		}
+	}
+	
+	private Object convert(String value) {
+		if(null == value || (value.length() == 0 && type != String.class)){
+			return defaultValue;
+		}
+		if(null == converter){
+			return value;
+		}
+		try {
+			return converter.convert(value);
+		} catch (RuntimeException e) {
+			throw new HttpException(HttpStatus.BAD_REQUEST, "Bad value of parameter \"" + name + "\": " + value, e);
+		}
+	}
+	
+	private Object body(Request request) {
+		if(type == String.class){
+			return request.body().asString();
+		}
+		if(type == byte[].class){
+			return request.body().asByte();
+		}
+		if(type == InputStream.class){
+			return request.body().asInputStream();
+		}
+		// the size limit and the malformed body errors of the request apply
+		if(JsonValue.class.isAssignableFrom(type)){
+			return request.body().asJson();
+		}
+		return request.body().as(type);
+	}
+	
+	/**
+	 * Implementation route, the invoker of a method is prepared on the first call
 	 * 
 	 * @param object		The instance of the method, that is, the object of the method's class.
 	 * @param method		Method to execute
@@ -65,17 +288,14 @@ public final class RouteArgument {
 	 * @return				Return value after the method returns
 	 */
 	public static Object executeMethod(Object object, Method method, Request request, Response response){
-		int len = method.getParameterTypes().length;
-		method.setAccessible(true);
-		try {
-			if(len > 0){
-				Object[] args = getArgs(request, response, method.getParameterTypes());
-				return ReflectKit.invokeMehod(object, method, args);
-			} else {
-				return ReflectKit.invokeMehod(object, method);
+		RouteInvoker invoker = INVOKERS.get(method);
+		if(null == invoker){
+			invoker = new RouteInvoker(method);
+			RouteInvoker exists = INVOKERS.putIfAbsent(method, invoker);
+			if(null != exists){
+				invoker = exists;
 			}
-		} catch (Exception e) {
-			throw new RuntimeException("invoke method error.", e);
 		}
+		return invoker.invoke(object, request, response);
 	}
 }
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web;
+
+import java.lang.reflect.Method;
+
+import com.blade.route.RouteHandler;
+import com.blade.web.http.Request;
+import com.blade.web.http.Response;
+
+/**
+ * Route method invoker, prepared once when the route is registered
+ * <p>
+ * The method is made accessible and the binding plan of its arguments is resolved up front,
+ * so a request only builds the argument array and calls the method.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class RouteInvoker {
+	
+	private static final Object[] EMPTY_ARGS = new Object[0];
+	
+	private final Method method;
+	
+	private final RouteArgument[] arguments;
+	
+	/**
+	 * Whether the method is RouteHandler.handle(Request, Response)
+	 */
+	private final boolean isHandler;
+	
+	public RouteInvoker(Method method) {
+		this.method = method;
+		this.method.setAccessible(true);
+		this.arguments = RouteArgument.plan(method);
+		this.isHandler = RouteHandler.class.isAssignableFrom(method.getDeclaringClass())
+				&& method.getName().equals("handle") && arguments.length == 2
+				&& arguments[0].isRequest() && arguments[1].isResponse();
+	}
+	
+	/**
+	 * Invoke the route method
+	 * 
+	 * @param target	the object of the method's class
+	 * @param request	request object, as parameter injection
+	 * @param response	response object, as parameter injection
+	 * @return			return value after the method returns
+	 */
+	public Object invoke(Object target, Request request, Response response) {
+		if(isHandler && target instanceof RouteHandler){
+			((RouteHandler) target).handle(request, response);
+			return null;
+		}
+		Object[] args = getArgs(request, response);
+		try {
+			return method.invoke(target, args);
+		} catch (Exception e) {
+			throw new RuntimeException("invoke method error.", e);
+		}
+	}
+	
+	private Object[] getArgs(Request request, Response response) {
+		int len = arguments.length;
+		if(len == 0){
+			return EMPTY_ARGS;
+		}
+		Object[] args = new Object[len];
+		for(int i=0; i<len; i++){
+			args[i] = arguments[i].resolve(request, response);
+		}
+		return args;
+	}
+	
+	public Method getMethod() {
+		return method;
+	}
+	
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import blade.kit.Assert;
+
+import com.blade.annotation.CacheResponse;
+
+/**
+ * Cache policy of a route, declared by {@link CacheResponse}
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class CachePolicy {
+	
+	private static final String[] EMPTY = new String[0];
+	
+	/**
+	 * Time to live in milliseconds
+	 */
+	private final long ttl;
+	
+	/**
+	 * Query parameters in the cache key, null is the whole query string
+	 */
+	private final String[] query;
+	
+	/**
+	 * Request headers in the cache key
+	 */
+	private final String[] headers;
+	
+	/**
+	 * Tags to invalidate the cached responses with
+	 */
+	private final String[] tags;
+	
+	private final AtomicLong hits = new AtomicLong();
+	
+	private final AtomicLong misses = new AtomicLong();
+	
+	public CachePolicy(CacheResponse cacheResponse) {
+		this(cacheResponse.ttl(), cacheResponse.query(), cacheResponse.headers(), cacheResponse.tags());
+	}
+	
+	public CachePolicy(long ttl, String[] query, String[] headers, String[] tags) {
+		Assert.isTrue(ttl > 0, "cache ttl must be positive");
+		this.ttl = ttl;
+		this.query = null == query || (query.length == 1 && "*".equals(query[0])) ? null : query;
+		this.headers = null == headers ? EMPTY : headers;
+		this.tags = null == tags ? EMPTY : tags;
+	}
+	
+	/**
+	 * Build the cache key of a request, values are length prefixed so that they can not run into each other
+	 * 
+	 * @param request	request object
+	 * @param uri		request uri
+	 * @return			return the cache key
+	 */
+	public String key(HttpServletRequest request, String uri) {
+		StringBuilder key = new StringBuilder(64).append(uri).append('?');
+		if(null == query){
+			append(key, request.getQueryString());
+		} else {
+			for(String name : query){
+				String[] values = request.getParameterValues(name);
+				int count = null == values ? 0 : values.length;
+				key.append(count).append('#');
+				for(int i=0; i<count; i++){
+					append(key, values[i]);
+				}
+			}
+		}
+		for(String name : headers){
+			append(key, request.getHeader(name));
+		}
+		return key.toString();
+	}
+	
+	private static void append(StringBuilder key, String value) {
+		if(null == value){
+			key.append('-');
+		} else {
+			key.append(value.length()).append(':').append(value);
+		}
+	}
+	
+	public long getTtl() {
+		return ttl;
+	}
+	
+	public String[] getTags() {
+		return tags;
+	}
+	
+	public long hit() {
+		return hits.incrementAndGet();
+	}
+	
+	public long miss() {
+		return misses.incrementAndGet();
+	}
+	
+	/**
+	 * @return	Return the number of requests served from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+	
+	/**
+	 * @return	Return the number of requests that executed the route
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+	
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.cache;
+
+import com.blade.web.http.Response;
+
+/**
+ * A cached response, it is replayed through the normal response pipeline so compression still applies
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class CachedResponse {
+	
+	private final int status;
+	
+	private final String contentType;
+	
+	/**
+	 * Header names and values, in pairs
+	 */
+	private final String[] headers;
+	
+	private final byte[] body;
+	
+	/**
+	 * Absolute expiration time in milliseconds
+	 */
+	private final long expiresAt;
+	
+	public CachedResponse(int status, String contentType, String[] headers, byte[] body, long expiresAt) {
+		this.status = status;
+		this.contentType = contentType;
+		this.headers = headers;
+		this.body = body;
+		this.expiresAt = expiresAt;
+	}
+	
+	public boolean isExpired(long now) {
+		return now >= expiresAt;
+	}
+	
+	public int getStatus() {
+		return status;
+	}
+	
+	public String getContentType() {
+		return contentType;
+	}
+	
+	public byte[] getBody() {
+		return body;
+	}
+	
+	/**
+	 * Write the cached response
+	 * 
+	 * @param response	response object
+	 */
+	public void replay(Response response) {
+		response.status(status);
+		for(int i=0; i<headers.length; i+=2){
+			response.header(headers[i], headers[i + 1]);
+		}
+		if(null != contentType){
+			response.contentType(contentType);
+		}
+		// the body is always the same, so its compressed form can be kept too
+		response.cacheable(true);
+		response.bytes(body);
+	}
+	
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.http.HttpServletResponse;
+
+import blade.cache.Cache;
+import blade.cache.CacheManager;
+
+import com.blade.web.http.HttpStatus;
+
+/**
+ * Responses of {@link com.blade.annotation.CacheResponse} routes, kept in a blade-cache LRU cache
+ * <p>
+ * Entries carry their own absolute expiration, the expiration of blade-cache slides with every access.
+ * The LRU cache reorders its entries on get, so it is only used under the lock.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class ResponseCache {
+	
+	private static final String CACHE_ID = "blade-response-cache";
+	
+	private final Cache<String, CachedResponse> cache;
+	
+	/**
+	 * Keys of the cached responses by tag
+	 */
+	private final Map<String, Set<String>> tagKeys = new HashMap<String, Set<String>>();
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	private final int size;
+	
+	public ResponseCache(int size) {
+		this.size = size;
+		this.cache = CacheManager.getInstance().newLRUCache(CACHE_ID, size);
+	}
+	
+	/**
+	 * @param key	cache key
+	 * @return		Return the cached response, null if it is not cached or expired
+	 */
+	public CachedResponse get(String key) {
+		lock.lock();
+		try {
+			CachedResponse cached = cache.get(key);
+			if(null != cached && cached.isExpired(System.currentTimeMillis())){
+				cache.del(key);
+				return null;
+			}
+			return cached;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Cache a captured response, responses that are not 200 or set cookies are not cached
+	 * 
+	 * @param key		cache key
+	 * @param policy	cache policy of the route
+	 * @param response	captured response
+	 * @param body		captured body
+	 * @return			return whether the response is cached
+	 */
+	public boolean put(String key, CachePolicy policy, HttpServletResponse response, byte[] body) {
+		if(null == body || response.getStatus() != HttpStatus.OK || response.containsHeader("Set-Cookie")){
+			return false;
+		}
+		List<String> headers = new ArrayList<String>();
+		for(String name : response.getHeaderNames()){
+			if(isReplayed(name)){
+				for(String value : response.getHeaders(name)){
+					headers.add(name);
+					headers.add(value);
+				}
+			}
+		}
+		CachedResponse cached = new CachedResponse(response.getStatus(), response.getContentType(), 
+				headers.toArray(new String[headers.size()]), body, System.currentTimeMillis() + policy.getTtl());
+		
+		lock.lock();
+		try {
+			cache.set(key, cached);
+			for(String tag : policy.getTags()){
+				Set<String> keys = tagKeys.get(tag);
+				if(null == keys){
+					keys = new HashSet<String>();
+					tagKeys.put(tag, keys);
+				}
+				keys.add(key);
+				// drop the keys evicted from the cache
+				if(keys.size() > size){
+					keys.retainAll(cache.keys());
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		return true;
+	}
+	
+	/**
+	 * Headers written by the response pipeline again when a cached response is replayed
+	 */
+	private static boolean isReplayed(String name) {
+		return !("Content-Type".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name) 
+				|| "Content-Encoding".equalsIgnoreCase(name) || "Vary".equalsIgnoreCase(name) 
+				|| "Date".equalsIgnoreCase(name) || "Set-Cookie".equalsIgnoreCase(name));
+	}
+	
+	/**
+	 * Remove the cached responses of a tag
+	 * 
+	 * @param tag	tag of the routes
+	 * @return		return the number of removed responses
+	 */
+	public int invalidate(String tag) {
+		lock.lock();
+		try {
+			Collection<String> keys = tagKeys.remove(tag);
+			if(null == keys){
+				return 0;
+			}
+			int count = 0;
+			for(String key : keys){
+				if(null != cache.get(key)){
+					cache.del(key);
+					count++;
+				}
+			}
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Remove all cached responses
+	 */
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			cache.clear();
+			tagKeys.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return	Return the number of cached responses
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return cache.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+}
@@ -0,0 +1,4 @@
+/**
+ * Route Response Cache
+ */
+package com.blade.web.cache;
\ No newline at end of file
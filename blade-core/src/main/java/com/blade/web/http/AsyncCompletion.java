@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Completion of an asynchronous request
+ * <p>
+ * The request handler holds the request while it runs, and every non-blocking read or write holds it
+ * until the transfer is done. The AsyncContext is completed when the last holder releases it.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class AsyncCompletion {
+	
+	private static final String ATTRIBUTE_NAME = AsyncCompletion.class.getName();
+	
+	private final AsyncContext asyncContext;
+	
+	private final AtomicInteger holders = new AtomicInteger(1);
+	
+	private AsyncCompletion(AsyncContext asyncContext) {
+		this.asyncContext = asyncContext;
+	}
+	
+	/**
+	 * Begin an asynchronous request, the caller is the first holder
+	 * 
+	 * @param asyncContext	asynchronous context
+	 * @return				return completion of the request
+	 */
+	public static AsyncCompletion begin(AsyncContext asyncContext) {
+		AsyncCompletion completion = new AsyncCompletion(asyncContext);
+		asyncContext.getRequest().setAttribute(ATTRIBUTE_NAME, completion);
+		return completion;
+	}
+	
+	/**
+	 * @param request	http request
+	 * @return			return completion of the request, null if the request is not asynchronous
+	 */
+	public static AsyncCompletion of(HttpServletRequest request) {
+		if(null == request || !request.isAsyncStarted()){
+			return null;
+		}
+		return (AsyncCompletion) request.getAttribute(ATTRIBUTE_NAME);
+	}
+	
+	/**
+	 * Hold the request open until {@link #release()}
+	 */
+	public void hold() {
+		holders.incrementAndGet();
+	}
+	
+	/**
+	 * Release the request, complete it when there is no holder left
+	 */
+	public void release() {
+		if(holders.decrementAndGet() == 0){
+			asyncContext.complete();
+		}
+	}
+	
+	public AsyncContext asyncContext() {
+		return asyncContext;
+	}
+	
+}
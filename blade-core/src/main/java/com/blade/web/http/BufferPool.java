@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed size byte and char buffers used for request and response I/O
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class BufferPool {
+	
+	/**
+	 * Size of a pooled buffer
+	 */
+	public static final int BUFFER_SIZE = 8192;
+	
+	private static final int MAX_POOLED = 512;
+	
+	/**
+	 * Size of a pooled char buffer
+	 */
+	public static final int CHAR_BUFFER_SIZE = 4096;
+	
+	private static final ConcurrentLinkedQueue<byte[]> POOL = new ConcurrentLinkedQueue<byte[]>();
+	
+	private static final AtomicInteger POOLED = new AtomicInteger();
+	
+	private static final ConcurrentLinkedQueue<char[]> CHAR_POOL = new ConcurrentLinkedQueue<char[]>();
+	
+	private static final AtomicInteger CHARS_POOLED = new AtomicInteger();
+	
+	private BufferPool() {
+	}
+	
+	/**
+	 * @return	Return a buffer of BUFFER_SIZE bytes, its content is undefined
+	 */
+	public static byte[] acquire() {
+		byte[] buffer = POOL.poll();
+		if(null == buffer){
+			return new byte[BUFFER_SIZE];
+		}
+		POOLED.decrementAndGet();
+		return buffer;
+	}
+	
+	/**
+	 * Give a buffer back to the pool, it must not be used by the caller any more
+	 * 
+	 * @param buffer	buffer from {@link #acquire()}
+	 */
+	public static void release(byte[] buffer) {
+		if(null == buffer || buffer.length != BUFFER_SIZE){
+			return;
+		}
+		if(POOLED.incrementAndGet() > MAX_POOLED){
+			POOLED.decrementAndGet();
+			return;
+		}
+		POOL.offer(buffer);
+	}
+	
+	/**
+	 * @return	Return a buffer of CHAR_BUFFER_SIZE chars, its content is undefined
+	 */
+	public static char[] acquireChars() {
+		char[] buffer = CHAR_POOL.poll();
+		if(null == buffer){
+			return new char[CHAR_BUFFER_SIZE];
+		}
+		CHARS_POOLED.decrementAndGet();
+		return buffer;
+	}
+	
+	/**
+	 * Give a char buffer back to the pool, it must not be used by the caller any more
+	 * 
+	 * @param buffer	buffer from {@link #acquireChars()}
+	 */
+	public static void releaseChars(char[] buffer) {
+		if(null == buffer || buffer.length != CHAR_BUFFER_SIZE){
+			return;
+		}
+		if(CHARS_POOLED.incrementAndGet() > MAX_POOLED){
+			CHARS_POOLED.decrementAndGet();
+			return;
+		}
+		CHAR_POOL.offer(buffer);
+	}
+	
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Content coding negotiation of responses
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class Compression {
+	
+	// compressing these again only costs cpu
+	private static final String[] COMPRESSED_TYPES = { "image/", "video/", "audio/", "font/woff", 
+		"application/zip", "application/gzip", "application/x-gzip", "application/octet-stream", 
+		"application/pdf", "application/x-rar", "application/x-7z" };
+	
+	private Compression() {
+	}
+	
+	/**
+	 * @param request	http request
+	 * @return			Return the accepted coding, gzip or deflate, null if the client accepts neither
+	 */
+	public static String negotiate(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader("Accept-Encoding");
+		if(null == acceptEncoding){
+			return null;
+		}
+		if(accepts(acceptEncoding, "gzip")){
+			return "gzip";
+		}
+		if(accepts(acceptEncoding, "deflate")){
+			return "deflate";
+		}
+		return null;
+	}
+	
+	/**
+	 * @param acceptEncoding	Accept-Encoding header
+	 * @param coding			content coding
+	 * @return					Return whether the coding is accepted with a non-zero quality
+	 */
+	public static boolean accepts(String acceptEncoding, String coding) {
+		for(String token : acceptEncoding.split(",")){
+			int semicolon = token.indexOf(';');
+			String name = (semicolon < 0 ? token : token.substring(0, semicolon)).trim();
+			if(!name.equalsIgnoreCase(coding)){
+				continue;
+			}
+			if(semicolon < 0){
+				return true;
+			}
+			String param = token.substring(semicolon + 1).trim();
+			if(param.startsWith("q=")){
+				try {
+					return Float.parseFloat(param.substring(2).trim()) > 0;
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @param contentType	content type of the response
+	 * @return				Return whether compressing the content is worth it
+	 */
+	public static boolean isCompressible(String contentType) {
+		if(null == contentType){
+			return false;
+		}
+		String type = contentType.toLowerCase();
+		if(type.startsWith("image/svg")){
+			return true;
+		}
+		for(String compressed : COMPRESSED_TYPES){
+			if(type.startsWith(compressed)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+}
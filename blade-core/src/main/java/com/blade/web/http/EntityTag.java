@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http;
+
+/**
+ * Entity tags of responses
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public final class EntityTag {
+	
+	public static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	
+	public static final long FNV_PRIME = 0x100000001b3L;
+	
+	private EntityTag() {
+	}
+	
+	/**
+	 * @param hash		hash of the body
+	 * @param length	length of the body
+	 * @return			Return a weak entity tag, the body may be sent with different content codings
+	 */
+	public static String weak(long hash, long length) {
+		return "W/\"" + Long.toHexString(hash) + "-" + Long.toHexString(length) + "\"";
+	}
+	
+	/**
+	 * @param version	version key of the content
+	 * @return			Return a weak entity tag of the version
+	 */
+	public static String weak(String version) {
+		long hash = FNV_OFFSET;
+		for(int i = 0, len = version.length(); i < len; i++){
+			hash = (hash ^ version.charAt(i)) * FNV_PRIME;
+		}
+		return "W/\"v" + Long.toHexString(hash) + "\"";
+	}
+	
+	/**
+	 * @param ifNoneMatch	If-None-Match header
+	 * @param etag			current entity tag
+	 * @return				Return whether one of the tags matches, weak comparison
+	 */
+	public static boolean matches(String ifNoneMatch, String etag) {
+		if(etag.startsWith("W/")){
+			etag = etag.substring(2);
+		}
+		for(String token : ifNoneMatch.split(",")){
+			String tag = token.trim();
+			if(tag.startsWith("W/")){
+				tag = tag.substring(2);
+			}
+			if(tag.equals("*") || tag.equals(etag)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+}
@@ -24,21 +24,39 @@ package com.blade.web.http;
 public class HttpException extends RuntimeException {
 
 	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Status sent for the exception, 0 when it is an internal error
+	 */
+	private final int status;
 
 	public HttpException() {
 		super();
+		this.status = 0;
+	}
+	
+	public HttpException(int status, String message, Throwable throwable) {
+		super(message, throwable);
+		this.status = status;
 	}
 
 	public HttpException(String message, Throwable throwable) {
 		super(message, throwable);
+		this.status = 0;
 	}
 
 	public HttpException(String message) {
 		super(message);
+		this.status = 0;
 	}
 
 	public HttpException(Throwable throwable) {
 		super(throwable);
+		this.status = 0;
+	}
+	
+	public int getStatus() {
+		return status;
 	}
 
 }
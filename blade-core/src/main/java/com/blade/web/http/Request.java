@@ -23,9 +23,12 @@ import javax.servlet.ServletContext;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 
+import blade.kit.json.JsonValue;
+
 import com.blade.route.Route;
 import com.blade.web.http.wrapper.Session;
 import com.blade.web.multipart.FileItem;
+import com.blade.web.multipart.MultipartStreamHandler;
 
 /**
  * HTTP Request
@@ -40,8 +43,19 @@ public interface Request {
 	 */
 	HttpServletRequest raw();
 	
+	/**
+	 * Switch the URL parameters to those of a route or interceptor about to run, e.g:/user/23
+	 * The parameters of the matched route are filled by the route matcher, 
+	 * an interceptor gets its own parameters parsed from the request path.
+	 * 
+	 * @param route	route object
+	 */
+	void initPathParams(Route route);
+	
 	/**
 	 * URL parameters on the initial route, e.g:/user/23
+	 * The route path is compiled on every call, prefer {@link #initPathParams(Route)}.
+	 * 
 	 * @param routePath	Route URL
 	 */
 	void initPathParams(String routePath);
@@ -312,6 +326,14 @@ public interface Request {
 	 */
 	FileItem[] files();
 	
+	/**
+	 * Read a multipart body part by part as it arrives, file parts are handed over as streams. 
+	 * The parts are not kept, files and query do not see them afterwards.
+	 * 
+	 * @param handler	receive the form items and the file streams
+	 */
+	void parts(MultipartStreamHandler handler);
+	
 	/**
 	 * @return	Return request body
 	 */
@@ -337,6 +359,37 @@ public interface Request {
 		String asString();
 		InputStream asInputStream();
 		byte[] asByte();
+		
+		/**
+		 * Parse a JSON body into a bean, straight from the input stream
+		 * 
+		 * @param type	bean type
+		 * @return		Return the bean
+		 */
+		<T> T as(Class<T> type);
+		
+		/**
+		 * @return	Return the JSON body, parsed straight from the input stream
+		 */
+		JsonValue asJson();
+		
+		/**
+		 * Read the body without blocking a thread. On an asynchronous request the body is read 
+		 * as data arrives and the request stays open until the callback returns, otherwise the 
+		 * body is read at once and the callback is called before this method returns.
+		 * 
+		 * @param callback	called with the whole body
+		 */
+		void read(BodyCallback callback);
+	}
+	
+	/**
+	 * Callback of a non-blocking body read, it is called on a container thread and should not block
+	 * @author biezhi
+	 */
+	interface BodyCallback {
+		void onBody(byte[] body);
+		void onError(Throwable cause);
 	}
 	
 }
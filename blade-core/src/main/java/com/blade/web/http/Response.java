@@ -16,7 +16,9 @@
 package com.blade.web.http;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletResponse;
@@ -197,11 +199,36 @@ public interface Response {
 	 */
 	Response xml(String output);
 	
+	/**
+	 * Write bytes with their Content-Length, the content type is application/octet-stream if not set
+	 * 
+	 * @param bytes	response body
+	 * @return		Return Response
+	 */
+	Response bytes(byte[] bytes);
+	
+	/**
+	 * Write the remaining bytes of a buffer with their Content-Length, the buffer position is not changed
+	 * 
+	 * @param buffer	response body
+	 * @return			Return Response
+	 */
+	Response bytes(ByteBuffer buffer);
+	
 	/**
 	 * @return	Return OutputStream
 	 * @throws IOException	IOException
 	 */
 	OutputStream outputStream() throws IOException;
+	
+	/**
+	 * Write a stream to the client and close it. On an asynchronous request the data is written 
+	 * only when the client can accept it, so a slow client does not hold a worker thread.
+	 * 
+	 * @param input	response body
+	 * @return		Return Response
+	 */
+	Response write(InputStream input);
 
 	/**
 	 * Render view 
@@ -233,6 +260,22 @@ public interface Response {
 	 */
 	void go(String path);
 	
+	/**
+	 * Mark the response as cacheable, the compressed body is kept and reused when the same body is sent again
+	 * 
+	 * @param cacheable	cacheable
+	 * @return			Return Response
+	 */
+	Response cacheable(boolean cacheable);
+	
+	/**
+	 * Send a weak ETag of a version key of the content, call it before loading or rendering the content
+	 * 
+	 * @param version	version key of the content, e.g. the update time of a record
+	 * @return			Return true when the client has the version, the response is sent as 304 and complete
+	 */
+	boolean etag(String version);
+	
 	/**
 	 * @return	Return Response is Write
 	 */
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+import blade.kit.log.Logger;
+
+import com.blade.web.http.AsyncCompletion;
+import com.blade.web.http.BufferPool;
+import com.blade.web.http.Request.BodyCallback;
+
+/**
+ * Read the request body without blocking, the data is collected in pooled buffers
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class AsyncBodyReader implements ReadListener {
+	
+	private static final Logger LOGGER = Logger.getLogger(AsyncBodyReader.class);
+	
+	private final ServletInputStream input;
+	
+	private final BodyCallback callback;
+	
+	private final AsyncCompletion completion;
+	
+	private final List<byte[]> buffers = new ArrayList<byte[]>();
+	
+	private byte[] current = BufferPool.acquire();
+	
+	private int position;
+	
+	private int length;
+	
+	AsyncBodyReader(ServletInputStream input, BodyCallback callback, AsyncCompletion completion) {
+		this.input = input;
+		this.callback = callback;
+		this.completion = completion;
+	}
+	
+	@Override
+	public void onDataAvailable() throws IOException {
+		while (input.isReady() && !input.isFinished()) {
+			if(position == current.length){
+				buffers.add(current);
+				current = BufferPool.acquire();
+				position = 0;
+			}
+			int len = input.read(current, position, current.length - position);
+			if(len < 0){
+				break;
+			}
+			position += len;
+			length += len;
+		}
+	}
+	
+	@Override
+	public void onAllDataRead() throws IOException {
+		byte[] body = new byte[length];
+		int offset = 0;
+		for(byte[] buffer : buffers){
+			System.arraycopy(buffer, 0, body, offset, buffer.length);
+			offset += buffer.length;
+		}
+		System.arraycopy(current, 0, body, offset, position);
+		recycle();
+		try {
+			callback.onBody(body);
+		} catch (Exception e) {
+			LOGGER.error("request body callback error", e);
+		} finally {
+			completion.release();
+		}
+	}
+	
+	@Override
+	public void onError(Throwable t) {
+		recycle();
+		try {
+			callback.onError(t);
+		} finally {
+			completion.release();
+		}
+	}
+	
+	private void recycle() {
+		for(byte[] buffer : buffers){
+			BufferPool.release(buffer);
+		}
+		buffers.clear();
+		BufferPool.release(current);
+		current = null;
+	}
+	
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import blade.kit.IOKit;
+import blade.kit.log.Logger;
+
+import com.blade.web.http.AsyncCompletion;
+import com.blade.web.http.BufferPool;
+
+/**
+ * Write a response body from a stream whenever the client can accept more data
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class AsyncBodyWriter implements WriteListener {
+	
+	private static final Logger LOGGER = Logger.getLogger(AsyncBodyWriter.class);
+	
+	private final InputStream input;
+	
+	private final ServletOutputStream output;
+	
+	private final AsyncCompletion completion;
+	
+	// the container may keep a reference to a pending write, so the buffer is owned until the end
+	private byte[] buffer = BufferPool.acquire();
+	
+	private boolean finished;
+	
+	AsyncBodyWriter(InputStream input, ServletOutputStream output, AsyncCompletion completion) {
+		this.input = input;
+		this.output = output;
+		this.completion = completion;
+	}
+	
+	@Override
+	public void onWritePossible() throws IOException {
+		while (!finished && output.isReady()) {
+			int len = input.read(buffer);
+			if(len < 0){
+				finish();
+				return;
+			}
+			output.write(buffer, 0, len);
+		}
+	}
+	
+	@Override
+	public void onError(Throwable t) {
+		LOGGER.warn("write response error: " + t.getMessage());
+		finish();
+	}
+	
+	private void finish() {
+		if(finished){
+			return;
+		}
+		finished = true;
+		IOKit.closeQuietly(input);
+		BufferPool.release(buffer);
+		buffer = null;
+		completion.release();
+	}
+	
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.util.AbstractSet;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Live read-only view of the attribute names of a request
+ * <p>
+ * Attributes change while a request is handled, e.g. a render puts the model into them, 
+ * so the names are read from the request on every use instead of being copied.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class AttributeNames extends AbstractSet<String> {
+	
+	private final HttpServletRequest request;
+	
+	AttributeNames(HttpServletRequest request) {
+		this.request = request;
+	}
+	
+	@Override
+	public boolean contains(Object name) {
+		return name instanceof String && null != request.getAttribute((String) name);
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return !request.getAttributeNames().hasMoreElements();
+	}
+	
+	@Override
+	public int size() {
+		int size = 0;
+		for(Enumeration<String> names = request.getAttributeNames(); names.hasMoreElements(); names.nextElement()){
+			size++;
+		}
+		return size;
+	}
+	
+	@Override
+	public Iterator<String> iterator() {
+		final Enumeration<String> names = request.getAttributeNames();
+		return new Iterator<String>() {
+			
+			@Override
+			public boolean hasNext() {
+				return names.hasMoreElements();
+			}
+			
+			@Override
+			public String next() {
+				if(!names.hasMoreElements()){
+					throw new NoSuchElementException();
+				}
+				return names.nextElement();
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+}
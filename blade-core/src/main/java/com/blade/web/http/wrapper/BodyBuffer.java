@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import com.blade.web.http.BufferPool;
+import com.blade.web.http.EntityTag;
+
+/**
+ * Response body held in pooled buffers
+ * <p>
+ * Text is encoded once, straight into pooled chunks when the charset is UTF-8, so the exact 
+ * Content-Length is known before anything is written and no per-response byte array is allocated.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class BodyBuffer {
+	
+	private byte[][] chunks = new byte[2][];
+	
+	// bytes used in each full chunk
+	private int[] used = new int[2];
+	
+	private int size;
+	
+	// bytes used in the last chunk
+	private int position;
+	
+	private int length;
+	
+	// chunks that did not come from the pool, e.g. a wrapped array
+	private boolean pooled = true;
+	
+	private BodyBuffer() {
+	}
+	
+	/**
+	 * Encode text in the charset
+	 * 
+	 * @param text		text
+	 * @param charset	charset name
+	 * @return			return the body
+	 * @throws UnsupportedEncodingException	the charset is not supported
+	 */
+	static BodyBuffer encode(String text, String charset) throws UnsupportedEncodingException {
+		BodyBuffer body = new BodyBuffer();
+		if(null == charset || "UTF-8".equalsIgnoreCase(charset) || "UTF8".equalsIgnoreCase(charset)){
+			body.writeUtf8(text);
+		} else {
+			byte[] bytes = text.getBytes(charset);
+			body.write(bytes, 0, bytes.length);
+		}
+		return body;
+	}
+	
+	/**
+	 * Wrap an array without copying it
+	 */
+	static BodyBuffer wrap(byte[] bytes) {
+		BodyBuffer body = new BodyBuffer();
+		body.pooled = false;
+		body.chunks[0] = bytes;
+		body.size = 1;
+		body.position = bytes.length;
+		body.length = bytes.length;
+		return body;
+	}
+	
+	/**
+	 * Copy the remaining bytes of a buffer, its position is not changed
+	 */
+	static BodyBuffer copy(ByteBuffer buffer) {
+		BodyBuffer body = new BodyBuffer();
+		ByteBuffer source = buffer.duplicate();
+		while (source.hasRemaining()) {
+			byte[] chunk = body.writable();
+			int len = Math.min(source.remaining(), chunk.length - body.position);
+			source.get(chunk, body.position, len);
+			body.position += len;
+			body.length += len;
+		}
+		return body;
+	}
+	
+	int length() {
+		return length;
+	}
+	
+	void writeTo(OutputStream output) throws IOException {
+		for(int i = 0; i < size; i++){
+			output.write(chunks[i], 0, i == size - 1 ? position : used[i]);
+		}
+	}
+	
+	/**
+	 * @return	Return the 64-bit FNV-1a hash of the body
+	 */
+	long hash() {
+		long hash = EntityTag.FNV_OFFSET;
+		for(int i = 0; i < size; i++){
+			byte[] chunk = chunks[i];
+			for(int j = 0, len = i == size - 1 ? position : used[i]; j < len; j++){
+				hash = (hash ^ (chunk[j] & 0xff)) * EntityTag.FNV_PRIME;
+			}
+		}
+		return hash;
+	}
+	
+	byte[] toByteArray() {
+		if(size == 1 && !pooled && position == chunks[0].length){
+			return chunks[0];
+		}
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		for(int i = 0; i < size; i++){
+			int len = i == size - 1 ? position : used[i];
+			System.arraycopy(chunks[i], 0, bytes, offset, len);
+			offset += len;
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Give the chunks back to the pool, the body must not be used any more
+	 */
+	void release() {
+		if(pooled){
+			for(int i = 0; i < size; i++){
+				BufferPool.release(chunks[i]);
+			}
+		}
+		chunks = null;
+		size = 0;
+	}
+	
+	private void write(byte[] bytes, int off, int len) {
+		while (len > 0) {
+			byte[] chunk = writable();
+			int count = Math.min(len, chunk.length - position);
+			System.arraycopy(bytes, off, chunk, position, count);
+			position += count;
+			length += count;
+			off += count;
+			len -= count;
+		}
+	}
+	
+	private void writeUtf8(String text) {
+		byte[] chunk = writable();
+		int pos = position;
+		for(int i = 0, len = text.length(); i < len; i++){
+			// the longest sequence is 4 bytes
+			if(chunk.length - pos < 4){
+				length += pos - position;
+				position = pos;
+				chunk = next();
+				pos = 0;
+			}
+			char c = text.charAt(i);
+			if(c < 0x80){
+				chunk[pos++] = (byte) c;
+			} else if(c < 0x800){
+				chunk[pos++] = (byte) (0xc0 | (c >> 6));
+				chunk[pos++] = (byte) (0x80 | (c & 0x3f));
+			} else if(Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(text.charAt(i + 1))){
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				chunk[pos++] = (byte) (0xf0 | (codePoint >> 18));
+				chunk[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+				chunk[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+				chunk[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+			} else if(c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE){
+				// unpaired surrogate, same replacement as String.getBytes
+				chunk[pos++] = (byte) '?';
+			} else {
+				chunk[pos++] = (byte) (0xe0 | (c >> 12));
+				chunk[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				chunk[pos++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		length += pos - position;
+		position = pos;
+	}
+	
+	/**
+	 * @return	Return a chunk with free space
+	 */
+	private byte[] writable() {
+		if(size == 0 || position == chunks[size - 1].length){
+			return next();
+		}
+		return chunks[size - 1];
+	}
+	
+	private byte[] next() {
+		if(size > 0){
+			used[size - 1] = position;
+		}
+		if(size == chunks.length){
+			int capacity = chunks.length * 2;
+			byte[][] grown = new byte[capacity][];
+			System.arraycopy(chunks, 0, grown, 0, size);
+			chunks = grown;
+			int[] grownUsed = new int[capacity];
+			System.arraycopy(used, 0, grownUsed, 0, size);
+			used = grownUsed;
+		}
+		byte[] chunk = BufferPool.acquire();
+		chunks[size++] = chunk;
+		position = 0;
+		return chunk;
+	}
+	
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import com.blade.web.http.BufferPool;
+
+/**
+ * Reader decoding a request body from a pooled byte buffer, it fails once the body is larger than a limit
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class BodyReader extends Reader {
+	
+	private final InputStream input;
+	
+	private final CharsetDecoder decoder;
+	
+	private final long limit;
+	
+	private byte[] bytes = BufferPool.acquire();
+	
+	private final ByteBuffer in = ByteBuffer.wrap(bytes);
+	
+	private long count;
+	
+	private boolean eof;
+	
+	private boolean finished;
+	
+	// second char of a surrogate pair read one char at a time
+	private int pending = -1;
+	
+	/**
+	 * @param input		request body
+	 * @param charset	charset of the body
+	 * @param limit		max bytes of the body, -1 is no limit
+	 */
+	BodyReader(InputStream input, String charset, long limit) {
+		this.input = input;
+		this.decoder = Charset.forName(charset).newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.limit = limit;
+		in.limit(0);
+	}
+	
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if(len == 0){
+			return 0;
+		}
+		if(pending != -1){
+			cbuf[off] = (char) pending;
+			pending = -1;
+			return 1;
+		}
+		if(len == 1){
+			// a surrogate pair does not fit, decode into two chars and keep the second
+			char[] pair = new char[2];
+			int n = read(pair, 0, 2);
+			if(n == 2){
+				pending = pair[1];
+			}
+			if(n > 0){
+				cbuf[off] = pair[0];
+				return 1;
+			}
+			return n;
+		}
+		CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+		for(;;){
+			if(!finished){
+				CoderResult result = decoder.decode(in, out, eof);
+				if(eof && result.isUnderflow()){
+					decoder.flush(out);
+					finished = true;
+				}
+			}
+			int n = out.position() - off;
+			if(n > 0){
+				return n;
+			}
+			if(finished){
+				return -1;
+			}
+			fill();
+		}
+	}
+	
+	private void fill() throws IOException {
+		in.compact();
+		int n = input.read(bytes, in.position(), in.remaining());
+		if(n == -1){
+			eof = true;
+		} else {
+			count += n;
+			if(limit >= 0 && count > limit){
+				throw new TooLargeException("the request body exceeds the limit of " + limit + " bytes");
+			}
+			in.position(in.position() + n);
+		}
+		in.flip();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(null != bytes){
+			BufferPool.release(bytes);
+			bytes = null;
+		}
+	}
+	
+	/**
+	 * The body is larger than the limit
+	 */
+	static class TooLargeException extends IOException {
+		
+		private static final long serialVersionUID = 1L;
+		
+		TooLargeException(String message) {
+			super(message);
+		}
+	}
+	
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.blade.Blade;
+
+/**
+ * Least recently used cache of compressed bodies of cacheable responses
+ * <p>
+ * An entry is reused only when the new body is byte for byte the same, comparing is much cheaper than deflating.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class CompressedCache {
+	
+	private final LinkedHashMap<String, byte[][]> entries = new LinkedHashMap<String, byte[][]>(64, 0.75f, true);
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	private final long maxBytes;
+	
+	private long bytes;
+	
+	private CompressedCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+	
+	static CompressedCache me() {
+		return Holder.CACHE;
+	}
+	
+	/**
+	 * @param key	response key
+	 * @param body	uncompressed body
+	 * @return		Return the compressed body, null if it is not cached
+	 */
+	byte[] get(String key, byte[] body) {
+		byte[][] entry;
+		lock.lock();
+		try {
+			entry = entries.get(key);
+		} finally {
+			lock.unlock();
+		}
+		if(null != entry && Arrays.equals(entry[0], body)){
+			return entry[1];
+		}
+		return null;
+	}
+	
+	void put(String key, byte[] body, byte[] compressed) {
+		long size = body.length + compressed.length;
+		if(size > maxBytes){
+			return;
+		}
+		lock.lock();
+		try {
+			byte[][] old = entries.put(key, new byte[][]{ body, compressed });
+			if(null != old){
+				bytes -= old[0].length + old[1].length;
+			}
+			bytes += size;
+			Iterator<Map.Entry<String, byte[][]>> it = entries.entrySet().iterator();
+			while (bytes > maxBytes && it.hasNext()) {
+				byte[][] eldest = it.next().getValue();
+				bytes -= eldest[0].length + eldest[1].length;
+				it.remove();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private static class Holder {
+		private static final CompressedCache CACHE = new CompressedCache(Blade.me().config().getCompressCacheSize());
+	}
+	
+}
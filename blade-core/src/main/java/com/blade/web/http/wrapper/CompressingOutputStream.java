@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.blade.web.http.BufferPool;
+import com.blade.web.http.Compression;
+
+/**
+ * Body stream of a response whose length is not known up front, such as a rendered view
+ * <p>
+ * The first bytes are buffered up to the threshold. A body that ends within the threshold is sent 
+ * with its Content-Length, a larger one is compressed as it is written.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class CompressingOutputStream extends OutputStream {
+	
+	private final HttpServletResponse response;
+	
+	private final String encoding;
+	
+	private final int level;
+	
+	private final int threshold;
+	
+	private byte[] buffer;
+	
+	private int count;
+	
+	private OutputStream output;
+	
+	private DeflateOutputStream deflate;
+	
+	/**
+	 * @param response	http response
+	 * @param encoding	accepted coding, null to never compress
+	 * @param threshold	min size of a compressed body
+	 * @param level		compression level
+	 */
+	CompressingOutputStream(HttpServletResponse response, String encoding, int threshold, int level) {
+		this.response = response;
+		this.encoding = encoding;
+		this.level = level;
+		this.buffer = BufferPool.acquire();
+		this.threshold = Math.min(threshold, buffer.length);
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[]{ (byte) b }, 0, 1);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if(null != output){
+			output.write(b, off, len);
+			return;
+		}
+		if(count + len <= threshold){
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+			return;
+		}
+		commit(true);
+		output.write(b, off, len);
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		// a flush must not decide the coding before the threshold is reached
+		if(null != output){
+			output.flush();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(null == buffer){
+			return;
+		}
+		try {
+			if(null == output){
+				// nothing written, the view may have been forwarded
+				if(count == 0){
+					return;
+				}
+				commit(false);
+			}
+			if(null != deflate){
+				deflate.finish();
+			}
+			output.flush();
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Return the pooled buffer and Deflater without writing anything, such as when the view failed.
+	 * Nothing happens after close.
+	 */
+	void release() {
+		if(null != deflate){
+			deflate.release();
+		}
+		if(null != buffer){
+			BufferPool.release(buffer);
+			buffer = null;
+		}
+	}
+	
+	private void commit(boolean large) throws IOException {
+		// a view without content type is text
+		String contentType = response.getContentType();
+		boolean compressible = (null == contentType || Compression.isCompressible(contentType)) 
+				&& null == response.getHeader("Content-Encoding");
+		if(compressible){
+			response.setHeader("Vary", "Accept-Encoding");
+		}
+		if(large && compressible && null != encoding){
+			response.setHeader("Content-Encoding", encoding);
+			deflate = new DeflateOutputStream(response.getOutputStream(), encoding, level);
+			output = deflate;
+		} else {
+			if(!large){
+				response.setContentLength(count);
+			}
+			output = response.getOutputStream();
+		}
+		output.write(buffer, 0, count);
+	}
+	
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.blade.web.http.BufferPool;
+
+/**
+ * Compressing output stream of a response body
+ * <p>
+ * Deflates with a pooled Deflater, and writes the gzip header and trailer when the coding is gzip.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class DeflateOutputStream extends OutputStream {
+	
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+	
+	private final OutputStream output;
+	
+	private final DeflaterPool pool;
+	
+	private Deflater deflater;
+	
+	private final CRC32 crc;
+	
+	private byte[] buffer = BufferPool.acquire();
+	
+	DeflateOutputStream(OutputStream output, String encoding, int level) throws IOException {
+		this.output = output;
+		this.pool = DeflaterPool.of(encoding);
+		this.deflater = pool.acquire(level);
+		if(pool == DeflaterPool.GZIP){
+			this.crc = new CRC32();
+			try {
+				output.write(GZIP_HEADER);
+			} catch (IOException e) {
+				release();
+				throw e;
+			}
+		} else {
+			this.crc = null;
+		}
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[]{ (byte) b }, 0, 1);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if(len == 0){
+			return;
+		}
+		if(null != crc){
+			crc.update(b, off, len);
+		}
+		deflater.setInput(b, off, len);
+		while (!deflater.needsInput()) {
+			deflate();
+		}
+	}
+	
+	/**
+	 * Finish the compressed data and return the Deflater to the pool, the underlying stream stays open
+	 * 
+	 * @throws IOException	IOException
+	 */
+	void finish() throws IOException {
+		if(null == deflater){
+			return;
+		}
+		try {
+			deflater.finish();
+			while (!deflater.finished()) {
+				deflate();
+			}
+			if(null != crc){
+				writeInt((int) crc.getValue());
+				writeInt(deflater.getTotalIn());
+			}
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Return the Deflater and the buffer to their pools without finishing, such as when the client went away.
+	 * Nothing happens if they were returned already.
+	 */
+	void release() {
+		if(null != deflater){
+			pool.release(deflater);
+			deflater = null;
+		}
+		if(null != buffer){
+			BufferPool.release(buffer);
+			buffer = null;
+		}
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		output.flush();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		finish();
+		output.close();
+	}
+	
+	private void deflate() throws IOException {
+		int len = deflater.deflate(buffer, 0, buffer.length);
+		if(len > 0){
+			output.write(buffer, 0, len);
+		}
+	}
+	
+	// gzip integers are little endian
+	private void writeInt(int i) throws IOException {
+		output.write(i & 0xff);
+		output.write((i >> 8) & 0xff);
+		output.write((i >> 16) & 0xff);
+		output.write((i >> 24) & 0xff);
+	}
+	
+}
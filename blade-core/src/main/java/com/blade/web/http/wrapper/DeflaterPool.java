@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.http.wrapper;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Pool of reusable Deflaters, creating a Deflater allocates native memory
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class DeflaterPool {
+	
+	private static final int MAX_POOLED = 64;
+	
+	/**
+	 * Raw deflate, wrapped with a gzip header and trailer by the caller
+	 */
+	static final DeflaterPool GZIP = new DeflaterPool(true);
+	
+	/**
+	 * Deflate with the zlib wrapper, the "deflate" content coding
+	 */
+	static final DeflaterPool DEFLATE = new DeflaterPool(false);
+	
+	private final ConcurrentLinkedQueue<Deflater> pool = new ConcurrentLinkedQueue<Deflater>();
+	
+	private final AtomicInteger pooled = new AtomicInteger();
+	
+	private final boolean nowrap;
+	
+	private DeflaterPool(boolean nowrap) {
+		this.nowrap = nowrap;
+	}
+	
+	static DeflaterPool of(String encoding) {
+		return "gzip".equals(encoding) ? GZIP : DEFLATE;
+	}
+	
+	Deflater acquire(int level) {
+		Deflater deflater = pool.poll();
+		if(null == deflater){
+			deflater = new Deflater(level, nowrap);
+		} else {
+			pooled.decrementAndGet();
+			deflater.setLevel(level);
+		}
+		return deflater;
+	}
+	
+	/**
+	 * @return	Return the number of idle Deflaters in the pool
+	 */
+	int size() {
+		return pooled.get();
+	}
+	
+	void release(Deflater deflater) {
+		if(pooled.incrementAndGet() > MAX_POOLED){
+			pooled.decrementAndGet();
+			deflater.end();
+			return;
+		}
+		deflater.reset();
+		pool.offer(deflater);
+	}
+	
+}
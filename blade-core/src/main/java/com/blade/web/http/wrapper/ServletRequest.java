@@ -24,30 +24,38 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 
 import com.blade.Blade;
+import com.blade.loader.Config;
 import com.blade.route.Route;
+import com.blade.web.http.AsyncCompletion;
+import com.blade.web.http.BufferPool;
 import com.blade.web.http.HttpException;
 import com.blade.web.http.HttpMethod;
+import com.blade.web.http.HttpStatus;
 import com.blade.web.http.Path;
 import com.blade.web.http.Request;
 import com.blade.web.multipart.FileItem;
 import com.blade.web.multipart.Multipart;
 import com.blade.web.multipart.MultipartException;
 import com.blade.web.multipart.MultipartHandler;
+import com.blade.web.multipart.MultipartStreamHandler;
+import com.blade.web.multipart.SizeLimitExceededException;
 
 import blade.kit.IOKit;
+import blade.kit.json.JSONKit;
+import blade.kit.json.Json;
+import blade.kit.json.JsonValue;
+import blade.kit.json.ParseException;
 import blade.kit.text.HTMLFilter;
 
 /**
@@ -64,11 +72,36 @@ public class ServletRequest implements Request {
 	
 	private HttpServletRequest request;
 	
-	protected Map<String,String> pathParams = new HashMap<String,String>();
+	private static final FileItem[] NO_FILES = new FileItem[0];
 	
-	private Map<String,String> multipartParams = new HashMap<String,String>();
+	// parameters of the matched route, filled by the route matcher for every request
+	private final Map<String,String> routeParams = new HashMap<String,String>(4);
+	
+	// parameters of the route or interceptor running now
+	protected Map<String,String> pathParams = routeParams;
+	
+	// parameters of the interceptor running now, parsed again for each interceptor
+	private Map<String,String> interceptorParams;
+	
+	// views below are created on first use, null until then
+	
+	private Map<String,String> multipartParams;
 
-	private List<FileItem> files = new ArrayList<FileItem>();
+	private List<FileItem> files;
+	
+	// whether the multipart body has been read, by parsing it or by parts()
+	private boolean multipartRead;
+	
+	// failure of reading the multipart body, the body can not be read again
+	private HttpException multipartError;
+	
+	private Map<String,String> querys;
+	
+	private Map<String,String> headers;
+	
+	private Map<String,Cookie> cookies;
+	
+	private Set<String> attributes;
 	
 	private Session session = null;
 	
@@ -80,61 +113,114 @@ public class ServletRequest implements Request {
 	}
 	
 	public ServletRequest init() throws IOException, MultipartException {
-		// retrieve multipart/form-data parameters
-		if (Multipart.isMultipartContent(request)) {
-			Multipart multipart = new Multipart();
-			multipart.parse(request, new MultipartHandler() {
-
-				@Override
-				public void handleFormItem(String name, String value) {
-					multipartParams.put( name, value );
-				}
+		// multipart/form-data parameters are parsed on first use
+		return this;
+	}
+	
+	/**
+	 * Parse a multipart body on first use, a request rejected before never reads its body 
+	 * and a client waiting for 100 Continue never sends it
+	 */
+	private void parseMultipart() {
+		if (multipartRead) {
+			if (null != multipartError) {
+				throw multipartError;
+			}
+			return;
+		}
+		multipartRead = true;
+		if (!Multipart.isMultipartContent(request)) {
+			return;
+		}
+		multipartParams = new HashMap<String,String>();
+		files = new ArrayList<FileItem>();
+		readMultipart(new MultipartHandler() {
 
-				@Override
-				public void handleFileItem(String name, FileItem fileItem) {
-					files.add(fileItem);
-				}
+			@Override
+			public void handleFormItem(String name, String value) {
+				multipartParams.put( name, value );
+			}
+
+			@Override
+			public void handleFileItem(String name, FileItem fileItem) {
+				files.add(fileItem);
+			}
 
-			});
+		}, null);
+	}
+	
+	/**
+	 * Read the multipart body once, a failure is kept and thrown again by every later read
+	 * 
+	 * @param handler			receives buffered parts, null when the parts are streamed
+	 * @param streamHandler		receives streamed parts
+	 */
+	private void readMultipart(MultipartHandler handler, MultipartStreamHandler streamHandler) {
+		multipartRead = true;
+		try {
+			if (null != handler) {
+				multipart().parse(request, handler);
+			} else {
+				multipart().parse(request, streamHandler);
+			}
+		} catch (IOException e) {
+			multipartError = new HttpException(e);
+		} catch (MultipartException e) {
+			multipartError = new HttpException(e);
+		} catch (RuntimeException e) {
+			multipartError = e instanceof HttpException ? (HttpException) e : new HttpException(e);
+		}
+		if (null != multipartError) {
+			throw multipartError;
 		}
-		return this;
 	}
 	
 	private String join(String[] arr) {
-		String ret = "";
-		for (String item : arr) {
-			ret += "," + item;
+		if (arr.length == 1) {
+			return arr[0];
 		}
-		if (ret.length() > 0) {
-			ret = ret.substring(1);
+		StringBuilder ret = new StringBuilder();
+		for (int i = 0; i < arr.length; i++) {
+			if (i > 0) {
+				ret.append(',');
+			}
+			ret.append(arr[i]);
+		}
+		return ret.toString();
+	}
+	
+	private String multipartParam(String name) {
+		return null != multipartParams ? multipartParams.get(name) : null;
+	}
+	
+	@Override
+	public void initPathParams(Route route) {
+		if(route == this.route){
+			pathParams = routeParams;
+			return;
+		}
+		// an interceptor sees its own parameters and never changes the parameters of the route
+		if(null == interceptorParams){
+			interceptorParams = new HashMap<String,String>(4);
+		} else {
+			interceptorParams.clear();
+		}
+		pathParams = interceptorParams;
+		if(route.getParamNames().length > 0){
+			route.parsePathParams(relativePath(), interceptorParams);
 		}
-		return ret;
 	}
 	
 	@Override
 	public void initPathParams(String routePath) {
+		Route route = new Route();
+		route.setPath(Path.fixPath(routePath));
 		pathParams.clear();
-		
-		List<String> variables = getPathParam(routePath);
-		String regexPath = routePath.replaceAll(Path.VAR_REGEXP, Path.VAR_REPLACE);
-
-		Matcher matcher = Pattern.compile("(?i)" + regexPath).matcher(path());
-		matcher.matches();
-		
-		// start index at 1 as group(0) always stands for the entire expression
-		for (int i=1; i <= variables.size(); i++) {
-			String value = matcher.group(i);
-			pathParams.put(variables.get(i-1), value);
-		}
+		route.parsePathParams(relativePath(), pathParams);
 	}
 	
-	private List<String> getPathParam(String routePath) {
-		List<String> variables = new ArrayList<String>();
-		Matcher matcher = Pattern.compile(Path.VAR_REGEXP).matcher(routePath);
-		while (matcher.find()) {
-			variables.add(matcher.group(1));
-		}
-		return variables;
+	private String relativePath() {
+		return Path.getRelativePath(request.getRequestURI(), request.getContextPath());
 	}
 	
 	@Override
@@ -247,14 +333,23 @@ public class ServletRequest implements Request {
 
 	@Override
 	public Map<String, String> querys() {
-		Map<String,String> params = new HashMap<String,String>();
-
-		Map<String,String[]> requestParams = request.getParameterMap();
-		for (Map.Entry<String,String[]> entry : requestParams.entrySet()) {
-			params.put( entry.getKey(), join(entry.getValue()) );
+		if (null == querys) {
+			parseMultipart();
+			Map<String,String[]> requestParams = request.getParameterMap();
+			if (requestParams.isEmpty() && null == multipartParams) {
+				querys = Collections.emptyMap();
+				return querys;
+			}
+			Map<String,String> params = new HashMap<String,String>();
+			for (Map.Entry<String,String[]> entry : requestParams.entrySet()) {
+				params.put( entry.getKey(), join(entry.getValue()) );
+			}
+			if (null != multipartParams) {
+				params.putAll(multipartParams);
+			}
+			querys = Collections.unmodifiableMap(params);
 		}
-		params.putAll(multipartParams);
-		return Collections.unmodifiableMap(params);
+		return querys;
 	}
 
 	@Override
@@ -264,7 +359,8 @@ public class ServletRequest implements Request {
 		if (param != null) {
 			val = join(param);
 		} else {
-			val = multipartParams.get(name);
+			parseMultipart();
+			val = multipartParam(name);
 		}
 		if(null != val && blade.enableXSS()){
 			return HTMLFilter.htmlSpecialChars(val);
@@ -279,7 +375,8 @@ public class ServletRequest implements Request {
 		if (param != null) {
 			val = join(param);
 		} else {
-			val = multipartParams.get(name);
+			parseMultipart();
+			val = multipartParam(name);
 		}
 		if(null == val){
 			val = defaultValue;
@@ -386,12 +483,10 @@ public class ServletRequest implements Request {
 
 	@Override
 	public Set<String> attributes() {
-		Set<String> attrList = new HashSet<String>();
-        Enumeration<String> attributes = (Enumeration<String>) request.getAttributeNames();
-        while (attributes.hasMoreElements()) {
-            attrList.add(attributes.nextElement());
-        }
-        return attrList;
+		if (null == attributes) {
+			attributes = new AttributeNames(request);
+		}
+		return attributes;
 	}
 
 	@Override
@@ -419,14 +514,19 @@ public class ServletRequest implements Request {
 
 	@Override
 	public Map<String, Cookie> cookies() {
-		javax.servlet.http.Cookie[] servletCookies = request.getCookies();
-
-		Map<String,Cookie> cookies = new HashMap<String,Cookie>();
-		for (javax.servlet.http.Cookie c : servletCookies) {
-			cookies.put( c.getName(), map(c) );
+		if (null == cookies) {
+			javax.servlet.http.Cookie[] servletCookies = request.getCookies();
+			if (null == servletCookies) {
+				cookies = Collections.emptyMap();
+				return cookies;
+			}
+			Map<String,Cookie> map = new HashMap<String,Cookie>();
+			for (javax.servlet.http.Cookie c : servletCookies) {
+				map.put( c.getName(), map(c) );
+			}
+			cookies = Collections.unmodifiableMap(map);
 		}
-
-		return Collections.unmodifiableMap(cookies);
+		return cookies;
 	}
 	
 	private Cookie map(Cookie servletCookie) {
@@ -456,27 +556,19 @@ public class ServletRequest implements Request {
 	
 	@Override
 	public Cookie cookieRaw(String name) {
-		javax.servlet.http.Cookie[] servletCookies = request.getCookies();
-
-		if (servletCookies == null) {
-			return null;
-		}
-
-		for (javax.servlet.http.Cookie c : servletCookies) {
-			if (c.getName().equals(name)) {
-				return map(c);
-			}
-		}
-		return null;
+		return cookies().get(name);
 	}
 
 	@Override
 	public Map<String, String> headers() {
-		Enumeration<String> servletHeaders = request.getHeaderNames();
-		Map<String,String> headers = new HashMap<String,String>();
-		while(servletHeaders.hasMoreElements()) {
-			String headerName = servletHeaders.nextElement();
-			headers.put(headerName, request.getHeader(headerName));
+		if (null == headers) {
+			Enumeration<String> servletHeaders = request.getHeaderNames();
+			Map<String,String> map = new HashMap<String,String>();
+			while(servletHeaders.hasMoreElements()) {
+				String headerName = servletHeaders.nextElement();
+				map.put(headerName, request.getHeader(headerName));
+			}
+			headers = Collections.unmodifiableMap(map);
 		}
 		return headers;
 	}
@@ -497,13 +589,52 @@ public class ServletRequest implements Request {
 	
 	@Override
 	public FileItem[] files() {
-		FileItem[] fileParts = new FileItem[files.size()];
-		for (int i=0; i < files.size(); i++) {
-			fileParts[i] = files.get(i);
+		parseMultipart();
+		if (null == files || files.isEmpty()) {
+			return NO_FILES;
 		}
-		return fileParts;
+		return files.toArray(new FileItem[files.size()]);
 	}
 
+	@Override
+	public void parts(MultipartStreamHandler handler) {
+		if (!Multipart.isMultipartContent(request)) {
+			throw new HttpException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "The request is not multipart/form-data", null);
+		}
+		if (!multipartRead) {
+			readMultipart(null, handler);
+			return;
+		}
+		if (null != multipartError) {
+			throw multipartError;
+		}
+		try {
+			if (null == files) {
+				throw new HttpException("The multipart body has been read by parts");
+			}
+			// the body was parsed by files or query, the parts are replayed
+			for (Map.Entry<String,String> entry : multipartParams.entrySet()) {
+				handler.handleFormItem(entry.getKey(), entry.getValue());
+			}
+			for (FileItem fileItem : files) {
+				InputStream input = fileItem.getInputStream();
+				try {
+					handler.handleFileStream(fileItem.getName(), fileItem.getFileName(), fileItem.getContentType(), 
+							fileItem.getHeaders(), input);
+				} finally {
+					IOKit.closeQuietly(input);
+				}
+			}
+		} catch (IOException e) {
+			throw new HttpException(e);
+		}
+	}
+	
+	private Multipart multipart() {
+		Config config = blade.config();
+		return new Multipart(config.getMultipartThreshold(), config.getMultipartMaxFileSize(), config.getMultipartMaxRequestSize());
+	}
+	
 	@Override
 	public BodyParser body() {
 		return new BodyParser() {
@@ -544,13 +675,65 @@ public class ServletRequest implements Request {
 				}
 				return null;
 			}
+			
+			@Override
+			public <T> T as(Class<T> type) {
+				return JSONKit.toBean(asJson(), type);
+			}
+			
+			@Override
+			public JsonValue asJson() {
+				long maxBodySize = blade.config().getMaxBodySize();
+				if (maxBodySize >= 0 && request.getContentLengthLong() > maxBodySize) {
+					throw new HttpException(new SizeLimitExceededException("the request body of " 
+							+ request.getContentLengthLong() + " bytes exceeds the limit of " + maxBodySize + " bytes"));
+				}
+				String charset = request.getCharacterEncoding();
+				char[] buffer = BufferPool.acquireChars();
+				BodyReader reader = null;
+				try {
+					reader = new BodyReader(request.getInputStream(), null != charset ? charset : "UTF-8", maxBodySize);
+					return Json.parse(reader, buffer);
+				} catch (BodyReader.TooLargeException e) {
+					throw new HttpException(new SizeLimitExceededException(e.getMessage()));
+				} catch (ParseException e) {
+					throw new HttpException(HttpStatus.BAD_REQUEST, "Malformed JSON body: " + e.getMessage(), e);
+				} catch (IOException e) {
+					throw new HttpException(e);
+				} finally {
+					IOKit.closeQuietly(reader);
+					BufferPool.releaseChars(buffer);
+				}
+			}
+			
+			@Override
+			public void read(BodyCallback callback) {
+				AsyncCompletion completion = AsyncCompletion.of(request);
+				if(null == completion){
+					byte[] body;
+					try {
+						body = IOKit.toByteArray(request.getInputStream());
+					} catch (IOException e) {
+						callback.onError(e);
+						return;
+					}
+					callback.onBody(body);
+					return;
+				}
+				try {
+					ServletInputStream input = request.getInputStream();
+					completion.hold();
+					input.setReadListener(new AsyncBodyReader(input, callback, completion));
+				} catch (IOException e) {
+					throw new HttpException(e);
+				}
+			}
 		};
 	}
 
 	@Override
 	public void setRoute(Route route) {
 		this.route = route;
-		initPathParams(route.getPath());
 	}
 	
 	@Override
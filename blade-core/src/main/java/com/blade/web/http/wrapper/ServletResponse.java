@@ -15,24 +15,34 @@
  */
 package com.blade.web.http.wrapper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import blade.kit.Assert;
+import blade.kit.IOKit;
 
 import com.blade.Blade;
 import com.blade.context.BladeWebContext;
+import com.blade.loader.Config;
 import com.blade.render.ModelAndView;
 import com.blade.render.Render;
+import com.blade.web.http.AsyncCompletion;
+import com.blade.web.http.Compression;
+import com.blade.web.http.EntityTag;
 import com.blade.web.http.HttpException;
 import com.blade.web.http.HttpStatus;
 import com.blade.web.http.Path;
-import com.blade.web.http.Request;
 import com.blade.web.http.Response;
 
 /**
@@ -48,10 +58,36 @@ public class ServletResponse implements Response {
 	private boolean written = false;
 	
 	private Render render;
+	
+	private AsyncCompletion completion;
+	
+	private HttpServletRequest request;
+	
+	private boolean cacheable;
+	
+	/**
+	 * Whether the body is kept for the response cache
+	 */
+	private boolean capture;
+	
+	private byte[] captured;
+	
+	/**
+	 * Whether an ETag is hashed from the body
+	 */
+	private boolean autoETag;
+	
+	private boolean notModified;
 			
 	public ServletResponse(HttpServletResponse response, Render render) {
+		this(null, response, render, null);
+	}
+	
+	public ServletResponse(HttpServletRequest request, HttpServletResponse response, Render render, AsyncCompletion completion) {
+		this.request = request;
 		this.response = response;
 		this.render = render;
+		this.completion = completion;
 	}
 	
 	@Override
@@ -181,91 +217,236 @@ public class ServletResponse implements Response {
 
 	@Override
 	public Response text(String text) {
-		try {
-			response.setHeader("Cache-Control", "no-cache");
-    		response.setContentType("text/plain;charset=utf-8");
-			response.getWriter().print(text);
-			this.written = true;
-			return this;
-		} catch (IOException e) {
-			throw new HttpException(e);
-		}
+		response.setHeader("Cache-Control", "no-cache");
+		response.setContentType("text/plain;charset=utf-8");
+		writeBody(text);
+		return this;
 	}
 
 	@Override
 	public Response html(String html) {
-		try {
-			response.setHeader("Cache-Control", "no-cache");
-			response.setContentType("text/html;charset=utf-8");
-			
-			PrintWriter out = response.getWriter();
-			out.print(html);
-    		out.flush();
-    		out.close();
-    		
-    		this.written = true;
-			return this;
-		} catch (UnsupportedEncodingException e1) {
-			e1.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		
-		return null;
+		response.setHeader("Cache-Control", "no-cache");
+		response.setContentType("text/html;charset=utf-8");
+		writeBody(html);
+		return this;
 	}
 
 	@Override
 	public Response json(String json) {
-		Request request = BladeWebContext.request();
-		String userAgent = request.userAgent();
-		if (userAgent.contains("MSIE")) {
+		String userAgent = null != request ? request.getHeader("User-Agent") : BladeWebContext.request().userAgent();
+		if (null != userAgent && userAgent.contains("MSIE")) {
 			response.setContentType("text/html;charset=utf-8");
 		} else {
 			response.setContentType("application/json;charset=utf-8");
 		}
-		try {
-			response.setHeader("Cache-Control", "no-cache");
-			PrintWriter out = response.getWriter();
-			out.print(json);
-    		out.flush();
-    		out.close();
-    		
-    		this.written = true;
-			return this;
-		} catch (UnsupportedEncodingException e1) {
-			e1.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		return null;
+		response.setHeader("Cache-Control", "no-cache");
+		writeBody(json);
+		return this;
 	}
 
 	@Override
 	public Response xml(String xml) {
+		response.setHeader("Cache-Control", "no-cache");
+		response.setContentType("text/xml;charset=utf-8");
+		writeBody(xml);
+		return this;
+	}
+	
+	@Override
+	public Response bytes(byte[] bytes) {
+		Assert.notNull(bytes);
+		if(null == response.getContentType()){
+			response.setContentType("application/octet-stream");
+		}
+		writeBody(BodyBuffer.wrap(bytes));
+		return this;
+	}
+	
+	@Override
+	public Response bytes(ByteBuffer buffer) {
+		Assert.notNull(buffer);
+		if(null == response.getContentType()){
+			response.setContentType("application/octet-stream");
+		}
+		if(buffer.hasArray()){
+			byte[] array = buffer.array();
+			int offset = buffer.arrayOffset() + buffer.position();
+			if(offset == 0 && buffer.remaining() == array.length){
+				writeBody(BodyBuffer.wrap(array));
+				return this;
+			}
+		}
+		BodyBuffer body = BodyBuffer.copy(buffer);
 		try {
-			response.setHeader("Cache-Control", "no-cache");
-			response.setContentType("text/xml;charset=utf-8");
+			writeBody(body);
+		} finally {
+			body.release();
+		}
+		return this;
+	}
+	
+	/**
+	 * Write a text body encoded in the response charset
+	 * 
+	 * @param text	response body
+	 */
+	private void writeBody(String text) {
+		BodyBuffer body;
+		try {
+			body = BodyBuffer.encode(text, response.getCharacterEncoding());
+		} catch (UnsupportedEncodingException e) {
+			throw new HttpException(e);
+		}
+		try {
+			writeBody(body);
+		} finally {
+			body.release();
+		}
+	}
+	
+	/**
+	 * Write a body with its Content-Length, compressed when the client accepts it and it is large enough
+	 * 
+	 * @param body	response body
+	 */
+	private void writeBody(BodyBuffer body) {
+		if(capture){
+			captured = body.toByteArray();
+		}
+		try {
+			String encoding = null;
+			Config config = Blade.me().config();
+			if(null != request && config.isCompress() && Compression.isCompressible(response.getContentType())){
+				response.setHeader("Vary", "Accept-Encoding");
+				if(body.length() >= config.getCompressThreshold()){
+					encoding = Compression.negotiate(request);
+				}
+			}
 			
-			PrintWriter out = response.getWriter();
-			out.print(xml);
-    		out.flush();
-    		out.close();
-    		
-    		this.written = true;
-			return this;
-		} catch (UnsupportedEncodingException e1) {
-			e1.printStackTrace();
+			// the ETag of a version key or of a replayed cached response is kept, and checked too
+			if(null != request && response.getStatus() == HttpStatus.OK){
+				String etag = response.getHeader("ETag");
+				if(null == etag && autoETag){
+					etag = EntityTag.weak(body.hash(), body.length());
+					response.setHeader("ETag", etag);
+				}
+				if(null != etag && notModified(etag)){
+					return;
+				}
+			}
+			
+			ServletOutputStream output;
+			if(null == encoding){
+				// with the exact length the container sends headers and body together after the last byte
+				response.setContentLength(body.length());
+				output = response.getOutputStream();
+				body.writeTo(output);
+			} else if(cacheable){
+				String key = request.getRequestURI() + '?' + request.getQueryString() + '#' + encoding;
+				CompressedCache cache = CompressedCache.me();
+				byte[] bytes = body.toByteArray();
+				byte[] compressed = cache.get(key, bytes);
+				if(null == compressed){
+					ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+					DeflateOutputStream deflate = new DeflateOutputStream(buffer, encoding, config.getCompressLevel());
+					try {
+						deflate.write(bytes, 0, bytes.length);
+						deflate.finish();
+					} finally {
+						deflate.release();
+					}
+					compressed = buffer.toByteArray();
+					cache.put(key, bytes, compressed);
+				}
+				response.setHeader("Content-Encoding", encoding);
+				response.setContentLength(compressed.length);
+				output = response.getOutputStream();
+				output.write(compressed);
+			} else {
+				response.setHeader("Content-Encoding", encoding);
+				output = response.getOutputStream();
+				DeflateOutputStream deflate = new DeflateOutputStream(output, encoding, config.getCompressLevel());
+				try {
+					body.writeTo(deflate);
+					deflate.finish();
+				} finally {
+					// a client that went away must not keep the pooled Deflater and buffer
+					deflate.release();
+				}
+			}
+			output.close();
+			this.written = true;
 		} catch (IOException e) {
-			e.printStackTrace();
+			throw new HttpException(e);
 		}
-		
-		return null;
 	}
-
+	
+	/**
+	 * Render a view, a captured or hashed view is rendered to a string first and written with its Content-Length
+	 * 
+	 * @param modelAndView	view and model
+	 */
+	private void renderView(ModelAndView modelAndView) throws IOException {
+		if(!capture && (!autoETag || null != response.getHeader("ETag"))){
+			Config config = Blade.me().config();
+			if(null == request || !config.isCompress()){
+				Writer writer = response.getWriter();
+				render.render(modelAndView, writer);
+				writer.close();
+				return;
+			}
+			CompressingOutputStream output = new CompressingOutputStream(response, Compression.negotiate(request), 
+					config.getCompressThreshold(), config.getCompressLevel());
+			try {
+				Writer writer = new OutputStreamWriter(output, response.getCharacterEncoding());
+				render.render(modelAndView, writer);
+				writer.close();
+			} finally {
+				// a failed view must not keep the pooled buffer and Deflater
+				output.release();
+			}
+			return;
+		}
+		StringWriter writer = new StringWriter();
+		render.render(modelAndView, writer);
+		if(writer.getBuffer().length() == 0){
+			// the render wrote the response itself, such as a forwarded jsp
+			this.written = true;
+			return;
+		}
+		if(null == response.getContentType()){
+			response.setContentType("text/html;charset=" + response.getCharacterEncoding());
+		}
+		writeBody(writer.toString());
+	}
+	
 	@Override
 	public ServletOutputStream outputStream() throws IOException {
 		return response.getOutputStream();
 	}
+	
+	@Override
+	public Response write(InputStream input) {
+		Assert.notNull(input);
+		try {
+			ServletOutputStream output = response.getOutputStream();
+			this.written = true;
+			if(null == completion){
+				try {
+					IOKit.copy(input, output);
+					output.flush();
+				} finally {
+					IOKit.closeQuietly(input);
+				}
+				return this;
+			}
+			completion.hold();
+			output.setWriteListener(new AsyncBodyWriter(input, output, completion));
+			return this;
+		} catch (IOException e) {
+			throw new HttpException(e);
+		}
+	}
 
 	@Override
 	public Response render(String view) {
@@ -280,7 +461,7 @@ public class ServletResponse implements Response {
 			viewPath = Path.cleanPath(viewPath);
 			ModelAndView modelAndView = new ModelAndView(viewPath);
 			
-			render.render(modelAndView, response.getWriter());
+			renderView(modelAndView);
 			return this;
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -302,7 +483,7 @@ public class ServletResponse implements Response {
 			viewPath = Path.cleanPath(viewPath);
 			modelAndView.setView(viewPath);
 			
-			render.render(modelAndView, response.getWriter());
+			renderView(modelAndView);
 			return this;
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -330,6 +511,69 @@ public class ServletResponse implements Response {
 		}
 	}
 
+	@Override
+	public Response cacheable(boolean cacheable) {
+		this.cacheable = cacheable;
+		return this;
+	}
+	
+	/**
+	 * Keep the body written by text, html, json, xml, bytes and render for the response cache
+	 */
+	public void capture() {
+		this.capture = true;
+	}
+	
+	/**
+	 * @return	Return the captured body, null if the body was not written by the captured methods
+	 */
+	public byte[] captured() {
+		return captured;
+	}
+	
+	@Override
+	public boolean etag(String version) {
+		Assert.notNull(version);
+		String etag = EntityTag.weak(version);
+		response.setHeader("ETag", etag);
+		return null != request && notModified(etag);
+	}
+	
+	/**
+	 * Send 304 when the client has the entity tag
+	 * 
+	 * @param etag	current entity tag
+	 * @return		return whether the response is sent as 304
+	 */
+	private boolean notModified(String etag) {
+		String method = request.getMethod();
+		if(!"GET".equals(method) && !"HEAD".equals(method)){
+			return false;
+		}
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if(null == ifNoneMatch || !EntityTag.matches(ifNoneMatch, etag)){
+			return false;
+		}
+		response.setStatus(HttpStatus.NOT_MODIFIED);
+		this.notModified = true;
+		this.written = true;
+		return true;
+	}
+	
+	/**
+	 * Send a weak ETag hashed from the body written by text, html, json, xml, bytes and render
+	 */
+	public void autoETag() {
+		this.autoETag = true;
+	}
+	
+	/**
+	 * @return	Return whether the response is sent as 304
+	 */
+	public boolean isNotModified() {
+		return notModified;
+	}
+	
 	@Override
 	public boolean isWritten() {
 		return written;
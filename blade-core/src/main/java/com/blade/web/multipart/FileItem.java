@@ -15,12 +15,22 @@
  */
 package com.blade.web.multipart;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
+import blade.kit.IOKit;
+
 /**
  * HTTP multipart/form-data Request
+ * <p>
+ * A part smaller than the threshold of the parser is kept in memory, larger parts are in a temp file.
+ * </p>
  * 
  * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
  * @since	1.0
@@ -36,11 +46,14 @@ public class FileItem {
 	private long contentLength;
 
 	private File file;
+	
+	private byte[] data;
 
 	private Map<String,String> headers;
 
 	public FileItem(String fieldName, String fileName, String contentType, long contentLength, File file, Map<String,String> headers) {
 		
+		this.name = fieldName;
 		this.fileName = fileName;
 		this.contentType = contentType;
 		this.contentLength = contentLength;
@@ -50,6 +63,11 @@ public class FileItem {
 			this.headers = new HashMap<String,String>();
 		}
 	}
+	
+	public FileItem(String fieldName, String fileName, String contentType, byte[] data, Map<String,String> headers) {
+		this(fieldName, fileName, contentType, data.length, null, headers);
+		this.data = data;
+	}
 
 	public String getName() {
 		return name;
@@ -66,8 +84,59 @@ public class FileItem {
 	public long getContentLength() {
 		return contentLength;
 	}
+	
+	/**
+	 * @return	Return whether the content is kept in memory
+	 */
+	public boolean isInMemory() {
+		return null != data;
+	}
+	
+	/**
+	 * @return	Return the content, read from the temp file when it is not in memory
+	 * @throws IOException	the temp file could not be read
+	 */
+	public byte[] getData() throws IOException {
+		if (null != data) {
+			return data;
+		}
+		InputStream input = new FileInputStream(file);
+		try {
+			return IOKit.toByteArray(input);
+		} finally {
+			IOKit.closeQuietly(input);
+		}
+	}
+	
+	/**
+	 * @return	Return a new stream of the content
+	 * @throws IOException	the temp file could not be opened
+	 */
+	public InputStream getInputStream() throws IOException {
+		if (null != data) {
+			return new ByteArrayInputStream(data);
+		}
+		return new FileInputStream(file);
+	}
 
+	/**
+	 * @return	Return the temp file of the content, a content in memory is written to a temp file first
+	 */
 	public File getFile() {
+		if (null == file && null != data) {
+			try {
+				File tempFile = File.createTempFile("com.blade.file_", null);
+				FileOutputStream output = new FileOutputStream(tempFile);
+				try {
+					output.write(data);
+				} finally {
+					IOKit.closeQuietly(output);
+				}
+				this.file = tempFile;
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
 		return file;
 	}
 
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.multipart;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that fails as soon as more than a limit of bytes is read
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class LimitedInputStream extends FilterInputStream {
+	
+	private final long limit;
+	
+	private final String message;
+	
+	private long count;
+	
+	LimitedInputStream(InputStream input, long limit, String message) {
+		super(input);
+		this.limit = limit;
+		this.message = message;
+	}
+	
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if(b != -1){
+			count(1);
+		}
+		return b;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = super.read(b, off, len);
+		if(n > 0){
+			count(n);
+		}
+		return n;
+	}
+	
+	private void count(int n) throws LimitExceededException {
+		count += n;
+		if(count > limit){
+			throw new LimitExceededException(message + ", the limit is " + limit + " bytes");
+		}
+	}
+	
+	/**
+	 * Thrown while reading, the parser turns it into a MultipartException
+	 */
+	static class LimitExceededException extends IOException {
+		
+		private static final long serialVersionUID = 1L;
+		
+		LimitExceededException(String message) {
+			super(message);
+		}
+	}
+	
+}
@@ -19,8 +19,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,6 +29,8 @@ import javax.servlet.http.HttpServletRequest;
 
 import blade.kit.IOKit;
 
+import com.blade.web.http.BufferPool;
+
 /**
  * Multipart
  *
@@ -49,6 +52,33 @@ public class Multipart {
 	public static final String MULTIPART = "multipart/";
 
 	public static final String MULTIPART_MIXED = "multipart/mixed";
+	
+	public static final int DEFAULT_THRESHOLD = 16 * 1024;
+	
+	/**
+	 * Max size of a part kept in memory
+	 */
+	private int threshold;
+	
+	/**
+	 * Max size of a part, -1 is no limit
+	 */
+	private long maxFileSize;
+	
+	/**
+	 * Max size of the request body, -1 is no limit
+	 */
+	private long maxRequestSize;
+	
+	public Multipart() {
+		this(DEFAULT_THRESHOLD, -1, -1);
+	}
+	
+	public Multipart(int threshold, long maxFileSize, long maxRequestSize) {
+		this.threshold = threshold;
+		this.maxFileSize = maxFileSize;
+		this.maxRequestSize = maxRequestSize;
+	}
 
 	public static boolean isMultipartContent(HttpServletRequest request) {
 		if (!"post".equals(request.getMethod().toLowerCase())) {
@@ -66,13 +96,55 @@ public class Multipart {
 		return false;
 	}
 
-	public void parse(HttpServletRequest request, MultipartHandler partHandler) throws IOException, MultipartException {
+	/**
+	 * Parse the body, parts smaller than the threshold are kept in memory and larger parts go to temp files
+	 * 
+	 * @param request		http request
+	 * @param partHandler	receive the form items and the file items
+	 * @throws IOException			the body could not be read
+	 * @throws MultipartException	the body is not multipart, or SizeLimitExceededException when a size limit is exceeded
+	 */
+	public void parse(HttpServletRequest request, final MultipartHandler partHandler) throws IOException, MultipartException {
+		parse(request, new MultipartStreamHandler() {
+			
+			@Override
+			public void handleFormItem(String name, String value) {
+				partHandler.handleFormItem(name, value);
+			}
+			
+			@Override
+			public void handleFileStream(String name, String fileName, String contentType, Map<String,String> headers, 
+					InputStream input) throws IOException {
+				partHandler.handleFileItem(name, store(name, fileName, contentType, headers, input));
+			}
+		});
+	}
+	
+	/**
+	 * Parse the body as it arrives, each file part is handed over as a stream
+	 * 
+	 * @param request		http request
+	 * @param partHandler	receive the form items and the file streams
+	 * @throws IOException			the body could not be read
+	 * @throws MultipartException	the body is not multipart, or SizeLimitExceededException when a size limit is exceeded
+	 */
+	public void parse(HttpServletRequest request, MultipartStreamHandler partHandler) throws IOException, MultipartException {
 		if (!isMultipartContent(request)) {
 			throw new MultipartException("Not a multipart content. The HTTP method should be 'POST' and the " +
 					"Content-Type 'multipart/form-data' or 'multipart/mixed'.");
 		}
+		
+		// reject a declared length before reading anything
+		long contentLength = request.getContentLengthLong();
+		if (maxRequestSize >= 0 && contentLength > maxRequestSize) {
+			throw new SizeLimitExceededException("the request was rejected because its size " + contentLength 
+					+ " exceeds the limit of " + maxRequestSize + " bytes");
+		}
 
 		InputStream inputStream = request.getInputStream();
+		if (maxRequestSize >= 0) {
+			inputStream = new LimitedInputStream(inputStream, maxRequestSize, "the request size exceeds the limit");
+		}
 
 		String contentType = request.getContentType();
 		String charEncoding = request.getCharacterEncoding();
@@ -85,6 +157,16 @@ public class Multipart {
 		// create a multipart reader
 		MultipartReader multipartReader = new MultipartReader(inputStream, boundary);
 		multipartReader.setHeaderEncoding(charEncoding);
+		
+		try {
+			parse(multipartReader, boundary, charEncoding, partHandler);
+		} catch (LimitedInputStream.LimitExceededException e) {
+			throw new SizeLimitExceededException(e.getMessage(), e);
+		}
+	}
+	
+	private void parse(MultipartReader multipartReader, byte[] boundary, String charEncoding, 
+			MultipartStreamHandler partHandler) throws IOException, MultipartException {
 
 		String currentFieldName = null;
 		boolean skipPreamble = true;
@@ -130,16 +212,10 @@ public class Multipart {
 					String fileName = getFileName( headers.get(CONTENT_DISPOSITION) );
 					if (fileName == null) {
 						// call the part handler
-						String value = IOKit.toString(multipartReader.newInputStream());
-						partHandler.handleFormItem(fieldName, value);
+						byte[] value = readPart(multipartReader, fieldName);
+						partHandler.handleFormItem(fieldName, null != charEncoding ? new String(value, charEncoding) : new String(value));
 					} else {
-
-						// create the temp file
-						File tempFile = createTempFile(multipartReader);
-
-						// call the part handler
-						FileItem fileItem = new FileItem(fieldName, fileName, partContentType, tempFile.length(), tempFile, headers);
-						partHandler.handleFileItem(fieldName, fileItem);
+						handleFile(multipartReader, fieldName, fileName, partContentType, headers, partHandler);
 					}
 
 					continue;
@@ -148,14 +224,7 @@ public class Multipart {
 				String fileName = getFileName( headers.get(CONTENT_DISPOSITION) );
 				String partContentType = headers.get(CONTENT_TYPE);
 				if (fileName != null) {
-
-					// create the temp file
-					File tempFile = createTempFile(multipartReader);
-
-					// call the part handler
-					FileItem fileItem = new FileItem(currentFieldName, fileName, partContentType, tempFile.length(),
-							tempFile, headers);
-					partHandler.handleFileItem(currentFieldName, fileItem);
+					handleFile(multipartReader, currentFieldName, fileName, partContentType, headers, partHandler);
 					continue;
 				}
 			}
@@ -163,36 +232,92 @@ public class Multipart {
 		}
 
 	}
-
-	private File createTempFile(MultipartReader multipartReader) throws IOException {
+	
+	private void handleFile(MultipartReader multipartReader, String fieldName, String fileName, String contentType, 
+			Map<String,String> headers, MultipartStreamHandler partHandler) throws IOException {
+		InputStream input = multipartReader.newInputStream();
+		InputStream part = input;
+		if (maxFileSize >= 0) {
+			part = new LimitedInputStream(input, maxFileSize, "the size of part " + fieldName + " exceeds the limit");
+		}
+		partHandler.handleFileStream(fieldName, fileName, contentType, headers, part);
+		// skip what the handler did not read
+		input.close();
+	}
+	
+	private byte[] readPart(MultipartReader multipartReader, String fieldName) throws IOException {
+		InputStream input = multipartReader.newInputStream();
+		if (maxFileSize >= 0) {
+			input = new LimitedInputStream(input, maxFileSize, "the size of part " + fieldName + " exceeds the limit");
+		}
+		return IOKit.toByteArray(input);
+	}
+	
+	/**
+	 * Keep a file part in memory, it spills to a temp file once it is larger than the threshold
+	 */
+	private FileItem store(String fieldName, String fileName, String contentType, Map<String,String> headers, 
+			InputStream input) throws IOException {
+		byte[] buffer = BufferPool.acquire();
+		try {
+			byte[] memory = new byte[Math.min(threshold, buffer.length)];
+			int size = 0;
+			int n;
+			while (EOF != (n = input.read(buffer))) {
+				if (size + n > threshold) {
+					return spill(fieldName, fileName, contentType, headers, input, buffer, n, memory, size);
+				}
+				if (size + n > memory.length) {
+					byte[] grown = new byte[Math.min(threshold, Math.max(memory.length * 2, size + n))];
+					System.arraycopy(memory, 0, grown, 0, size);
+					memory = grown;
+				}
+				System.arraycopy(buffer, 0, memory, size, n);
+				size += n;
+			}
+			byte[] data = memory;
+			if (size != memory.length) {
+				data = new byte[size];
+				System.arraycopy(memory, 0, data, 0, size);
+			}
+			return new FileItem(fieldName, fileName, contentType, data, headers);
+		} finally {
+			BufferPool.release(buffer);
+		}
+	}
+	
+	private FileItem spill(String fieldName, String fileName, String contentType, Map<String,String> headers, 
+			InputStream input, byte[] buffer, int n, byte[] memory, int size) throws IOException {
 		File tempFile = File.createTempFile("com.blade.file_", null);
-		FileOutputStream outputStream = null;
+		FileOutputStream outputStream = new FileOutputStream(tempFile);
+		long length = 0;
+		boolean written = false;
 		try {
-			outputStream = new FileOutputStream(tempFile);
-			copy( multipartReader.newInputStream(), outputStream );
+			FileChannel channel = outputStream.getChannel();
+			length += write(channel, memory, size);
+			do {
+				length += write(channel, buffer, n);
+			} while (EOF != (n = input.read(buffer)));
+			written = true;
 		} finally {
-			if (outputStream != null) {
-				try { outputStream.close(); } catch (Exception e) {}
+			IOKit.closeQuietly(outputStream);
+			if (!written) {
+				tempFile.delete();
 			}
 		}
-
-		return tempFile;
+		return new FileItem(fieldName, fileName, contentType, length, tempFile, headers);
 	}
-
-	private static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
-	private static final int EOF = -1;
-
-	private long copy(InputStream input, OutputStream output) throws IOException {
-		long count = 0;
-		int n = 0;
-		byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-		while (EOF != (n = input.read(buffer))) {
-			output.write(buffer, 0, n);
-			count += n;
+	
+	private int write(FileChannel channel, byte[] bytes, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
 		}
-		return count;
+		return length;
 	}
 
+	private static final int EOF = -1;
+
 	protected Map<String,String> getHeadersMap(String headerPart) {
 		final int len = headerPart.length();
 		final Map<String,String> headers = new HashMap<String,String>();
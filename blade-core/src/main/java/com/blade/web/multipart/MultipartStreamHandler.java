@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Handler of a multipart body read as it arrives, file parts are not buffered
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public interface MultipartStreamHandler {
+	
+	void handleFormItem(String name, String value);
+	
+	/**
+	 * Consume a file part, the rest of the part is skipped when the method returns
+	 * 
+	 * @param name			field name
+	 * @param fileName		file name
+	 * @param contentType	content type of the part, can be null
+	 * @param headers		headers of the part
+	 * @param input			content of the part, valid until the method returns
+	 * @throws IOException	the part could not be read or consumed
+	 */
+	void handleFileStream(String name, String fileName, String contentType, Map<String,String> headers, InputStream input) throws IOException;
+	
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.resource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import blade.kit.IOKit;
+
+/**
+ * A static file with the headers needed to serve it
+ * <p>
+ * Small files also hold their content, so a cache hit is written without touching the disk.
+ * Larger files are mapped once and the mapping is shared by the requests for the file, it is 
+ * released with the StaticFile when the cache drops it and no request is still sending it.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class StaticFile {
+	
+	final File file;
+	
+	final long length;
+	
+	final long lastModified;
+	
+	final String etag;
+	
+	final String contentType;
+	
+	// content coding of a precompressed file, null for the file itself
+	final String encoding;
+	
+	// file content, null when the file is too large to keep in memory
+	final byte[] data;
+	
+	// precompressed siblings: name.br and name.gz
+	StaticFile brotli;
+	
+	StaticFile gzip;
+	
+	volatile long checkedAt;
+	
+	// whole file mapping, created by the first request that sends the file from disk
+	private MappedByteBuffer mapped;
+	
+	private boolean unmappable;
+	
+	private StaticFile(File file, String contentType, String encoding, byte[] data) {
+		this.file = file;
+		this.length = file.length();
+		this.lastModified = file.lastModified();
+		this.contentType = contentType;
+		this.encoding = encoding;
+		this.data = data;
+		this.etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) 
+				+ (null != encoding ? "-" + encoding : "") + "\"";
+		this.checkedAt = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Load a file, reading its content when it is not larger than maxDataSize
+	 * 
+	 * @param file			file
+	 * @param contentType	content type of the file
+	 * @param encoding		content coding, null if not precompressed
+	 * @param maxDataSize	max size of content kept in memory
+	 * @return				return the static file
+	 * @throws IOException	IOException
+	 */
+	static StaticFile load(File file, String contentType, String encoding, int maxDataSize) throws IOException {
+		byte[] data = null;
+		if(file.length() <= maxDataSize){
+			FileInputStream input = new FileInputStream(file);
+			try {
+				data = IOKit.toByteArray(input);
+			} finally {
+				IOKit.closeQuietly(input);
+			}
+			// changed while reading, keep only the metadata
+			if(data.length != file.length()){
+				data = null;
+			}
+		}
+		return new StaticFile(file, contentType, encoding, data);
+	}
+	
+	/**
+	 * A region of the mapped file, the mapping is created on the first call
+	 * 
+	 * @param start			first byte
+	 * @param count			number of bytes
+	 * @return				return the region, null if the file can not be mapped
+	 * @throws IOException	IOException
+	 */
+	ByteBuffer region(long start, long count) throws IOException {
+		MappedByteBuffer buffer = map();
+		if(null == buffer){
+			return null;
+		}
+		ByteBuffer region = buffer.duplicate();
+		region.limit((int) (start + count));
+		region.position((int) start);
+		return region;
+	}
+	
+	private synchronized MappedByteBuffer map() throws IOException {
+		if(null != mapped || unmappable){
+			return mapped;
+		}
+		FileInputStream input = new FileInputStream(file);
+		try {
+			FileChannel channel = input.getChannel();
+			// the file changed since it was loaded, isValid drops it on the next check
+			if(length > Integer.MAX_VALUE || channel.size() != length){
+				unmappable = true;
+				return null;
+			}
+			// the mapping stays valid after the channel is closed
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			return mapped;
+		} finally {
+			IOKit.closeQuietly(input);
+		}
+	}
+	
+	/**
+	 * @return	Return whether the file on disk is the same as when it was loaded
+	 */
+	boolean isValid() {
+		return file.lastModified() == lastModified && file.length() == length 
+				&& (null == brotli || brotli.isValid()) && (null == gzip || gzip.isValid());
+	}
+	
+	/**
+	 * @return	Return bytes held in memory by this file and its siblings
+	 */
+	long memorySize() {
+		long size = null != data ? data.length : 0;
+		if(null != brotli){
+			size += brotli.memorySize();
+		}
+		if(null != gzip){
+			size += gzip.memorySize();
+		}
+		return size;
+	}
+	
+}
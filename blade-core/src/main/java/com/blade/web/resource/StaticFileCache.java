@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.resource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Least recently used cache of static files, bounded by entries and by bytes held in memory
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+final class StaticFileCache {
+	
+	private final LinkedHashMap<String, StaticFile> files = new LinkedHashMap<String, StaticFile>(64, 0.75f, true);
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	private final int maxEntries;
+	
+	private final long maxBytes;
+	
+	private long bytes;
+	
+	StaticFileCache(int maxEntries, long maxBytes) {
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+	
+	StaticFile get(String path) {
+		lock.lock();
+		try {
+			return files.get(path);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	void put(String path, StaticFile file) {
+		long size = file.memorySize();
+		if(size > maxBytes){
+			return;
+		}
+		lock.lock();
+		try {
+			StaticFile old = files.put(path, file);
+			if(null != old){
+				bytes -= old.memorySize();
+			}
+			bytes += size;
+			Iterator<Map.Entry<String, StaticFile>> it = files.entrySet().iterator();
+			while ((bytes > maxBytes || files.size() > maxEntries) && it.hasNext()) {
+				Map.Entry<String, StaticFile> eldest = it.next();
+				if(eldest.getValue() == file){
+					continue;
+				}
+				bytes -= eldest.getValue().memorySize();
+				it.remove();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	void remove(String path) {
+		lock.lock();
+		try {
+			StaticFile old = files.remove(path);
+			if(null != old){
+				bytes -= old.memorySize();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	int size() {
+		lock.lock();
+		try {
+			return files.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+}
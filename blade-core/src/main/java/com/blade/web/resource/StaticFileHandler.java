@@ -0,0 +1,417 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.web.resource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.util.Callback;
+
+import blade.kit.IOKit;
+import blade.kit.log.Logger;
+
+import com.blade.web.http.AsyncCompletion;
+import com.blade.web.http.Compression;
+import com.blade.web.http.EntityTag;
+import com.blade.web.http.HttpStatus;
+
+/**
+ * Static file handler
+ * <p>
+ * Serves the files under the static folders of the web root. Small files are kept in memory with their
+ * ETag and Last-Modified. On Jetty larger files are mapped once per file and the connection writes 
+ * the mapped region directly. Other containers get them through the servlet output stream, 
+ * that is a copy through a buffer. Conditional requests, single byte ranges and 
+ * precompressed name.br / name.gz siblings are supported.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class StaticFileHandler {
+	
+	private static final Logger LOGGER = Logger.getLogger(StaticFileHandler.class);
+	
+	// how often a cached file is compared with the disk, milliseconds
+	private static final long CHECK_INTERVAL = 1000L;
+	
+	private static final int MAX_ENTRIES = 1024;
+	
+	private static final long[] UNSATISFIABLE = new long[0];
+	
+	private static final boolean JETTY_OUTPUT = isJettyOutput();
+	
+	private final ServletContext servletContext;
+	
+	private final File root;
+	
+	private final String rootPath;
+	
+	// static folder => its canonical directory, ending with a separator
+	private final Map<String, String> folders = new HashMap<String, String>();
+	
+	private boolean allPaths;
+	
+	private final StaticFileCache cache;
+	
+	private final int cacheFileSize;
+	
+	/**
+	 * @param servletContext	servlet context
+	 * @param webRoot			directory of static files
+	 * @param folders			static folders, e.g: "/public", "/static"
+	 * @param cacheSize			max bytes of file content kept in memory
+	 * @param cacheFileSize		max size of a file kept in memory
+	 * @throws IOException		IOException
+	 */
+	public StaticFileHandler(ServletContext servletContext, String webRoot, String[] folders, long cacheSize, int cacheFileSize) throws IOException {
+		this.servletContext = servletContext;
+		this.root = new File(webRoot).getCanonicalFile();
+		this.rootPath = root.getPath().endsWith(File.separator) ? root.getPath() : root.getPath() + File.separator;
+		this.cache = new StaticFileCache(MAX_ENTRIES, cacheSize);
+		this.cacheFileSize = cacheFileSize;
+		for(String folder : folders){
+			String prefix = folder.trim();
+			while (prefix.endsWith("/")) {
+				prefix = prefix.substring(0, prefix.length() - 1);
+			}
+			if(prefix.length() == 0){
+				allPaths = true;
+			} else {
+				prefix = prefix.startsWith("/") ? prefix : "/" + prefix;
+				String path = new File(root, prefix).getCanonicalPath();
+				this.folders.put(prefix, path.endsWith(File.separator) ? path : path + File.separator);
+			}
+		}
+	}
+	
+	/**
+	 * @param uri	request uri
+	 * @return		Return whether the uri is under a static folder
+	 */
+	public boolean isStatic(String uri) {
+		return null != folderPath(uri);
+	}
+	
+	/**
+	 * @return	Return the canonical directory of the static folder of the uri, null if it is not static
+	 */
+	private String folderPath(String uri) {
+		String path = folders.get(uri);
+		for(int i = uri.indexOf('/', 1); null == path && i > 0; i = uri.indexOf('/', i + 1)){
+			path = folders.get(uri.substring(0, i));
+		}
+		if(null == path && allPaths){
+			path = rootPath;
+		}
+		return path;
+	}
+	
+	/**
+	 * Serve a static file
+	 * 
+	 * @param request		http request
+	 * @param response		http response
+	 * @param uri			request uri, relative to the context path
+	 * @param completion	completion of an asynchronous request, null on the synchronous path
+	 * @throws IOException	IOException
+	 */
+	public void handle(HttpServletRequest request, HttpServletResponse response, String uri, AsyncCompletion completion) throws IOException {
+		String method = request.getMethod();
+		boolean isHead = "HEAD".equals(method);
+		if(!isHead && !"GET".equals(method)){
+			response.setHeader("Allow", "GET, HEAD");
+			response.sendError(HttpStatus.METHOD_NOT_ALLOWED);
+			return;
+		}
+		
+		StaticFile file = lookup(uri);
+		if(null == file){
+			response.sendError(HttpStatus.NOT_FOUND);
+			return;
+		}
+		
+		StaticFile content = negotiate(request, file);
+		if(null != file.brotli || null != file.gzip){
+			response.setHeader("Vary", "Accept-Encoding");
+		}
+		response.setHeader("ETag", content.etag);
+		response.setDateHeader("Last-Modified", content.lastModified);
+		if(isNotModified(request, content)){
+			response.setStatus(HttpStatus.NOT_MODIFIED);
+			return;
+		}
+		
+		response.setContentType(file.contentType);
+		if(content != file){
+			response.setHeader("Content-Encoding", content.encoding);
+		}
+		
+		long start = 0;
+		long length = content.length;
+		if(content == file){
+			response.setHeader("Accept-Ranges", "bytes");
+			long[] range = range(request, file);
+			if(range == UNSATISFIABLE){
+				response.setHeader("Content-Range", "bytes */" + file.length);
+				response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if(null != range){
+				start = range[0];
+				length = range[1] - range[0] + 1;
+				response.setStatus(HttpStatus.PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + file.length);
+			}
+		}
+		response.setHeader("Content-Length", String.valueOf(length));
+		
+		if(!isHead){
+			send(response, content, start, length, completion);
+		}
+	}
+	
+	/**
+	 * Find a file in the cache, or resolve and cache it
+	 */
+	private StaticFile lookup(String uri) throws IOException {
+		StaticFile file = cache.get(uri);
+		if(null != file){
+			long now = System.currentTimeMillis();
+			if(now - file.checkedAt < CHECK_INTERVAL){
+				return file;
+			}
+			if(file.isValid()){
+				file.checkedAt = now;
+				return file;
+			}
+			cache.remove(uri);
+		}
+		file = resolve(uri);
+		if(null != file){
+			cache.put(uri, file);
+		}
+		return file;
+	}
+	
+	/**
+	 * @param uri	request uri, already decoded by Path.getRelativePath
+	 */
+	private StaticFile resolve(String uri) throws IOException {
+		String folderPath = folderPath(uri);
+		if(null == folderPath || uri.indexOf('\0') >= 0 || hasParentSegment(uri)){
+			return null;
+		}
+		File target = new File(root, uri);
+		if(!target.isFile() || !target.getCanonicalPath().startsWith(folderPath)){
+			return null;
+		}
+		String contentType = servletContext.getMimeType(target.getName());
+		if(null == contentType){
+			contentType = "application/octet-stream";
+		}
+		StaticFile file = StaticFile.load(target, contentType, null, cacheFileSize);
+		file.brotli = sibling(target, ".br", "br", contentType);
+		file.gzip = sibling(target, ".gz", "gzip", contentType);
+		return file;
+	}
+	
+	private static boolean hasParentSegment(String uri) {
+		for(String segment : uri.split("[/\\\\]")){
+			if("..".equals(segment)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * A precompressed sibling, used only when it is not older than the file
+	 */
+	private StaticFile sibling(File target, String extension, String encoding, String contentType) throws IOException {
+		File sibling = new File(target.getPath() + extension);
+		if(sibling.isFile() && sibling.lastModified() >= target.lastModified()){
+			return StaticFile.load(sibling, contentType, encoding, cacheFileSize);
+		}
+		return null;
+	}
+	
+	private StaticFile negotiate(HttpServletRequest request, StaticFile file) {
+		if(null == file.brotli && null == file.gzip){
+			return file;
+		}
+		String acceptEncoding = request.getHeader("Accept-Encoding");
+		if(null == acceptEncoding){
+			return file;
+		}
+		if(null != file.brotli && Compression.accepts(acceptEncoding, "br")){
+			return file.brotli;
+		}
+		if(null != file.gzip && Compression.accepts(acceptEncoding, "gzip")){
+			return file.gzip;
+		}
+		return file;
+	}
+	
+	private boolean isNotModified(HttpServletRequest request, StaticFile content) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if(null != ifNoneMatch){
+			return EntityTag.matches(ifNoneMatch, content.etag);
+		}
+		long ifModifiedSince;
+		try {
+			ifModifiedSince = request.getDateHeader("If-Modified-Since");
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		// http dates have second precision
+		return ifModifiedSince != -1 && content.lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+	
+	/**
+	 * Parse a single byte range
+	 * 
+	 * @return	Return {first, last}, null to send the whole file, UNSATISFIABLE if out of the file
+	 */
+	private long[] range(HttpServletRequest request, StaticFile file) {
+		String header = request.getHeader("Range");
+		if(null == header || !header.startsWith("bytes=")){
+			return null;
+		}
+		String ifRange = request.getHeader("If-Range");
+		if(null != ifRange && !ifRange.trim().equals(file.etag)){
+			return null;
+		}
+		String spec = header.substring(6).trim();
+		int dash = spec.indexOf('-');
+		// multiple ranges are answered with the whole file
+		if(dash < 0 || spec.indexOf(',') >= 0){
+			return null;
+		}
+		try {
+			long first;
+			long last = file.length - 1;
+			if(dash == 0){
+				long suffix = Long.parseLong(spec.substring(1).trim());
+				if(suffix <= 0){
+					return UNSATISFIABLE;
+				}
+				first = Math.max(0, file.length - suffix);
+			} else {
+				first = Long.parseLong(spec.substring(0, dash).trim());
+				if(dash < spec.length() - 1){
+					long end = Long.parseLong(spec.substring(dash + 1).trim());
+					if(end < first){
+						return null;
+					}
+					last = Math.min(end, last);
+				}
+			}
+			if(first >= file.length){
+				return UNSATISFIABLE;
+			}
+			return new long[]{ first, last };
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+	private void send(HttpServletResponse response, StaticFile content, long start, long length, AsyncCompletion completion) throws IOException {
+		ServletOutputStream output = response.getOutputStream();
+		if(null != content.data){
+			output.write(content.data, (int) start, (int) length);
+			return;
+		}
+		if(JETTY_OUTPUT && JettyContent.isJetty(output)){
+			ByteBuffer region = content.region(start, length);
+			if(null != region){
+				JettyContent.send(output, region, completion);
+				return;
+			}
+		}
+		FileInputStream input = new FileInputStream(content.file);
+		try {
+			FileChannel channel = input.getChannel();
+			// the target is not a socket, transferTo copies through a buffer here
+			WritableByteChannel target = Channels.newChannel(output);
+			long position = start;
+			long end = start + length;
+			while (position < end) {
+				long count = channel.transferTo(position, end - position, target);
+				if(count <= 0){
+					break;
+				}
+				position += count;
+			}
+		} finally {
+			IOKit.closeQuietly(input);
+		}
+	}
+	
+	private static boolean isJettyOutput() {
+		try {
+			Class.forName("org.eclipse.jetty.server.HttpOutput", false, StaticFileHandler.class.getClassLoader());
+			return true;
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Jetty writes a byte buffer straight to the connection, it is only loaded when Jetty is present
+	 */
+	static final class JettyContent {
+		
+		static boolean isJetty(ServletOutputStream output) {
+			return output instanceof HttpOutput;
+		}
+		
+		static void send(ServletOutputStream output, ByteBuffer content, final AsyncCompletion completion) throws IOException {
+			HttpOutput httpOutput = (HttpOutput) output;
+			if(null == completion){
+				httpOutput.sendContent(content);
+				return;
+			}
+			completion.hold();
+			httpOutput.sendContent(content, new Callback() {
+				@Override
+				public void succeeded() {
+					completion.release();
+				}
+				
+				@Override
+				public void failed(Throwable t) {
+					LOGGER.warn("send static file error: " + t.getMessage());
+					completion.release();
+				}
+			});
+		}
+	}
+	
+}
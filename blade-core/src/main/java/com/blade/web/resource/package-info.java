@@ -0,0 +1,4 @@
+/**
+ * Static Resource
+ */
+package com.blade.web.resource;
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.blade.ioc;
+
+import blade.kit.CloneKit;
+
+import com.blade.context.BladeWebContext;
+
+/**
+ * Throughput of SampleContainer.getBean per scope, run the main method with a warmed up JVM.
+ * The CloneKit.deepClone line is the cost of the lookup before the container had scopes.
+ */
+public class ContainerBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	private static final int LOOKUPS = 2000000;
+
+	public static void main(String[] args) throws Exception {
+		SampleContainer container = new SampleContainer();
+		container.registerBean(new SampleContainerTest.Single());
+		container.registerBean(new SampleContainerTest.Proto());
+		container.registerBean(new SampleContainerTest.Ctx());
+		container.initWired();
+
+		SampleContainerTest.bindRequest();
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				System.out.println("SINGLE      " + lookup(container, SampleContainerTest.Single.class) + " ns/op");
+				System.out.println("PROTOTYPE   " + lookup(container, SampleContainerTest.Proto.class) + " ns/op");
+				System.out.println("REQUEST     " + lookup(container, SampleContainerTest.Ctx.class) + " ns/op");
+				System.out.println("deepClone   " + deepClone(container.getBean(SampleContainerTest.Proto.class, Scope.SINGLE)) + " ns/op");
+			}
+		} finally {
+			BladeWebContext.remove();
+		}
+	}
+
+	private static double lookup(Container container, Class<?> type) {
+		long start = System.nanoTime();
+		int hash = 0;
+		for (int i = 0; i < LOOKUPS; i++) {
+			hash += System.identityHashCode(container.getBean(type, null));
+		}
+		return result(start, LOOKUPS, hash);
+	}
+
+	private static double deepClone(Object bean) throws Exception {
+		int lookups = LOOKUPS / 10;
+		long start = System.nanoTime();
+		int hash = 0;
+		for (int i = 0; i < lookups; i++) {
+			hash += System.identityHashCode(CloneKit.deepClone(bean));
+		}
+		return result(start, lookups, hash);
+	}
+
+	private static double result(long start, int lookups, int hash) {
+		double nanos = (System.nanoTime() - start) / (double) lookups;
+		// keeps the lookups from being optimized away
+		return hash == 42 ? nanos + 1 : nanos;
+	}
+
+}
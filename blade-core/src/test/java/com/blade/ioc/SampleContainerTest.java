@@ -0,0 +1,187 @@
+package com.blade.ioc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.blade.annotation.Component;
+import com.blade.annotation.Inject;
+import com.blade.context.BladeWebContext;
+import com.blade.web.http.Request;
+
+public class SampleContainerTest {
+
+	@Component
+	public static class Single {
+	}
+
+	@Component(scope = Scope.PROTOTYPE)
+	public static class Proto {
+		@Inject Single single;
+	}
+
+	@Component(scope = Scope.REQUEST)
+	public static class Ctx {
+		@Inject Single single;
+		@Inject Proto proto;
+	}
+
+	@Component(scope = Scope.REQUEST)
+	public static class Page {
+		@Inject Ctx ctx;
+	}
+
+	@Component
+	public static class Service {
+		@Inject Ctx ctx;
+	}
+
+	@Component(scope = Scope.PROTOTYPE)
+	public static class A {
+		@Inject B b;
+	}
+
+	@Component(scope = Scope.PROTOTYPE)
+	public static class B {
+		@Inject A a;
+	}
+
+	@Component
+	public static class Mistyped {
+		@Inject(Single.class) Proto proto;
+	}
+
+	private SampleContainer container = new SampleContainer();
+
+	@After
+	public void after() {
+		BladeWebContext.remove();
+	}
+
+	@Test
+	public void testSingle() {
+		container.registerBean(new Single());
+		container.initWired();
+		Single single = container.getBean(Single.class, null);
+		Assert.assertNotNull(single);
+		Assert.assertSame(single, container.getBean(Single.class, null));
+		Assert.assertSame(single, container.getBean(Single.class, Scope.SINGLE));
+	}
+
+	@Test
+	public void testPrototype() {
+		container.registerBean(new Single());
+		container.registerBean(new Proto());
+		container.initWired();
+		Proto first = container.getBean(Proto.class, null);
+		Proto second = container.getBean(Proto.class, null);
+		Assert.assertNotSame(first, second);
+		Assert.assertSame(container.getBean(Single.class, null), first.single);
+		Assert.assertSame(first.single, second.single);
+	}
+
+	@Test
+	public void testRequest() {
+		container.registerBean(new Single());
+		container.registerBean(new Proto());
+		container.registerBean(new Ctx());
+		container.registerBean(new Page());
+		container.initWired();
+
+		bindRequest();
+		Page page = container.getBean(Page.class, null);
+		Ctx ctx = container.getBean(Ctx.class, null);
+		Assert.assertSame(ctx, page.ctx);
+		Assert.assertSame(page, container.getBean(Page.class, null));
+		Assert.assertNotNull(ctx.proto);
+
+		bindRequest();
+		Assert.assertNotSame(ctx, container.getBean(Ctx.class, null));
+	}
+
+	@Test(expected = IocException.class)
+	public void testRequestWithoutRequest() {
+		container.registerBean(new Single());
+		container.registerBean(new Proto());
+		container.registerBean(new Ctx());
+		container.initWired();
+		container.getBean(Ctx.class, null);
+	}
+
+	@Test
+	public void testRequestInSingle() {
+		container.registerBean(new Single());
+		container.registerBean(new Proto());
+		container.registerBean(new Ctx());
+		container.registerBean(new Service());
+		try {
+			container.initWired();
+			Assert.fail();
+		} catch (IocException e) {
+			Assert.assertTrue(e.getMessage().contains(Service.class.getName()));
+		}
+
+		// a singleton created while handling a request is rejected too
+		bindRequest();
+		try {
+			container.injection(new Service());
+			Assert.fail();
+		} catch (IocException e) {
+			Assert.assertTrue(e.getMessage().contains(Ctx.class.getName()));
+		}
+	}
+
+	@Test
+	public void testPrototypeCycle() {
+		container.registerBean(new A());
+		container.registerBean(new B());
+		try {
+			container.getBean(A.class, null);
+			Assert.fail();
+		} catch (IocException e) {
+			Assert.assertTrue(e.getMessage().contains(A.class.getName() + " -> " + B.class.getName() + " -> " + A.class.getName()));
+		}
+	}
+
+	@Test
+	public void testMistypedInjection() {
+		container.registerBean(new Single());
+		container.registerBean(new Proto());
+		container.registerBean(new Mistyped());
+		try {
+			container.initWired();
+			Assert.fail();
+		} catch (IocException e) {
+			Assert.assertTrue(e.getMessage().contains(Mistyped.class.getName()));
+			Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	/**
+	 * Bind a new request, keeping only its attributes
+	 */
+	static void bindRequest() {
+		final Map<String, Object> attributes = new HashMap<String, Object>();
+		Request request = (Request) Proxy.newProxyInstance(Request.class.getClassLoader(), new Class<?>[]{ Request.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if("attribute".equals(method.getName())){
+					if(args.length == 2){
+						attributes.put((String) args[0], args[1]);
+						return null;
+					}
+					return attributes.get(args[0]);
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+		BladeWebContext.setContext(null, request, null);
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.blade.loader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Set;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import blade.kit.resource.ClassPathClassReader;
+
+import com.blade.annotation.Path;
+
+public class IndexedClassReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ClassLoader contextClassLoader;
+
+	private File indexedRoot;
+
+	private File plainRoot;
+
+	@Before
+	public void before() throws IOException {
+		contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+		// a plugin built with blade-apt, its index has a stale and a missing entry
+		indexedRoot = folder.newFolder("plugin");
+		compile(indexedRoot, "app/plugin/PluginRoute.java", "package app.plugin; @com.blade.annotation.Path public class PluginRoute {}");
+		compile(indexedRoot, "app/plugin/Stale.java", "package app.plugin; public class Stale {}");
+		write(new File(indexedRoot, IndexedClassReader.INDEX), "# Generated by blade-apt, do not edit\n"
+				+ "app.plugin.PluginRoute=com.blade.annotation.Path\n"
+				+ "app.plugin.Stale=com.blade.annotation.Path\n"
+				+ "app.plugin.Missing=com.blade.annotation.Path\n");
+
+		// the application, without an index
+		plainRoot = folder.newFolder("app");
+		compile(plainRoot, "app/web/HomeRoute.java", "package app.web; @com.blade.annotation.Path public class HomeRoute {}");
+		compile(plainRoot, "app/web/Helper.java", "package app.web; public class Helper {}");
+	}
+
+	@After
+	public void after() {
+		Thread.currentThread().setContextClassLoader(contextClassLoader);
+	}
+
+	@Test
+	public void testIndexedPackage() throws Exception {
+		useClasspath(indexedRoot, plainRoot);
+		ClassPathClassReader scanner = new ClassPathClassReader();
+		IndexedClassReader reader = new IndexedClassReader(scanner);
+
+		Set<Class<?>> classes = reader.getClassByAnnotation("app.plugin", Path.class, true);
+		Assert.assertTrue(reader.isIndexed());
+		Assert.assertEquals(1, classes.size());
+		Assert.assertEquals("app.plugin.PluginRoute", classes.iterator().next().getName());
+		Assert.assertEquals(0, scanner.getScannedCount());
+	}
+
+	@Test
+	public void testUnindexedRoot() throws Exception {
+		useClasspath(indexedRoot, plainRoot);
+		IndexedClassReader reader = new IndexedClassReader(new ClassPathClassReader());
+
+		Assert.assertEquals(1, reader.getClassByAnnotation("app.web", Path.class, true).size());
+
+		// the package is in both roots, the unindexed one is scanned
+		Set<Class<?>> classes = reader.getClassByAnnotation("app", Path.class, true);
+		Assert.assertEquals(2, classes.size());
+		for (Class<?> clazz : classes) {
+			Assert.assertTrue(clazz.getName().endsWith("Route"));
+		}
+	}
+
+	@Test
+	public void testNoIndex() throws Exception {
+		useClasspath(plainRoot);
+		IndexedClassReader reader = new IndexedClassReader(new ClassPathClassReader());
+
+		Assert.assertEquals(1, reader.getClassByAnnotation("app", Path.class, true).size());
+		Assert.assertFalse(reader.isIndexed());
+	}
+
+	@Test
+	public void testNoContextClassLoader() throws Exception {
+		// threads of some containers and agents have no context class loader
+		Thread.currentThread().setContextClassLoader(null);
+		IndexedClassReader reader = new IndexedClassReader(new ClassPathClassReader());
+
+		Assert.assertTrue(reader.getClass("com.blade.loader", false).contains(IndexedClassReader.class));
+		reader.clearCache();
+		Assert.assertTrue(reader.getClass("com.blade.loader", false).contains(IndexedClassReader.class));
+	}
+
+	private void useClasspath(File... roots) throws IOException {
+		URL[] urls = new URL[roots.length];
+		for (int i = 0; i < roots.length; i++) {
+			urls[i] = roots[i].toURI().toURL();
+		}
+		Thread.currentThread().setContextClassLoader(new URLClassLoader(urls, getClass().getClassLoader()));
+	}
+
+	private void compile(File root, String name, String source) throws IOException {
+		File file = new File(folder.getRoot(), "src/" + root.getName() + "/" + name);
+		write(file, source);
+		String classpath = new File(Path.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		int status = compiler.run(null, null, null, "-proc:none", "-classpath", classpath, "-d", root.getPath(), file.getPath());
+		Assert.assertEquals(0, status);
+	}
+
+	private static void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+package com.blade.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.blade.annotation.DependsOn;
+import com.blade.context.StartupReport;
+
+public class PluginRunnerTest {
+
+	private static final List<String> runs = Collections.synchronizedList(new ArrayList<String>());
+
+	private ExecutorService executor;
+
+	public static class Recorded implements Plugin {
+
+		@Override
+		public void run() {
+			// give the plugins running in parallel the chance to overtake
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			runs.add(getClass().getSimpleName());
+		}
+
+		@Override
+		public void destroy() {
+		}
+	}
+
+	public static class Config extends Recorded {
+	}
+
+	@DependsOn(Config.class)
+	public static class Database extends Recorded {
+	}
+
+	@DependsOn({ Config.class, Database.class })
+	public static class Cache extends Recorded {
+	}
+
+	public static class Metrics extends Recorded {
+	}
+
+	public static class Broken extends Recorded {
+		@Override
+		public void run() {
+			throw new IllegalArgumentException("no connection");
+		}
+	}
+
+	@DependsOn(Broken.class)
+	public static class AfterBroken extends Recorded {
+	}
+
+	@DependsOn(AfterBroken.class)
+	public static class AfterSkipped extends Recorded {
+	}
+
+	@DependsOn(Pong.class)
+	public static class Ping extends Recorded {
+	}
+
+	@DependsOn(Ping.class)
+	public static class Pong extends Recorded {
+	}
+
+	@DependsOn(Itself.class)
+	public static class Itself extends Recorded {
+	}
+
+	@Before
+	public void before() {
+		runs.clear();
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testDependencyOrder() throws Exception {
+		// registered before their dependencies
+		run(executor, new StartupReport(), new Cache(), new Database(), new Metrics(), new Config());
+		Assert.assertEquals(4, runs.size());
+		Assert.assertTrue(runs.indexOf("Config") < runs.indexOf("Database"));
+		Assert.assertTrue(runs.indexOf("Database") < runs.indexOf("Cache"));
+	}
+
+	@Test
+	public void testSingleThread() throws Exception {
+		// workers never wait on each other, one thread runs the whole graph
+		ExecutorService single = Executors.newSingleThreadExecutor();
+		try {
+			run(single, new StartupReport(), new Cache(), new Database(), new Config());
+		} finally {
+			single.shutdown();
+		}
+		Assert.assertEquals(Arrays.asList("Config", "Database", "Cache"), runs);
+	}
+
+	@Test
+	public void testCycle() {
+		try {
+			new PluginRunner(Arrays.<Plugin>asList(new Ping(), new Pong(), new Config()), executor, new StartupReport());
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getMessage().startsWith("Plugin dependency cycle at "));
+		}
+		try {
+			new PluginRunner(Arrays.<Plugin>asList(new Itself()), executor, new StartupReport());
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("Plugin dependency cycle at " + Itself.class.getName(), e.getMessage());
+		}
+		Assert.assertTrue(runs.isEmpty());
+	}
+
+	@Test
+	public void testMissingDependency() {
+		try {
+			new PluginRunner(Arrays.<Plugin>asList(new Database()), executor, new StartupReport());
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals(Database.class.getName() + " depends on " + Config.class.getName() + ", which is not registered",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		StartupReport report = new StartupReport();
+		try {
+			run(executor, report, new AfterSkipped(), new AfterBroken(), new Broken(), new Metrics());
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("Plugin startup failed", e.getMessage());
+			Assert.assertEquals("no connection", e.getCause().getMessage());
+		}
+		// the dependents are skipped, the others still run
+		Assert.assertEquals(Arrays.asList("Metrics"), runs);
+		String json = report.toJson();
+		Assert.assertTrue(json.contains(Broken.class.getName()));
+		Assert.assertFalse(json.contains(AfterBroken.class.getName()));
+		Assert.assertTrue(report.getPhases().containsKey("plugins"));
+	}
+
+	@Test
+	public void testReport() throws Exception {
+		StartupReport report = new StartupReport();
+		long start = System.nanoTime();
+		run(executor, report, new Database(), new Config());
+		report.setRoutes(3);
+		report.setBeans(2);
+		report.finish(start);
+
+		Assert.assertTrue(report.getPhases().containsKey("plugins"));
+		Assert.assertTrue(report.getTotalTime() >= report.getPhases().get("plugins"));
+		// each plugin sleeps 10ms, one after the other
+		Assert.assertTrue(report.getPhases().get("plugins") >= 20);
+		String json = report.toJson();
+		Assert.assertTrue(json.contains(Config.class.getName()));
+		Assert.assertTrue(json.contains(Database.class.getName()));
+		Assert.assertTrue(json.contains("\"success\":true"));
+		Assert.assertFalse(json.contains("\"success\":false"));
+		Assert.assertTrue(json.contains("\"routes\":3"));
+		Assert.assertTrue(json.contains("\"beans\":2"));
+		// not an indexed scan
+		Assert.assertTrue(json.contains("\"classesScanned\":-1"));
+	}
+
+	private static void run(ExecutorService executor, StartupReport report, Plugin... plugins) throws InterruptedException {
+		PluginRunner runner = new PluginRunner(Arrays.asList(plugins), executor, report);
+		runner.start();
+		runner.await();
+	}
+
+}
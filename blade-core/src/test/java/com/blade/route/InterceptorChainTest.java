@@ -0,0 +1,102 @@
+package com.blade.route;
+
+import java.lang.reflect.Method;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.blade.ioc.SampleContainer;
+import com.blade.web.http.HttpMethod;
+import com.blade.web.http.Request;
+import com.blade.web.http.Response;
+
+public class InterceptorChainTest {
+
+	public static class Handler {
+		public void handle(Request request, Response response) {
+		}
+	}
+
+	private Routers routers;
+
+	private Method method;
+
+	private Route all;
+
+	private Route one;
+
+	@Before
+	public void setUp() throws Exception {
+		routers = new Routers(new SampleContainer());
+		method = Handler.class.getMethod("handle", Request.class, Response.class);
+		all = new Route(HttpMethod.BEFORE, "/*", new Handler(), method);
+		one = new Route(HttpMethod.BEFORE, "/user/1", new Handler(), method);
+	}
+
+	@Test
+	public void testUnconditional() {
+		InterceptorChain chain = new InterceptorChain(new Route[]{ all }, new Pattern[]{ null });
+		Route[] routes = chain.get("/user/1");
+		Assert.assertArrayEquals(new Route[]{ all }, routes);
+		// resolved up front, the same array for every path
+		Assert.assertSame(routes, chain.get("/user/2"));
+		Assert.assertFalse(chain.isEmpty());
+		Assert.assertTrue(InterceptorChain.EMPTY.isEmpty());
+		Assert.assertEquals(0, InterceptorChain.EMPTY.get("/user/1").length);
+	}
+
+	@Test
+	public void testConditional() {
+		InterceptorChain chain = new InterceptorChain(new Route[]{ all, one }, new Pattern[]{ null, one.getPattern() });
+		Route[] first = chain.get("/user/1");
+		Assert.assertArrayEquals(new Route[]{ all, one }, first);
+		Assert.assertArrayEquals(new Route[]{ all }, chain.get("/user/2"));
+		// memoized per path
+		Assert.assertSame(first, chain.get("/user/1"));
+		Assert.assertArrayEquals(new Route[]{ all, one }, chain.get("/USER/1"));
+	}
+
+	@Test
+	public void testMemoLimit() {
+		InterceptorChain chain = new InterceptorChain(new Route[]{ all, one }, new Pattern[]{ null, one.getPattern() });
+		for (int i = 0; i < 256; i++) {
+			chain.get("/user/" + i);
+		}
+		Route[] memoized = chain.get("/user/1");
+		Assert.assertSame(memoized, chain.get("/user/1"));
+
+		// the memo is full, other paths are resolved on every call
+		Route[] resolved = chain.get("/user/1000");
+		Assert.assertArrayEquals(new Route[]{ all }, resolved);
+		Assert.assertNotSame(resolved, chain.get("/user/1000"));
+	}
+
+	/**
+	 * Interceptors run in registration order, they are no longer sorted by path
+	 */
+	@Test
+	public void testInterceptorOrder() {
+		Route user = add(HttpMethod.BEFORE, "/user/*");
+		Route any = add(HttpMethod.BEFORE, "/*");
+		Route exact = add(HttpMethod.BEFORE, "/user/1");
+		Route other = add(HttpMethod.BEFORE, "/admin/*");
+		Route after = add(HttpMethod.AFTER, "/*");
+		Route route = add(HttpMethod.GET, "/user/:id");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		Assert.assertArrayEquals(new Route[]{ user, any, exact }, matcher.getBefore("/user/1").toArray());
+		Assert.assertArrayEquals(new Route[]{ user, any, exact }, route.getBefores().get("/user/1"));
+		Assert.assertArrayEquals(new Route[]{ user, any }, route.getBefores().get("/user/2"));
+		Assert.assertArrayEquals(new Route[]{ after }, route.getAfters().get("/user/2"));
+		Assert.assertFalse(route.getBefores().isEmpty());
+		Assert.assertFalse(matcher.getBefore("/admin/x").contains(user));
+		Assert.assertTrue(matcher.getBefore("/admin/x").contains(other));
+	}
+
+	private Route add(HttpMethod httpMethod, String path) {
+		return routers.addRoute(httpMethod, path, new Handler(), method);
+	}
+
+}
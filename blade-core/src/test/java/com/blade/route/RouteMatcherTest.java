@@ -0,0 +1,153 @@
+package com.blade.route;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.blade.ioc.SampleContainer;
+import com.blade.web.http.HttpMethod;
+import com.blade.web.http.Request;
+import com.blade.web.http.Response;
+
+public class RouteMatcherTest {
+
+	public static class Handler {
+		public void handle(Request request, Response response) {
+		}
+	}
+
+	private Routers routers;
+
+	private Method method;
+
+	@Before
+	public void setUp() throws Exception {
+		routers = new Routers(new SampleContainer());
+		method = Handler.class.getMethod("handle", Request.class, Response.class);
+	}
+
+	@Test
+	public void testPrecedence() {
+		Route wildcard = add(HttpMethod.GET, "/user/*");
+		Route param = add(HttpMethod.GET, "/user/:id");
+		Route statics = add(HttpMethod.GET, "/user/me");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		// static, then parameter, then wildcard, whatever the registration order
+		Assert.assertSame(statics, matcher.getRoute("GET", "/user/me"));
+		Assert.assertSame(param, matcher.getRoute("GET", "/user/42"));
+		Assert.assertSame(wildcard, matcher.getRoute("GET", "/user/42/posts"));
+		Assert.assertSame(wildcard, matcher.getRoute("GET", "/user"));
+	}
+
+	@Test
+	public void testBacktracking() {
+		Route statics = add(HttpMethod.GET, "/a/b/c");
+		Route param = add(HttpMethod.GET, "/a/:x/d");
+		Route wildcard = add(HttpMethod.GET, "/a/*");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		Map<String, String> params = new HashMap<String, String>();
+		Assert.assertSame(statics, matcher.getRoute("GET", "/a/b/c", params));
+		Assert.assertTrue(params.isEmpty());
+
+		// the static branch b has no d, the parameter branch has
+		Assert.assertSame(param, matcher.getRoute("GET", "/a/b/d", params));
+		Assert.assertEquals("b", params.get("x"));
+
+		// neither branch matches, the wildcard of the parent does
+		params.clear();
+		Assert.assertSame(wildcard, matcher.getRoute("GET", "/a/b/e", params));
+		Assert.assertTrue(params.isEmpty());
+	}
+
+	@Test
+	public void testFirstRegisteredWins() {
+		Route first = add(HttpMethod.GET, "/item/:id");
+		add(HttpMethod.GET, "/item/:name");
+		Route firstWildcard = add(HttpMethod.GET, "/files/*");
+		add(HttpMethod.GET, "/files/.*");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		Map<String, String> params = new HashMap<String, String>();
+		Assert.assertSame(first, matcher.getRoute("GET", "/item/1", params));
+		Assert.assertEquals("1", params.get("id"));
+		Assert.assertNull(params.get("name"));
+		Assert.assertSame(firstWildcard, matcher.getRoute("GET", "/files/a/b"));
+	}
+
+	@Test
+	public void testMethodThenAll() {
+		Route get = add(HttpMethod.GET, "/page/:id");
+		Route all = add(HttpMethod.ALL, "/page/:id");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		Assert.assertSame(get, matcher.getRoute("GET", "/page/1"));
+		Assert.assertSame(get, matcher.getRoute("get", "/page/1"));
+		Assert.assertSame(all, matcher.getRoute("POST", "/page/1"));
+		Assert.assertNull(matcher.getRoute("POST", "/other"));
+	}
+
+	@Test
+	public void testRegexFallback() {
+		add(HttpMethod.GET, "/user/\\d+");
+		Route tree = add(HttpMethod.GET, "/user/:id");
+		Route text = add(HttpMethod.GET, "/doc/[a-z]+\\.txt");
+		Route any = add(HttpMethod.GET, "/doc/.+");
+		Route number = add(HttpMethod.GET, "/num/\\d+");
+		Route middle = add(HttpMethod.GET, "/shop/.*/items/:id");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		// the tree is searched first, regular expressions after it
+		Assert.assertSame(tree, matcher.getRoute("GET", "/user/12"));
+
+		// regular expressions in registration order
+		Assert.assertSame(text, matcher.getRoute("GET", "/doc/readme.txt"));
+		Assert.assertSame(any, matcher.getRoute("GET", "/doc/README.md"));
+
+		// .* before the last segment can not be expressed by the tree
+		Map<String, String> params = new HashMap<String, String>();
+		Assert.assertSame(middle, matcher.getRoute("GET", "/shop/books/items/7", params));
+		Assert.assertEquals("7", params.get("id"));
+
+		Assert.assertSame(number, matcher.getRoute("GET", "/num/12"));
+		Assert.assertNull(matcher.getRoute("GET", "/num/ab"));
+	}
+
+	@Test
+	public void testCaseInsensitiveStatics() {
+		Route route = add(HttpMethod.GET, "/Hello/:name");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		Map<String, String> params = new HashMap<String, String>();
+		Assert.assertSame(route, matcher.getRoute("GET", "/hello/Blade", params));
+		Assert.assertSame(route, matcher.getRoute("GET", "/HELLO/Blade", params));
+		// parameter values keep their case
+		Assert.assertEquals("Blade", params.get("name"));
+	}
+
+	/**
+	 * <code>/x/*</code> was a regular expression, "/x" followed by any number of slashes;
+	 * it is a wildcard now, "/x" and every path below it
+	 */
+	@Test
+	public void testTrailingWildcard() {
+		Route route = add(HttpMethod.GET, "/x/*");
+		RouteMatcher matcher = new RouteMatcher(routers);
+
+		Assert.assertSame(route, matcher.getRoute("GET", "/x"));
+		Assert.assertSame(route, matcher.getRoute("GET", "/x/"));
+		Assert.assertSame(route, matcher.getRoute("GET", "/x/abc"));
+		Assert.assertSame(route, matcher.getRoute("GET", "/x/abc/def"));
+		Assert.assertNull(matcher.getRoute("GET", "/xy"));
+	}
+
+	private Route add(HttpMethod httpMethod, String path) {
+		return routers.addRoute(httpMethod, path, new Handler(), method);
+	}
+
+}
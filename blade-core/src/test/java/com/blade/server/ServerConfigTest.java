@@ -0,0 +1,103 @@
+package com.blade.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.blade.loader.Config;
+import com.blade.loader.Configurator;
+
+public class ServerConfigTest {
+
+	@Test
+	public void testJettyDefaults() {
+		ServerConfig serverConfig = new ServerConfig();
+		QueuedThreadPool threadPool = new QueuedThreadPool();
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		ServerConnector connector = new ServerConnector(new org.eclipse.jetty.server.Server());
+
+		Assert.assertEquals(threadPool.getMinThreads(), serverConfig.getMinThreads());
+		Assert.assertEquals(threadPool.getMaxThreads(), serverConfig.getMaxThreads());
+		Assert.assertEquals(threadPool.getIdleTimeout(), serverConfig.getThreadIdleTimeout());
+		Assert.assertEquals(connector.getIdleTimeout(), serverConfig.getConnectorIdleTimeout());
+		Assert.assertEquals(connector.getAcceptQueueSize(), serverConfig.getAcceptQueueSize());
+		Assert.assertEquals(connector.getReuseAddress(), serverConfig.isReuseAddress());
+		Assert.assertEquals(httpConfig.getRequestHeaderSize(), serverConfig.getRequestHeaderSize());
+		Assert.assertEquals(httpConfig.getResponseHeaderSize(), serverConfig.getResponseHeaderSize());
+		Assert.assertEquals(httpConfig.getOutputBufferSize(), serverConfig.getOutputBufferSize());
+		// -1 lets Jetty size them from the cores
+		Assert.assertEquals(-1, serverConfig.getAcceptors());
+		Assert.assertEquals(-1, serverConfig.getSelectors());
+
+		Assert.assertTrue(serverConfig.isTcpNoDelay());
+		Assert.assertFalse(serverConfig.isHttp2());
+		Assert.assertEquals(-1, serverConfig.getSslPort());
+		Assert.assertEquals(30000, serverConfig.getShutdownTimeout());
+	}
+
+	@Test
+	public void testIdleTimeouts() {
+		ServerConfig serverConfig = configure("blade.server.thread_idle_timeout", "120000").getServerConfig();
+		Assert.assertEquals(120000, serverConfig.getThreadIdleTimeout());
+		// the connector keeps its own default
+		Assert.assertEquals(30000, serverConfig.getConnectorIdleTimeout());
+
+		serverConfig = configure("blade.server.connector_idle_timeout", "5000").getServerConfig();
+		Assert.assertEquals(60000, serverConfig.getThreadIdleTimeout());
+		Assert.assertEquals(5000, serverConfig.getConnectorIdleTimeout());
+	}
+
+	@Test
+	public void testOverrides() {
+		ServerConfig serverConfig = configure(
+				"blade.server.min_threads", "16",
+				"blade.server.max_threads", "400",
+				"blade.server.acceptors", "2",
+				"blade.server.selectors", "4",
+				"blade.server.accept_queue", "1024",
+				"blade.server.request_header_size", "16384",
+				"blade.server.response_header_size", "4096",
+				"blade.server.output_buffer_size", "65536",
+				"blade.server.reuse_address", "false",
+				"blade.server.tcp_nodelay", "false",
+				"blade.server.shutdown_timeout", "1000",
+				"blade.server.http2", "true",
+				"blade.server.ssl_port", "9443",
+				"blade.server.key_store", "keystore.jks",
+				"blade.server.key_store_password", "secret",
+				"blade.server.key_manager_password", "manager").getServerConfig();
+
+		Assert.assertEquals(16, serverConfig.getMinThreads());
+		Assert.assertEquals(400, serverConfig.getMaxThreads());
+		Assert.assertEquals(2, serverConfig.getAcceptors());
+		Assert.assertEquals(4, serverConfig.getSelectors());
+		Assert.assertEquals(1024, serverConfig.getAcceptQueueSize());
+		Assert.assertEquals(16384, serverConfig.getRequestHeaderSize());
+		Assert.assertEquals(4096, serverConfig.getResponseHeaderSize());
+		Assert.assertEquals(65536, serverConfig.getOutputBufferSize());
+		Assert.assertFalse(serverConfig.isReuseAddress());
+		Assert.assertFalse(serverConfig.isTcpNoDelay());
+		Assert.assertEquals(1000, serverConfig.getShutdownTimeout());
+		Assert.assertTrue(serverConfig.isHttp2());
+		Assert.assertEquals(9443, serverConfig.getSslPort());
+		Assert.assertEquals("keystore.jks", serverConfig.getKeyStorePath());
+		Assert.assertEquals("secret", serverConfig.getKeyStorePassword());
+		Assert.assertEquals("manager", serverConfig.getKeyManagerPassword());
+	}
+
+	private static Config configure(String... entries) {
+		Map<String, String> configMap = new HashMap<String, String>();
+		for (int i = 0; i < entries.length; i += 2) {
+			configMap.put(entries[i], entries[i + 1]);
+		}
+		Config config = new Config();
+		new Configurator(config, configMap).run();
+		return config;
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.blade.web;
+
+import java.lang.reflect.Method;
+
+import blade.kit.ReflectKit;
+
+import com.blade.route.RouteHandler;
+import com.blade.web.http.Request;
+import com.blade.web.http.Response;
+
+/**
+ * Cost of calling a route method, run the main method with a warmed up JVM.
+ * The legacy line is the call as RouteArgument.executeMethod made it before routes had an invoker:
+ * setAccessible, parameter types compared by class name and ReflectKit.invokeMehod on every request.
+ */
+public class InvokerBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	private static final int CALLS = 5000000;
+
+	public static class Controller {
+
+		private int calls;
+
+		public void index(Request request, Response response) {
+			calls++;
+		}
+	}
+
+	public static class Handler implements RouteHandler {
+
+		private int calls;
+
+		@Override
+		public void handle(Request request, Response response) {
+			calls++;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Controller controller = new Controller();
+		Handler handler = new Handler();
+		Method index = Controller.class.getMethod("index", Request.class, Response.class);
+		Method handle = Handler.class.getMethod("handle", Request.class, Response.class);
+		RouteInvoker invoker = new RouteInvoker(index);
+		RouteInvoker handlerInvoker = new RouteInvoker(handle);
+
+		for (int round = 0; round < ROUNDS; round++) {
+			System.out.println("RouteInvoker         " + invoker(invoker, controller) + " ns/op");
+			System.out.println("RouteHandler         " + invoker(handlerInvoker, handler) + " ns/op");
+			System.out.println("executeMethod        " + executeMethod(controller, index) + " ns/op");
+			System.out.println("legacy               " + legacy(controller, index) + " ns/op");
+		}
+		System.out.println(controller.calls + handler.calls);
+	}
+
+	private static double invoker(RouteInvoker invoker, Object target) {
+		long start = System.nanoTime();
+		for (int i = 0; i < CALLS; i++) {
+			invoker.invoke(target, null, null);
+		}
+		return result(start, CALLS);
+	}
+
+	private static double executeMethod(Object target, Method method) {
+		long start = System.nanoTime();
+		for (int i = 0; i < CALLS; i++) {
+			RouteArgument.executeMethod(target, method, null, null);
+		}
+		return result(start, CALLS);
+	}
+
+	private static double legacy(Object target, Method method) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < CALLS; i++) {
+			method.setAccessible(true);
+			Class<?>[] params = method.getParameterTypes();
+			Object[] args = new Object[params.length];
+			for (int j = 0; j < params.length; j++) {
+				if (params[j].getName().equals(Request.class.getName())) {
+					args[j] = null;
+				}
+				if (params[j].getName().equals(Response.class.getName())) {
+					args[j] = null;
+				}
+			}
+			ReflectKit.invokeMehod(target, method, args);
+		}
+		return result(start, CALLS);
+	}
+
+	private static double result(long start, int calls) {
+		return (System.nanoTime() - start) / (double) calls;
+	}
+
+}
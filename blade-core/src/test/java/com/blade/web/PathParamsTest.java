@@ -0,0 +1,80 @@
+package com.blade.web;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.blade.route.Routers;
+import com.blade.web.http.HttpMethod;
+import com.blade.web.http.HttpStatus;
+import com.blade.web.http.Request;
+import com.blade.web.http.Response;
+
+public class PathParamsTest {
+
+	private static TestServer server;
+
+	private static volatile String afterParams;
+
+	public static class Handlers {
+
+		public void before(Request request, Response response) {
+			response.header("X-Before", String.valueOf(request.pathParams()));
+		}
+
+		public void route(Request request, Response response) {
+			response.text(request.param("a") + "," + request.param("b"));
+		}
+
+		public void after(Request request, Response response) {
+			afterParams = String.valueOf(request.pathParams());
+		}
+
+		public void legacy(Request request, Response response) {
+			request.initPathParams("/legacy/:name");
+			response.text(request.param("name"));
+		}
+	}
+
+	@BeforeClass
+	public static void start() throws Exception {
+		server = new TestServer();
+		Routers routers = server.routers();
+		Handlers handlers = new Handlers();
+		routers.route("/:a/*", handlers, "before", HttpMethod.BEFORE);
+		routers.route("/x/:a/:b", handlers, "route", HttpMethod.GET);
+		routers.route("/*", handlers, "after", HttpMethod.AFTER);
+		routers.route("/legacy/:id", handlers, "legacy", HttpMethod.GET);
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testInterceptorParamsDoNotLeak() throws Exception {
+		HttpTester.Response response = server.request("GET", "/x/1/2");
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		// the interceptor sees its own :a, the route still gets its own :a
+		Assert.assertEquals("{a=x}", response.get("X-Before"));
+		Assert.assertEquals("1,2", response.getContent());
+		// an interceptor without parameters sees none
+		Assert.assertEquals("{}", afterParams);
+	}
+
+	@Test
+	public void testParamsPerRequest() throws Exception {
+		Assert.assertEquals("1,2", server.request("GET", "/x/1/2").getContent());
+		Assert.assertEquals("3,4", server.request("GET", "/x/3/4").getContent());
+	}
+
+	@Test
+	public void testInitPathParamsByRoutePath() throws Exception {
+		Assert.assertEquals("blade", server.request("GET", "/legacy/blade").getContent());
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.blade.web;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency of asynchronous requests under overload, run the main method.
+ * Requests that block for SERVICE_MILLIS arrive at 1.5 times the rate the workers can serve.
+ * The bounded executor rejects the excess, the dispatcher answers it with 503; the unbounded line
+ * is a pool of the same size with an unbounded queue, like the container pool asyncCtx.start used.
+ */
+public class RequestExecutorBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	private static final int WORKERS = 8;
+
+	private static final int QUEUE_SIZE = 16;
+
+	private static final int SERVICE_MILLIS = 10;
+
+	private static final int SECONDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		int rate = WORKERS * 1000 / SERVICE_MILLIS * 3 / 2;
+		for (int round = 0; round < ROUNDS; round++) {
+			RequestExecutor bounded = RequestExecutor.create(ExecutionMode.PLATFORM_THREADS, WORKERS, WORKERS, QUEUE_SIZE);
+			System.out.println("bounded     " + run(bounded, rate));
+			RequestExecutor unbounded = new RequestExecutor(new ThreadPoolExecutor(WORKERS, WORKERS, 60L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>()));
+			System.out.println("unbounded   " + run(unbounded, rate));
+		}
+	}
+
+	private static String run(RequestExecutor executor, int rate) throws Exception {
+		int total = rate * SECONDS;
+		final long[] latencies = new long[total];
+		final AtomicInteger completed = new AtomicInteger();
+		int rejected = 0;
+		long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		long next = System.nanoTime();
+		for (int i = 0; i < total; i++) {
+			long now;
+			while ((now = System.nanoTime()) < next) {
+				LockSupport.parkNanos(next - now);
+			}
+			next += interval;
+			final long arrival = now;
+			boolean accepted = executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SERVICE_MILLIS));
+					latencies[completed.getAndIncrement()] = System.nanoTime() - arrival;
+				}
+			});
+			if (!accepted) {
+				rejected++;
+			}
+		}
+		ExecutorService service = executor.executor();
+		service.shutdown();
+		service.awaitTermination(1, TimeUnit.MINUTES);
+
+		long[] sorted = Arrays.copyOf(latencies, completed.get());
+		Arrays.sort(sorted);
+		return "served " + sorted.length + ", rejected " + rejected
+				+ ", p50 " + millis(sorted, 0.50) + " ms, p99 " + millis(sorted, 0.99) + " ms, max " + millis(sorted, 1) + " ms";
+	}
+
+	private static long millis(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+		return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+	}
+
+}
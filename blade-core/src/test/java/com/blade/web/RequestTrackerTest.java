@@ -0,0 +1,113 @@
+package com.blade.web;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The tracker of the dispatcher, destroy() and Server.stop() drain it with DispatcherServlet.drain
+ */
+public class RequestTrackerTest {
+
+	@Test
+	public void testEnterExit() {
+		RequestTracker tracker = new RequestTracker();
+		Assert.assertTrue(tracker.enter());
+		Assert.assertTrue(tracker.enter());
+		Assert.assertEquals(2, tracker.inFlight());
+		tracker.exit();
+		tracker.exit();
+		Assert.assertEquals(0, tracker.inFlight());
+		Assert.assertEquals(2, tracker.totalCount());
+		Assert.assertEquals(0, tracker.refusedCount());
+		Assert.assertFalse(tracker.isDraining());
+	}
+
+	@Test
+	public void testDrainRefuses() {
+		RequestTracker tracker = new RequestTracker();
+		Assert.assertTrue(tracker.enter());
+		tracker.drain();
+		Assert.assertTrue(tracker.isDraining());
+		// the running request is kept, the new one is refused and not counted in flight
+		Assert.assertFalse(tracker.enter());
+		Assert.assertEquals(1, tracker.inFlight());
+		Assert.assertEquals(1, tracker.totalCount());
+		Assert.assertEquals(1, tracker.refusedCount());
+	}
+
+	@Test
+	public void testDrainIdle() {
+		RequestTracker tracker = new RequestTracker();
+		Assert.assertTrue(DispatcherServlet.drain(tracker, 0));
+		Assert.assertTrue(tracker.isDraining());
+		Assert.assertFalse(tracker.enter());
+	}
+
+	@Test
+	public void testDrainWaits() throws Exception {
+		final RequestTracker tracker = new RequestTracker();
+		Assert.assertTrue(tracker.enter());
+		Assert.assertTrue(tracker.enter());
+		final CountDownLatch draining = new CountDownLatch(1);
+		Thread requests = new Thread() {
+			@Override
+			public void run() {
+				try {
+					while (!tracker.isDraining()) {
+						Thread.sleep(1);
+					}
+					draining.countDown();
+					tracker.exit();
+					Thread.sleep(50);
+					tracker.exit();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		requests.start();
+		long start = System.nanoTime();
+		Assert.assertTrue(DispatcherServlet.drain(tracker, 10000));
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		requests.join();
+
+		Assert.assertEquals(0, draining.getCount());
+		Assert.assertEquals(0, tracker.inFlight());
+		// returned once the last request exited, not at the timeout
+		Assert.assertTrue(elapsed >= 40);
+		Assert.assertTrue(elapsed < 10000);
+	}
+
+	@Test
+	public void testDrainTimeout() throws Exception {
+		RequestTracker tracker = new RequestTracker();
+		Assert.assertTrue(tracker.enter());
+		long start = System.nanoTime();
+		Assert.assertFalse(DispatcherServlet.drain(tracker, 100));
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		Assert.assertTrue(elapsed >= 90);
+		Assert.assertEquals(1, tracker.inFlight());
+
+		// the request finishes after the timeout
+		tracker.exit();
+		Assert.assertTrue(tracker.awaitIdle(0));
+	}
+
+	@Test
+	public void testDrainInterrupted() {
+		RequestTracker tracker = new RequestTracker();
+		Assert.assertTrue(tracker.enter());
+		Thread.currentThread().interrupt();
+		try {
+			Assert.assertFalse(DispatcherServlet.drain(tracker, 10000));
+			// the interrupt is kept for the caller
+			Assert.assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.blade.web;
+
+import java.lang.reflect.Method;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.blade.annotation.CookieParam;
+import com.blade.annotation.Header;
+import com.blade.annotation.PathParam;
+import com.blade.annotation.QueryParam;
+import com.blade.route.Routers;
+import com.blade.web.http.HttpMethod;
+import com.blade.web.http.HttpStatus;
+import com.blade.web.http.Response;
+
+public class RouteArgumentTest {
+
+	private static TestServer server;
+
+	public static class Controller {
+
+		public void pathInt(@PathParam("id") int id, Response response) {
+			response.text(String.valueOf(id));
+		}
+
+		public void pathBoxed(@PathParam("id") Integer id, Response response) {
+			response.text(String.valueOf(id));
+		}
+
+		public void queryLong(@QueryParam("n") long n, Response response) {
+			response.text(String.valueOf(n));
+		}
+
+		public void queryBoxed(@QueryParam("n") Long n, Response response) {
+			response.text(String.valueOf(n));
+		}
+
+		public void headerInt(@Header("X-Count") int count, Response response) {
+			response.text(String.valueOf(count));
+		}
+
+		public void headerBoxed(@Header("X-Count") Double count, Response response) {
+			response.text(String.valueOf(count));
+		}
+
+		public void cookieShort(@CookieParam("n") short n, Response response) {
+			response.text(String.valueOf(n));
+		}
+
+		public void cookieBoxed(@CookieParam("n") Byte n, Response response) {
+			response.text(String.valueOf(n));
+		}
+	}
+
+	@BeforeClass
+	public static void start() throws Exception {
+		server = new TestServer();
+		Routers routers = server.routers();
+		Controller controller = new Controller();
+		for (Method method : Controller.class.getDeclaredMethods()) {
+			routers.addRoute(HttpMethod.GET, "/" + method.getName() + (method.getName().startsWith("path") ? "/:id" : ""), controller, method);
+		}
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testPathParam() throws Exception {
+		assertValue("42", server.request("GET", "/pathInt/42"));
+		assertValue("42", server.request("GET", "/pathBoxed/42"));
+		assertBadRequest(server.request("GET", "/pathInt/abc"));
+		assertBadRequest(server.request("GET", "/pathBoxed/abc"));
+	}
+
+	@Test
+	public void testQueryParam() throws Exception {
+		assertValue("7", server.request("GET", "/queryLong?n=7"));
+		assertValue("7", server.request("GET", "/queryBoxed?n=7"));
+		// a missing value is the default of the type
+		assertValue("0", server.request("GET", "/queryLong"));
+		assertValue("null", server.request("GET", "/queryBoxed"));
+		assertBadRequest(server.request("GET", "/queryLong?n=abc"));
+		assertBadRequest(server.request("GET", "/queryBoxed?n=1.5"));
+	}
+
+	@Test
+	public void testHeader() throws Exception {
+		assertValue("3", server.request("GET", "/headerInt", "X-Count", "3"));
+		assertValue("3.5", server.request("GET", "/headerBoxed", "X-Count", "3.5"));
+		assertBadRequest(server.request("GET", "/headerInt", "X-Count", "three"));
+		assertBadRequest(server.request("GET", "/headerBoxed", "X-Count", "three"));
+	}
+
+	@Test
+	public void testCookieParam() throws Exception {
+		assertValue("12", server.request("GET", "/cookieShort", "Cookie", "n=12"));
+		assertValue("12", server.request("GET", "/cookieBoxed", "Cookie", "n=12"));
+		assertBadRequest(server.request("GET", "/cookieShort", "Cookie", "n=abc"));
+		// out of the range of the type
+		assertBadRequest(server.request("GET", "/cookieBoxed", "Cookie", "n=1000"));
+	}
+
+	private static void assertValue(String expected, HttpTester.Response response) {
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals(expected, response.getContent());
+	}
+
+	private static void assertBadRequest(HttpTester.Response response) {
+		Assert.assertEquals(HttpStatus.BAD_REQUEST, response.getStatus());
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.blade.web;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import com.blade.ioc.SampleContainer;
+import com.blade.route.Routers;
+import com.blade.web.resource.StaticFileHandler;
+
+/**
+ * Jetty with an in-memory connector running the routes through the SyncRequestHandler,
+ * each test has its own routes instead of the routes of Blade.me()
+ */
+public class TestServer {
+
+	private final Routers routers = new Routers(new SampleContainer());
+
+	private final Server server = new Server();
+
+	private final LocalConnector connector = new LocalConnector(server);
+
+	private String webRoot;
+
+	private String[] staticFolders;
+
+	private int cacheFileSize;
+
+	public Routers routers() {
+		return routers;
+	}
+
+	/**
+	 * Serve the static folders, the routes get the other requests
+	 *
+	 * @param webRoot		directory of static files
+	 * @param folders		static folders
+	 * @param cacheFileSize	max size of a file kept in memory, larger files are sent from disk
+	 */
+	public void staticFolders(String webRoot, String[] folders, int cacheFileSize) {
+		this.webRoot = webRoot;
+		this.staticFolders = folders;
+		this.cacheFileSize = cacheFileSize;
+	}
+
+	public void start() throws Exception {
+		server.addConnector(connector);
+		ServletContextHandler context = new ServletContextHandler();
+		context.setContextPath("/");
+		context.addServlet(new ServletHolder(new HttpServlet() {
+			private static final long serialVersionUID = 1L;
+
+			private SyncRequestHandler handler;
+
+			@Override
+			public void init() throws ServletException {
+				StaticFileHandler staticFileHandler = null;
+				if (null != webRoot) {
+					try {
+						staticFileHandler = new StaticFileHandler(getServletContext(), webRoot, staticFolders, 1024 * 1024, cacheFileSize);
+					} catch (IOException e) {
+						throw new ServletException(e);
+					}
+				}
+				handler = new SyncRequestHandler(getServletContext(), routers, staticFileHandler);
+			}
+
+			@Override
+			protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+				request.setCharacterEncoding("UTF-8");
+				response.setCharacterEncoding("UTF-8");
+				handler.handle(request, response);
+			}
+		}), "/");
+		server.setHandler(context);
+		server.start();
+	}
+
+	public void stop() throws Exception {
+		server.stop();
+	}
+
+	/**
+	 * @param method	http method
+	 * @param uri		raw request uri
+	 * @param headers	header names and values
+	 * @return			return the response
+	 */
+	public HttpTester.Response request(String method, String uri, String... headers) throws Exception {
+		return request(method, uri, null, headers);
+	}
+
+	/**
+	 * @param method	http method
+	 * @param uri		raw request uri
+	 * @param body		request body, can be null
+	 * @param headers	header names and values
+	 * @return			return the response
+	 */
+	public HttpTester.Response request(String method, String uri, byte[] body, String... headers) throws Exception {
+		HttpTester.Request request = HttpTester.newRequest();
+		request.setMethod(method);
+		request.setURI(uri);
+		request.setHeader("Host", "localhost");
+		for (int i = 0; i < headers.length; i += 2) {
+			request.add(headers[i], headers[i + 1]);
+		}
+		if (null != body) {
+			request.setContent(body);
+		}
+		return send(request.generate());
+	}
+
+	/**
+	 * @param raw	a complete http request
+	 * @return		return the response
+	 */
+	public HttpTester.Response send(ByteBuffer raw) throws Exception {
+		return HttpTester.parseResponse(connector.getResponses(raw));
+	}
+
+}
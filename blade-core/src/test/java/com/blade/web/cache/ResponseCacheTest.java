@@ -0,0 +1,182 @@
+package com.blade.web.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.blade.Blade;
+import com.blade.annotation.CacheResponse;
+import com.blade.route.Routers;
+import com.blade.web.TestServer;
+import com.blade.web.http.HttpStatus;
+
+public class ResponseCacheTest {
+
+	private static final CachePolicy POLICY = new CachePolicy(60000, null, null, new String[]{ "users" });
+
+	private static TestServer server;
+
+	private static final AtomicInteger calls = new AtomicInteger();
+
+	public static class Controller {
+
+		@CacheResponse(query = { "page" }, headers = { "Accept-Language" }, tags = { "list" })
+		public void list(com.blade.web.http.Request request, com.blade.web.http.Response response) {
+			response.header("X-Call", String.valueOf(calls.incrementAndGet()));
+			response.text("page " + request.query("page"));
+		}
+
+		@CacheResponse
+		public void login(com.blade.web.http.Request request, com.blade.web.http.Response response) {
+			calls.incrementAndGet();
+			response.cookie("session", "abc", 60);
+			response.text("login");
+		}
+	}
+
+	@BeforeClass
+	public static void start() throws Exception {
+		server = new TestServer();
+		Routers routers = server.routers();
+		Controller controller = new Controller();
+		routers.route("/list", controller, "list", com.blade.web.http.HttpMethod.GET);
+		routers.route("/login", controller, "login", com.blade.web.http.HttpMethod.GET);
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testKey() {
+		CachePolicy policy = new CachePolicy(60000, new String[]{ "page" }, new String[]{ "Accept" }, null);
+		String key = policy.key(request("page=1&sort=name", "text/html"), "/list");
+		Assert.assertEquals(key, policy.key(request("sort=date&page=1", "text/html"), "/list"));
+		Assert.assertFalse(key.equals(policy.key(request("page=2", "text/html"), "/list")));
+		Assert.assertFalse(key.equals(policy.key(request("page=1", "text/plain"), "/list")));
+		Assert.assertFalse(key.equals(policy.key(request("page=1", "text/html"), "/other")));
+		// values are length prefixed, "1" + "2" is not "12"
+		Assert.assertFalse(policy.key(request("page=1&page=2", null), "/list").equals(policy.key(request("page=12", null), "/list")));
+
+		CachePolicy whole = new CachePolicy(60000, new String[]{ "*" }, null, null);
+		Assert.assertFalse(whole.key(request("page=1&sort=name", null), "/list").equals(whole.key(request("page=1", null), "/list")));
+	}
+
+	@Test
+	public void testPut() {
+		ResponseCache cache = new ResponseCache(16);
+		Response response = response(HttpStatus.OK);
+		response.setHeader("X-Custom", "blade");
+		response.setHeader("Vary", "Accept-Encoding");
+		Assert.assertTrue(cache.put("a", POLICY, response, "body".getBytes()));
+		CachedResponse cached = cache.get("a");
+		Assert.assertEquals(HttpStatus.OK, cached.getStatus());
+		Assert.assertEquals("body", new String(cached.getBody()));
+
+		// only complete 200 responses without cookies are cached
+		Assert.assertFalse(cache.put("b", POLICY, response(HttpStatus.NOT_FOUND), "body".getBytes()));
+		Assert.assertFalse(cache.put("c", POLICY, response(HttpStatus.OK), null));
+		Response cookie = response(HttpStatus.OK);
+		cookie.setHeader("Set-Cookie", "session=abc");
+		Assert.assertFalse(cache.put("d", POLICY, cookie, "body".getBytes()));
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testExpiration() throws Exception {
+		ResponseCache cache = new ResponseCache(16);
+		cache.put("a", new CachePolicy(1, null, null, null), response(HttpStatus.OK), "body".getBytes());
+		Thread.sleep(5);
+		Assert.assertNull(cache.get("a"));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testInvalidate() {
+		ResponseCache cache = new ResponseCache(16);
+		CachePolicy other = new CachePolicy(60000, null, null, new String[]{ "posts" });
+		cache.put("a", POLICY, response(HttpStatus.OK), "a".getBytes());
+		cache.put("b", POLICY, response(HttpStatus.OK), "b".getBytes());
+		cache.put("c", other, response(HttpStatus.OK), "c".getBytes());
+		Assert.assertEquals(2, cache.invalidate("users"));
+		Assert.assertNull(cache.get("a"));
+		Assert.assertNull(cache.get("b"));
+		Assert.assertNotNull(cache.get("c"));
+		Assert.assertEquals(0, cache.invalidate("users"));
+		cache.invalidateAll();
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEviction() {
+		ResponseCache cache = new ResponseCache(2);
+		cache.put("a", POLICY, response(HttpStatus.OK), "a".getBytes());
+		cache.put("b", POLICY, response(HttpStatus.OK), "b".getBytes());
+		// a is used, b is the least recently used
+		Assert.assertNotNull(cache.get("a"));
+		cache.put("c", POLICY, response(HttpStatus.OK), "c".getBytes());
+		Assert.assertEquals(2, cache.size());
+		Assert.assertNotNull(cache.get("a"));
+		Assert.assertNull(cache.get("b"));
+		Assert.assertNotNull(cache.get("c"));
+		// the evicted key is not counted for its tag
+		Assert.assertEquals(2, cache.invalidate("users"));
+	}
+
+	@Test
+	public void testReplay() throws Exception {
+		HttpTester.Response first = server.request("GET", "/list?page=1&sort=name");
+		Assert.assertEquals(HttpStatus.OK, first.getStatus());
+		Assert.assertEquals("page 1", first.getContent());
+
+		// the other query parameter is not in the key
+		HttpTester.Response replayed = server.request("GET", "/list?page=1&sort=date");
+		Assert.assertEquals("page 1", replayed.getContent());
+		Assert.assertEquals(first.get("X-Call"), replayed.get("X-Call"));
+		Assert.assertEquals(first.get("Content-Type"), replayed.get("Content-Type"));
+
+		Assert.assertFalse(first.get("X-Call").equals(server.request("GET", "/list?page=2").get("X-Call")));
+		Assert.assertFalse(first.get("X-Call").equals(server.request("GET", "/list?page=1", "Accept-Language", "zh").get("X-Call")));
+
+		Blade.me().responseCache().invalidate("list");
+		Assert.assertFalse(first.get("X-Call").equals(server.request("GET", "/list?page=1&sort=name").get("X-Call")));
+	}
+
+	@Test
+	public void testCookieNotReplayed() throws Exception {
+		int before = calls.get();
+		server.request("GET", "/login");
+		HttpTester.Response second = server.request("GET", "/login");
+		Assert.assertEquals("login", second.getContent());
+		Assert.assertNotNull(second.get("Set-Cookie"));
+		Assert.assertEquals(before + 2, calls.get());
+	}
+
+	private static Request request(String query, String accept) {
+		Request request = new Request(null, null);
+		request.setMethod(HttpMethod.GET, "GET");
+		request.setUri(new HttpURI("/list?" + query));
+		request.setQueryString(query);
+		if (null != accept) {
+			request.getHttpFields().add("Accept", accept);
+		}
+		return request;
+	}
+
+	private static Response response(int status) {
+		Response response = new Response(null, null);
+		response.setStatus(status);
+		return response;
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.blade.web.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.blade.annotation.ETag;
+import com.blade.route.Routers;
+import com.blade.web.TestServer;
+
+public class EntityTagTest {
+
+	private static TestServer server;
+
+	private static final AtomicInteger loads = new AtomicInteger();
+
+	private static volatile String body = "hello";
+
+	public static class Controller {
+
+		@ETag
+		public void hashed(Request request, Response response) {
+			response.text(body);
+		}
+
+		public void versioned(Request request, Response response) {
+			if (response.etag(request.query("v"))) {
+				return;
+			}
+			loads.incrementAndGet();
+			response.text("record");
+		}
+	}
+
+	@BeforeClass
+	public static void start() throws Exception {
+		server = new TestServer();
+		Routers routers = server.routers();
+		Controller controller = new Controller();
+		routers.route("/hashed", controller, "hashed", HttpMethod.GET);
+		routers.route("/hashed", controller, "hashed", HttpMethod.POST);
+		routers.route("/versioned", controller, "versioned", HttpMethod.GET);
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testWeak() {
+		Assert.assertEquals("W/\"ff-10\"", EntityTag.weak(255, 16));
+		Assert.assertEquals(EntityTag.weak("2015-10-01"), EntityTag.weak("2015-10-01"));
+		Assert.assertFalse(EntityTag.weak("2015-10-01").equals(EntityTag.weak("2015-10-02")));
+		Assert.assertTrue(EntityTag.weak("1").startsWith("W/\"v"));
+	}
+
+	@Test
+	public void testMatches() {
+		String etag = EntityTag.weak(255, 16);
+		Assert.assertTrue(EntityTag.matches("W/\"ff-10\"", etag));
+		// weak comparison, the strong form matches too
+		Assert.assertTrue(EntityTag.matches("\"ff-10\"", etag));
+		Assert.assertTrue(EntityTag.matches("\"a\", W/\"ff-10\"", etag));
+		Assert.assertTrue(EntityTag.matches("*", etag));
+		Assert.assertFalse(EntityTag.matches("W/\"ff-11\"", etag));
+		Assert.assertFalse(EntityTag.matches("\"a\",\"b\"", etag));
+	}
+
+	@Test
+	public void testHashedBody() throws Exception {
+		body = "hello";
+		HttpTester.Response first = server.request("GET", "/hashed");
+		String etag = first.get("ETag");
+		Assert.assertEquals(HttpStatus.OK, first.getStatus());
+		Assert.assertNotNull(etag);
+		Assert.assertTrue(etag.startsWith("W/\""));
+
+		HttpTester.Response notModified = server.request("GET", "/hashed", "If-None-Match", etag);
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatus());
+		Assert.assertEquals("", notModified.getContent());
+		Assert.assertEquals(etag, notModified.get("ETag"));
+
+		// only GET and HEAD are answered with 304
+		Assert.assertEquals(HttpStatus.OK, server.request("POST", "/hashed", "If-None-Match", etag).getStatus());
+
+		body = "hello world";
+		HttpTester.Response changed = server.request("GET", "/hashed", "If-None-Match", etag);
+		Assert.assertEquals(HttpStatus.OK, changed.getStatus());
+		Assert.assertEquals("hello world", changed.getContent());
+		Assert.assertFalse(etag.equals(changed.get("ETag")));
+	}
+
+	@Test
+	public void testVersion() throws Exception {
+		int before = loads.get();
+		HttpTester.Response first = server.request("GET", "/versioned?v=1");
+		Assert.assertEquals(HttpStatus.OK, first.getStatus());
+		Assert.assertEquals(EntityTag.weak("1"), first.get("ETag"));
+
+		// the client has the version, the record is not loaded
+		HttpTester.Response notModified = server.request("GET", "/versioned?v=1", "If-None-Match", first.get("ETag"));
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatus());
+		Assert.assertEquals(before + 1, loads.get());
+
+		Assert.assertEquals(HttpStatus.OK, server.request("GET", "/versioned?v=2", "If-None-Match", first.get("ETag")).getStatus());
+		Assert.assertEquals(before + 2, loads.get());
+	}
+
+}
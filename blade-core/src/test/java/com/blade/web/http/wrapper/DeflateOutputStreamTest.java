@@ -0,0 +1,123 @@
+package com.blade.web.http.wrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeflateOutputStreamTest {
+
+	/**
+	 * Accepts a number of bytes, then fails like a connection the client closed
+	 */
+	static class BrokenOutputStream extends OutputStream {
+
+		private int remaining;
+
+		BrokenOutputStream(int remaining) {
+			this.remaining = remaining;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (remaining-- <= 0) {
+				throw new IOException("Broken pipe");
+			}
+		}
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		byte[] body = text(100000);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DeflateOutputStream deflate = new DeflateOutputStream(buffer, "gzip", 6);
+		deflate.write(body, 0, body.length);
+		deflate.finish();
+		Assert.assertTrue(buffer.size() < body.length / 4);
+		Assert.assertArrayEquals(body, read(new GZIPInputStream(new ByteArrayInputStream(buffer.toByteArray()))));
+	}
+
+	@Test
+	public void testDeflate() throws IOException {
+		byte[] body = text(100000);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DeflateOutputStream deflate = new DeflateOutputStream(buffer, "deflate", 6);
+		deflate.write(body, 0, body.length);
+		deflate.finish();
+		Assert.assertArrayEquals(body, read(new InflaterInputStream(new ByteArrayInputStream(buffer.toByteArray()))));
+	}
+
+	@Test
+	public void testReleaseAfterWriteFailure() throws IOException {
+		int idle = DeflaterPool.GZIP.size();
+		DeflateOutputStream deflate = new DeflateOutputStream(new BrokenOutputStream(100), "gzip", 6);
+		byte[] body = random(100000);
+		try {
+			deflate.write(body, 0, body.length);
+			Assert.fail();
+		} catch (IOException e) {
+			deflate.release();
+		}
+		Assert.assertEquals(Math.max(idle, 1), DeflaterPool.GZIP.size());
+		// released once only
+		deflate.release();
+		Assert.assertEquals(Math.max(idle, 1), DeflaterPool.GZIP.size());
+	}
+
+	@Test
+	public void testReleaseAfterTrailerFailure() throws IOException {
+		int idle = DeflaterPool.GZIP.size();
+		// the header and the compressed bytes fit, the trailer does not
+		DeflateOutputStream deflate = new DeflateOutputStream(new BrokenOutputStream(12), "gzip", 6);
+		try {
+			deflate.finish();
+			Assert.fail();
+		} catch (IOException e) {
+		}
+		Assert.assertEquals(Math.max(idle, 1), DeflaterPool.GZIP.size());
+	}
+
+	@Test
+	public void testReleaseAfterHeaderFailure() {
+		int idle = DeflaterPool.GZIP.size();
+		try {
+			new DeflateOutputStream(new BrokenOutputStream(0), "gzip", 6);
+			Assert.fail();
+		} catch (IOException e) {
+		}
+		Assert.assertEquals(Math.max(idle, 1), DeflaterPool.GZIP.size());
+	}
+
+	private static byte[] text(int length) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; text.length() < length; i++) {
+			text.append("{\"id\":").append(i).append(",\"name\":\"blade\"},");
+		}
+		return text.substring(0, length).getBytes();
+	}
+
+	private static byte[] random(int length) {
+		byte[] bytes = new byte[length];
+		new Random(1).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+
+}
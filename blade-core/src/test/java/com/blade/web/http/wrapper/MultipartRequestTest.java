@@ -0,0 +1,148 @@
+package com.blade.web.http.wrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.blade.route.Routers;
+import com.blade.web.TestServer;
+import com.blade.web.http.HttpException;
+import com.blade.web.http.HttpMethod;
+import com.blade.web.http.HttpStatus;
+import com.blade.web.http.Request;
+import com.blade.web.http.Response;
+import com.blade.web.multipart.FileItem;
+import com.blade.web.multipart.MultipartStreamHandler;
+
+import blade.kit.IOKit;
+
+public class MultipartRequestTest {
+
+	static final String BOUNDARY = "----blade";
+
+	private static TestServer server;
+
+	public static class Handlers {
+
+		public void files(Request request, Response response) {
+			FileItem[] files = request.files();
+			response.text(request.query("name") + "," + files.length + "," + files[0].getFileName());
+		}
+
+		public void replay(Request request, Response response) {
+			request.files();
+			final StringBuilder parts = new StringBuilder();
+			request.parts(new MultipartStreamHandler() {
+
+				@Override
+				public void handleFormItem(String name, String value) {
+					parts.append(name).append('=').append(value).append(',');
+				}
+
+				@Override
+				public void handleFileStream(String name, String fileName, String contentType, Map<String, String> headers,
+						InputStream input) throws IOException {
+					parts.append(name).append('=').append(IOKit.toString(input));
+				}
+			});
+			response.text(parts.toString());
+		}
+
+		public void failure(Request request, Response response) {
+			HttpException first = null;
+			HttpException second = null;
+			try {
+				request.files();
+			} catch (HttpException e) {
+				first = e;
+			}
+			try {
+				request.query("name");
+			} catch (HttpException e) {
+				second = e;
+			}
+			response.text(String.valueOf(null != first && first == second));
+		}
+
+		public void parts(Request request, Response response) {
+			request.parts(new MultipartStreamHandler() {
+
+				@Override
+				public void handleFormItem(String name, String value) {
+				}
+
+				@Override
+				public void handleFileStream(String name, String fileName, String contentType, Map<String, String> headers,
+						InputStream input) throws IOException {
+				}
+			});
+			response.text("read");
+		}
+	}
+
+	@BeforeClass
+	public static void start() throws Exception {
+		server = new TestServer();
+		Routers routers = server.routers();
+		Handlers handlers = new Handlers();
+		routers.route("/files", handlers, "files", HttpMethod.POST);
+		routers.route("/replay", handlers, "replay", HttpMethod.POST);
+		routers.route("/failure", handlers, "failure", HttpMethod.POST);
+		routers.route("/parts", handlers, "parts", HttpMethod.POST);
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testFiles() throws Exception {
+		HttpTester.Response response = post("/files", body(), "multipart/form-data; boundary=" + BOUNDARY);
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals("blade,1,a.txt", response.getContent());
+	}
+
+	@Test
+	public void testPartsReplayParsedBody() throws Exception {
+		HttpTester.Response response = post("/replay", body(), "multipart/form-data; boundary=" + BOUNDARY);
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals("name=blade,file=hello", response.getContent());
+	}
+
+	@Test
+	public void testFailureIsKept() throws Exception {
+		// no boundary, the body can not be parsed
+		HttpTester.Response response = post("/failure", body(), "multipart/form-data");
+		Assert.assertEquals("true", response.getContent());
+	}
+
+	@Test
+	public void testPartsOfOtherContent() throws Exception {
+		HttpTester.Response response = post("/parts", "name=blade", "application/x-www-form-urlencoded");
+		Assert.assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, response.getStatus());
+	}
+
+	static String body() {
+		return "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"name\"\r\n\r\n"
+				+ "blade\r\n"
+				+ "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\n"
+				+ "hello\r\n"
+				+ "--" + BOUNDARY + "--\r\n";
+	}
+
+	static HttpTester.Response post(String uri, String body, String contentType) throws Exception {
+		return server.request("POST", uri, body.getBytes("UTF-8"), "Content-Type", contentType);
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.blade.web.http.wrapper;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.server.Request;
+
+/**
+ * Cost of the request views a route and its render read, run the main method with a warmed up JVM.
+ * Each operation wraps the request once and reads querys, headers, cookies and attributes twice,
+ * the legacy line copies them on every call as ServletRequest did before the views were memoized.
+ */
+public class RequestViewBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	private static final int REQUESTS = 500000;
+
+	public static void main(String[] args) throws Exception {
+		Request request = new Request(null, null);
+		request.setMethod(HttpMethod.GET, "GET");
+		request.setUri(new HttpURI("/user/1?page=2&size=20&sort=name"));
+		request.setQueryString("page=2&size=20&sort=name");
+		request.getHttpFields().add("Host", "localhost");
+		request.getHttpFields().add("Accept", "text/html");
+		request.getHttpFields().add("Accept-Encoding", "gzip");
+		request.getHttpFields().add("User-Agent", "benchmark");
+		request.setCookies(new Cookie[]{ new Cookie("session", "abc"), new Cookie("theme", "dark") });
+		request.setAttribute("user", "blade");
+		request.setAttribute("title", "index");
+
+		for (int round = 0; round < ROUNDS; round++) {
+			System.out.println("views       " + views(request) + " ns/op");
+			System.out.println("legacy      " + legacy(request) + " ns/op");
+		}
+	}
+
+	private static double views(HttpServletRequest httpRequest) throws Exception {
+		long start = System.nanoTime();
+		int hash = 0;
+		for (int i = 0; i < REQUESTS; i++) {
+			ServletRequest request = new ServletRequest(httpRequest);
+			for (int j = 0; j < 2; j++) {
+				hash += request.querys().size();
+				hash += request.headers().size();
+				hash += request.cookies().size();
+				hash += request.attributes().size();
+			}
+		}
+		return result(start, REQUESTS, hash);
+	}
+
+	private static double legacy(HttpServletRequest request) {
+		long start = System.nanoTime();
+		int hash = 0;
+		for (int i = 0; i < REQUESTS; i++) {
+			for (int j = 0; j < 2; j++) {
+				hash += querys(request).size();
+				hash += headers(request).size();
+				hash += cookies(request).size();
+				hash += attributes(request).size();
+			}
+		}
+		return result(start, REQUESTS, hash);
+	}
+
+	private static Map<String, String> querys(HttpServletRequest request) {
+		Map<String, String> params = new HashMap<String, String>();
+		for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+			String[] values = entry.getValue();
+			StringBuilder value = new StringBuilder();
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					value.append(',');
+				}
+				value.append(values[i]);
+			}
+			params.put(entry.getKey(), value.toString());
+		}
+		return Collections.unmodifiableMap(params);
+	}
+
+	private static Map<String, String> headers(HttpServletRequest request) {
+		Enumeration<String> names = request.getHeaderNames();
+		Map<String, String> headers = new HashMap<String, String>();
+		while (names.hasMoreElements()) {
+			String name = names.nextElement();
+			headers.put(name, request.getHeader(name));
+		}
+		return headers;
+	}
+
+	private static Map<String, Cookie> cookies(HttpServletRequest request) {
+		Map<String, Cookie> cookies = new HashMap<String, Cookie>();
+		for (Cookie c : request.getCookies()) {
+			Cookie cookie = new Cookie(c.getName(), c.getValue());
+			cookie.setMaxAge(c.getMaxAge());
+			cookie.setHttpOnly(c.isHttpOnly());
+			cookies.put(c.getName(), cookie);
+		}
+		return Collections.unmodifiableMap(cookies);
+	}
+
+	private static Set<String> attributes(HttpServletRequest request) {
+		Set<String> names = new HashSet<String>();
+		Enumeration<String> attributes = request.getAttributeNames();
+		while (attributes.hasMoreElements()) {
+			names.add(attributes.nextElement());
+		}
+		return names;
+	}
+
+	private static double result(long start, int requests, int hash) {
+		double nanos = (System.nanoTime() - start) / (double) requests;
+		// keeps the reads from being optimized away
+		return hash == 42 ? nanos + 1 : nanos;
+	}
+
+}
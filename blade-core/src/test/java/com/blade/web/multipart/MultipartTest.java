@@ -0,0 +1,165 @@
+package com.blade.web.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.blade.Blade;
+import com.blade.loader.Config;
+import com.blade.route.Routers;
+import com.blade.web.TestServer;
+import com.blade.web.http.HttpMethod;
+import com.blade.web.http.HttpStatus;
+import com.blade.web.http.Request;
+import com.blade.web.http.Response;
+
+public class MultipartTest {
+
+	private static final String BOUNDARY = "----blade";
+
+	private static final int THRESHOLD = 1024;
+
+	private static final int MAX_FILE_SIZE = 8192;
+
+	private static final int MAX_REQUEST_SIZE = 16384;
+
+	private static TestServer server;
+
+	private static int threshold;
+
+	private static long maxFileSize;
+
+	private static long maxRequestSize;
+
+	public static class Handlers {
+
+		public void upload(Request request, Response response) throws IOException {
+			FileItem file = request.files()[0];
+			File temp = file.isInMemory() ? null : file.getFile();
+			boolean same = Arrays.equals(content(file.getContentLength()), file.getData());
+			response.text(file.isInMemory() + "," + file.getContentLength() + "," + (null != temp && temp.isFile()) + "," + same);
+		}
+	}
+
+	@BeforeClass
+	public static void start() throws Exception {
+		Config config = Blade.me().config();
+		threshold = config.getMultipartThreshold();
+		maxFileSize = config.getMultipartMaxFileSize();
+		maxRequestSize = config.getMultipartMaxRequestSize();
+		config.setMultipartThreshold(THRESHOLD);
+		config.setMultipartMaxFileSize(MAX_FILE_SIZE);
+		config.setMultipartMaxRequestSize(MAX_REQUEST_SIZE);
+
+		server = new TestServer();
+		Routers routers = server.routers();
+		routers.route("/upload", new Handlers(), "upload", HttpMethod.POST);
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() throws Exception {
+		server.stop();
+		Config config = Blade.me().config();
+		config.setMultipartThreshold(threshold);
+		config.setMultipartMaxFileSize(maxFileSize);
+		config.setMultipartMaxRequestSize(maxRequestSize);
+	}
+
+	@Test
+	public void testInMemory() throws Exception {
+		Assert.assertEquals("true,100,false,true", upload(100).getContent());
+		Assert.assertEquals("true," + THRESHOLD + ",false,true", upload(THRESHOLD).getContent());
+	}
+
+	@Test
+	public void testSpillToDisk() throws Exception {
+		Assert.assertEquals("false," + (THRESHOLD + 1) + ",true,true", upload(THRESHOLD + 1).getContent());
+		Assert.assertEquals("false," + MAX_FILE_SIZE + ",true,true", upload(MAX_FILE_SIZE).getContent());
+	}
+
+	@Test
+	public void testMaxFileSize() throws Exception {
+		Assert.assertEquals(HttpStatus.REQUEST_ENTITY_TOO_LARGE, upload(MAX_FILE_SIZE + 1).getStatus());
+	}
+
+	@Test
+	public void testMaxRequestSize() throws Exception {
+		// each part is within the part limit, together they are over the request limit
+		byte[] body = body(6000, 6000, 6000);
+
+		// rejected by the declared length, before the body is read
+		HttpTester.Response response = server.request("POST", "/upload", body, "Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+		Assert.assertEquals(HttpStatus.REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+
+		// a chunked body has no declared length, it is rejected while it is read
+		ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		raw.write(("POST /upload HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n"
+				+ "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n\r\n").getBytes("ISO-8859-1"));
+		raw.write((Integer.toHexString(body.length) + "\r\n").getBytes("ISO-8859-1"));
+		raw.write(body);
+		raw.write("\r\n0\r\n\r\n".getBytes("ISO-8859-1"));
+		response = server.send(ByteBuffer.wrap(raw.toByteArray()));
+		Assert.assertEquals(HttpStatus.REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+	}
+
+	@Test
+	public void testLimitedInputStream() throws IOException {
+		InputStream input = new LimitedInputStream(new ByteArrayInputStream(new byte[10]), 10, "too large");
+		Assert.assertEquals(0, input.read());
+		Assert.assertEquals(9, input.read(new byte[16], 0, 16));
+		Assert.assertEquals(-1, input.read());
+
+		input = new LimitedInputStream(new ByteArrayInputStream(new byte[11]), 10, "too large");
+		Assert.assertEquals(10, input.read(new byte[10], 0, 10));
+		try {
+			input.read();
+			Assert.fail();
+		} catch (LimitedInputStream.LimitExceededException e) {
+			Assert.assertEquals("too large, the limit is 10 bytes", e.getMessage());
+		}
+
+		input = new LimitedInputStream(new ByteArrayInputStream(new byte[11]), 10, "too large");
+		try {
+			input.read(new byte[16], 0, 16);
+			Assert.fail();
+		} catch (LimitedInputStream.LimitExceededException e) {
+		}
+	}
+
+	private static HttpTester.Response upload(int size) throws Exception {
+		return server.request("POST", "/upload", body(size), "Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+	}
+
+	private static byte[] body(int... sizes) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		for (int i = 0; i < sizes.length; i++) {
+			body.write(("--" + BOUNDARY + "\r\n"
+					+ "Content-Disposition: form-data; name=\"file" + i + "\"; filename=\"" + i + ".bin\"\r\n"
+					+ "Content-Type: application/octet-stream\r\n\r\n").getBytes("ISO-8859-1"));
+			body.write(content(sizes[i]));
+			body.write("\r\n".getBytes("ISO-8859-1"));
+		}
+		body.write(("--" + BOUNDARY + "--\r\n").getBytes("ISO-8859-1"));
+		return body.toByteArray();
+	}
+
+	private static byte[] content(long size) {
+		byte[] content = new byte[(int) size];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) ('a' + i % 26);
+		}
+		return content;
+	}
+
+}
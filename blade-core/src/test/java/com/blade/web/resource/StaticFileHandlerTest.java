@@ -0,0 +1,269 @@
+package com.blade.web.resource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blade.web.TestServer;
+import com.blade.web.http.HttpStatus;
+
+public class StaticFileHandlerTest {
+
+	// files above this size are not kept in memory, they are sent from the mapped file
+	private static final int CACHE_FILE_SIZE = 64;
+
+	private static final String SMALL = "var a;";
+
+	@Rule
+	public TemporaryFolder webRoot = new TemporaryFolder();
+
+	private TestServer server;
+
+	private String large;
+
+	@Before
+	public void before() throws Exception {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			content.append((char) ('a' + i % 26));
+		}
+		large = content.toString();
+		write("static/app.js", SMALL);
+		write("static/large.txt", large);
+		write("WEB-INF/web.xml", "<web-app/>");
+		write("staticx/secret.txt", "secret");
+		server = new TestServer();
+		server.staticFolders(webRoot.getRoot().getPath(), new String[]{ "/static" }, CACHE_FILE_SIZE);
+		server.start();
+	}
+
+	@After
+	public void after() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testServeStaticFile() throws Exception {
+		HttpTester.Response response = server.request("GET", "/static/app.js");
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals(SMALL, response.getContent());
+		Assert.assertEquals("bytes", response.get("Accept-Ranges"));
+		Assert.assertNull(response.get("Vary"));
+
+		response = server.request("HEAD", "/static/app.js");
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals(String.valueOf(SMALL.length()), response.get("Content-Length"));
+
+		Assert.assertEquals(HttpStatus.METHOD_NOT_ALLOWED, server.request("POST", "/static/app.js").getStatus());
+		Assert.assertEquals(HttpStatus.NOT_FOUND, server.request("GET", "/static/missing.js").getStatus());
+	}
+
+	@Test
+	public void testServeMappedFile() throws Exception {
+		// the mapping is shared, every request gets its own region of it
+		for (int i = 0; i < 2; i++) {
+			HttpTester.Response response = server.request("GET", "/static/large.txt");
+			Assert.assertEquals(HttpStatus.OK, response.getStatus());
+			Assert.assertEquals(large, response.getContent());
+		}
+		HttpTester.Response response = server.request("GET", "/static/large.txt", "Range", "bytes=100-199");
+		Assert.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatus());
+		Assert.assertEquals(large.substring(100, 200), response.getContent());
+	}
+
+	@Test
+	public void testRegion() throws IOException {
+		File file = new File(webRoot.getRoot(), "static/large.txt");
+		StaticFile staticFile = StaticFile.load(file, "text/plain", null, CACHE_FILE_SIZE);
+		Assert.assertNull(staticFile.data);
+		ByteBuffer region = staticFile.region(10, 5);
+		Assert.assertEquals(5, region.remaining());
+		Assert.assertEquals(large.charAt(10), (char) region.get());
+		// regions do not move each other
+		Assert.assertEquals(0, staticFile.region(0, 1000).position());
+		Assert.assertEquals(large.charAt(11), (char) region.get());
+
+		// changed since it was loaded, it is not mapped
+		staticFile = StaticFile.load(file, "text/plain", null, CACHE_FILE_SIZE);
+		write("static/large.txt", "short");
+		Assert.assertNull(staticFile.region(0, 5));
+	}
+
+	@Test
+	public void testSingleByteRange() throws Exception {
+		for (String uri : new String[]{ "/static/app.js", "/static/large.txt" }) {
+			String content = uri.endsWith(".js") ? SMALL : large;
+			int length = content.length();
+
+			HttpTester.Response response = server.request("GET", uri, "Range", "bytes=0-0");
+			Assert.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatus());
+			Assert.assertEquals(content.substring(0, 1), response.getContent());
+			Assert.assertEquals("bytes 0-0/" + length, response.get("Content-Range"));
+			Assert.assertEquals("1", response.get("Content-Length"));
+
+			response = server.request("GET", uri, "Range", "bytes=-1");
+			Assert.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatus());
+			Assert.assertEquals(content.substring(length - 1), response.getContent());
+			Assert.assertEquals("bytes " + (length - 1) + "-" + (length - 1) + "/" + length, response.get("Content-Range"));
+
+			// the last byte is capped at the end of the file
+			response = server.request("GET", uri, "Range", "bytes=" + (length - 1) + "-" + (length + 100));
+			Assert.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatus());
+			Assert.assertEquals(content.substring(length - 1), response.getContent());
+
+			// multiple ranges get the whole file
+			response = server.request("GET", uri, "Range", "bytes=0-0,2-2");
+			Assert.assertEquals(HttpStatus.OK, response.getStatus());
+			Assert.assertEquals(content, response.getContent());
+		}
+	}
+
+	@Test
+	public void testUnsatisfiableRange() throws Exception {
+		int length = SMALL.length();
+		HttpTester.Response response = server.request("GET", "/static/app.js", "Range", "bytes=" + length + "-");
+		Assert.assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+		Assert.assertEquals("bytes */" + length, response.get("Content-Range"));
+
+		response = server.request("GET", "/static/app.js", "Range", "bytes=-0");
+		Assert.assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+	}
+
+	@Test
+	public void testIfRange() throws Exception {
+		String etag = server.request("HEAD", "/static/app.js").get("ETag");
+		HttpTester.Response response = server.request("GET", "/static/app.js", "Range", "bytes=0-0", "If-Range", etag);
+		Assert.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatus());
+
+		// the client has another version, it gets the whole file
+		response = server.request("GET", "/static/app.js", "Range", "bytes=0-0", "If-Range", "\"other\"");
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals(SMALL, response.getContent());
+	}
+
+	@Test
+	public void testIfNoneMatch() throws Exception {
+		HttpTester.Response first = server.request("GET", "/static/app.js");
+		String etag = first.get("ETag");
+		Assert.assertNotNull(etag);
+
+		HttpTester.Response response = server.request("GET", "/static/app.js", "If-None-Match", etag);
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatus());
+		Assert.assertEquals("", response.getContent());
+		Assert.assertEquals(etag, response.get("ETag"));
+
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, server.request("GET", "/static/app.js", "If-None-Match", "\"a\", " + etag).getStatus());
+		Assert.assertEquals(HttpStatus.OK, server.request("GET", "/static/app.js", "If-None-Match", "\"other\"").getStatus());
+	}
+
+	@Test
+	public void testIfModifiedSince() throws Exception {
+		String lastModified = server.request("HEAD", "/static/app.js").get("Last-Modified");
+		Assert.assertNotNull(lastModified);
+
+		HttpTester.Response response = server.request("GET", "/static/app.js", "If-Modified-Since", lastModified);
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatus());
+		Assert.assertEquals("", response.getContent());
+
+		response = server.request("GET", "/static/app.js", "If-Modified-Since", "Thu, 01 Jan 2015 00:00:00 GMT");
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals(HttpStatus.OK, server.request("GET", "/static/app.js", "If-Modified-Since", "not a date").getStatus());
+
+		// If-None-Match decides when both are sent
+		response = server.request("GET", "/static/app.js", "If-None-Match", "\"other\"", "If-Modified-Since", lastModified);
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+	}
+
+	@Test
+	public void testPrecompressed() throws Exception {
+		File js = new File(webRoot.getRoot(), "static/app.js");
+		write("static/app.js.gz", "gzip body");
+		write("static/app.js.br", "brotli body");
+		long modified = js.lastModified();
+		new File(webRoot.getRoot(), "static/app.js.gz").setLastModified(modified);
+		new File(webRoot.getRoot(), "static/app.js.br").setLastModified(modified);
+
+		HttpTester.Response response = server.request("GET", "/static/app.js", "Accept-Encoding", "gzip, br");
+		Assert.assertEquals("brotli body", response.getContent());
+		Assert.assertEquals("br", response.get("Content-Encoding"));
+		Assert.assertEquals("Accept-Encoding", response.get("Vary"));
+		String brotliTag = response.get("ETag");
+
+		response = server.request("GET", "/static/app.js", "Accept-Encoding", "gzip, deflate");
+		Assert.assertEquals("gzip body", response.getContent());
+		Assert.assertEquals("gzip", response.get("Content-Encoding"));
+		Assert.assertFalse(brotliTag.equals(response.get("ETag")));
+
+		response = server.request("GET", "/static/app.js", "Accept-Encoding", "br;q=0, gzip");
+		Assert.assertEquals("gzip body", response.getContent());
+
+		response = server.request("GET", "/static/app.js", "Accept-Encoding", "deflate");
+		Assert.assertEquals(SMALL, response.getContent());
+		Assert.assertNull(response.get("Content-Encoding"));
+		Assert.assertEquals("Accept-Encoding", response.get("Vary"));
+
+		response = server.request("GET", "/static/app.js");
+		Assert.assertEquals(SMALL, response.getContent());
+
+		// each coding has its own validator
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED,
+				server.request("GET", "/static/app.js", "Accept-Encoding", "br", "If-None-Match", brotliTag).getStatus());
+		Assert.assertEquals(HttpStatus.OK,
+				server.request("GET", "/static/app.js", "Accept-Encoding", "gzip", "If-None-Match", brotliTag).getStatus());
+
+		// ranges apply to the file itself, not to an encoded body
+		response = server.request("GET", "/static/app.js", "Accept-Encoding", "gzip", "Range", "bytes=0-0");
+		Assert.assertEquals(HttpStatus.OK, response.getStatus());
+		Assert.assertEquals("gzip body", response.getContent());
+	}
+
+	@Test
+	public void testStaleSibling() throws Exception {
+		File js = new File(webRoot.getRoot(), "static/app.js");
+		write("static/app.js.gz", "gzip body");
+		new File(webRoot.getRoot(), "static/app.js.gz").setLastModified(js.lastModified() - 60000);
+
+		HttpTester.Response response = server.request("GET", "/static/app.js", "Accept-Encoding", "gzip");
+		Assert.assertEquals(SMALL, response.getContent());
+		Assert.assertNull(response.get("Content-Encoding"));
+	}
+
+	@Test
+	public void testEncodedParentSegment() throws Exception {
+		Assert.assertEquals(HttpStatus.NOT_FOUND, server.request("GET", "/static/%2e%2e/WEB-INF/web.xml").getStatus());
+		Assert.assertEquals(HttpStatus.NOT_FOUND, server.request("GET", "/static/%2E%2E/staticx/secret.txt").getStatus());
+	}
+
+	@Test
+	public void testDoubleEncodedParentSegment() throws Exception {
+		Assert.assertEquals(HttpStatus.NOT_FOUND, server.request("GET", "/static/%252e%252e/WEB-INF/web.xml").getStatus());
+	}
+
+	@Test
+	public void testParentSegment() throws Exception {
+		Assert.assertEquals(HttpStatus.NOT_FOUND, server.request("GET", "/static/../WEB-INF/web.xml").getStatus());
+		Assert.assertEquals(HttpStatus.NOT_FOUND, server.request("GET", "/static/..%5cWEB-INF/web.xml").getStatus());
+		Assert.assertEquals(HttpStatus.NOT_FOUND, server.request("GET", "/static/..%5cstaticx/secret.txt").getStatus());
+	}
+
+	private void write(String name, String content) throws IOException {
+		File file = new File(webRoot.getRoot(), name);
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+}
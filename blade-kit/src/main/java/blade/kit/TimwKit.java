@@ -18,6 +18,7 @@ package blade.kit;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import blade.kit.log.Logger;
 
@@ -35,21 +36,33 @@ public class TimwKit {
 	private static final Logger LOGGER = Logger.getLogger(TimwKit.class);
 	
 	private ArrayList<Number> numList = new ArrayList<Number>();
+	
+	private final ReentrantLock lock = new ReentrantLock();
 
 	/**
 	 * 添加一个数字
 	 *
 	 * @param num
 	 */
-	public synchronized void add(Number num) {
-		numList.add(num);
+	public void add(Number num) {
+		lock.lock();
+		try {
+			numList.add(num);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
 	 * 清除全部
 	 */
 	public void clear() {
-		numList.clear();
+		lock.lock();
+		try {
+			numList.clear();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
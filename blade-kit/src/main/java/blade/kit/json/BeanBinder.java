@@ -0,0 +1,199 @@
+package blade.kit.json;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bind a parsed JSON value to a java bean through its setters.
+ * The setters of a class are introspected once and cached.
+ */
+final class BeanBinder {
+	
+	private static final Map<Class<?>, Map<String, Method>> SETTERS = new ConcurrentHashMap<Class<?>, Map<String, Method>>();
+	
+	private BeanBinder() {
+	}
+	
+	static Object bind(JsonValue value, Class<?> type, Type genericType) {
+		if (null == value || value.isNull()) {
+			return defaultValue(type);
+		}
+		if (JsonValue.class.isAssignableFrom(type)) {
+			return value;
+		}
+		if (type == String.class) {
+			return value.isString() ? value.asString() : value.toString();
+		}
+		if (type == int.class || type == Integer.class) {
+			return value.isString() ? Integer.valueOf(value.asString()) : Integer.valueOf(value.asInt());
+		}
+		if (type == long.class || type == Long.class) {
+			return value.isString() ? Long.valueOf(value.asString()) : Long.valueOf(value.asLong());
+		}
+		if (type == double.class || type == Double.class) {
+			return value.isString() ? Double.valueOf(value.asString()) : Double.valueOf(value.asDouble());
+		}
+		if (type == float.class || type == Float.class) {
+			return value.isString() ? Float.valueOf(value.asString()) : Float.valueOf(value.asFloat());
+		}
+		if (type == boolean.class || type == Boolean.class) {
+			return value.isString() ? Boolean.valueOf(value.asString()) : Boolean.valueOf(value.asBoolean());
+		}
+		if (type == short.class || type == Short.class) {
+			return value.isString() ? Short.valueOf(value.asString()) : Short.valueOf((short) value.asInt());
+		}
+		if (type == byte.class || type == Byte.class) {
+			return value.isString() ? Byte.valueOf(value.asString()) : Byte.valueOf((byte) value.asInt());
+		}
+		if (type.isArray()) {
+			JsonArray array = value.asArray();
+			Object result = Array.newInstance(type.getComponentType(), array.size());
+			for (int i = 0; i < array.size(); i++) {
+				Array.set(result, i, bind(array.get(i), type.getComponentType(), type.getComponentType()));
+			}
+			return result;
+		}
+		if (Collection.class.isAssignableFrom(type)) {
+			Class<?> elementType = typeArgument(genericType, 0);
+			Collection<Object> collection = Set.class.isAssignableFrom(type) ? new HashSet<Object>() : new ArrayList<Object>();
+			for (JsonValue element : value.asArray()) {
+				collection.add(bind(element, elementType, elementType));
+			}
+			return collection;
+		}
+		if (Map.class.isAssignableFrom(type)) {
+			Class<?> valueType = typeArgument(genericType, 1);
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			for (JsonObject.Member member : value.asObject()) {
+				map.put(member.getName(), bind(member.getValue(), valueType, valueType));
+			}
+			return map;
+		}
+		if (type == Object.class) {
+			return toObject(value);
+		}
+		return bindBean(value.asObject(), type);
+	}
+	
+	private static Object bindBean(JsonObject jsonObject, Class<?> type) {
+		Map<String, Method> setters = setters(type);
+		try {
+			Object bean = type.newInstance();
+			for (JsonObject.Member member : jsonObject) {
+				Method setter = setters.get(member.getName());
+				if (null != setter) {
+					Object value = bind(member.getValue(), setter.getParameterTypes()[0], setter.getGenericParameterTypes()[0]);
+					setter.invoke(bean, value);
+				}
+			}
+			return bean;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Can not bind json to " + type.getName(), e);
+		}
+	}
+	
+	private static Map<String, Method> setters(Class<?> type) {
+		Map<String, Method> setters = SETTERS.get(type);
+		if (null == setters) {
+			setters = new ConcurrentHashMap<String, Method>();
+			try {
+				BeanInfo beanInfo = Introspector.getBeanInfo(type);
+				for (PropertyDescriptor property : beanInfo.getPropertyDescriptors()) {
+					Method setter = property.getWriteMethod();
+					if (null != setter) {
+						setter.setAccessible(true);
+						setters.put(property.getName(), setter);
+					}
+				}
+			} catch (IntrospectionException e) {
+				throw new IllegalArgumentException(e);
+			}
+			SETTERS.put(type, setters);
+		}
+		return setters;
+	}
+	
+	private static Object toObject(JsonValue value) {
+		if (value.isString()) {
+			return value.asString();
+		}
+		if (value.isBoolean()) {
+			return Boolean.valueOf(value.asBoolean());
+		}
+		if (value.isNumber()) {
+			double number = value.asDouble();
+			if (number == Math.rint(number) && Math.abs(number) < Long.MAX_VALUE) {
+				return Long.valueOf((long) number);
+			}
+			return Double.valueOf(number);
+		}
+		if (value.isArray()) {
+			List<Object> list = new ArrayList<Object>();
+			for (JsonValue element : value.asArray()) {
+				list.add(toObject(element));
+			}
+			return list;
+		}
+		if (value.isObject()) {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			for (JsonObject.Member member : value.asObject()) {
+				map.put(member.getName(), toObject(member.getValue()));
+			}
+			return map;
+		}
+		return null;
+	}
+	
+	private static Class<?> typeArgument(Type genericType, int index) {
+		if (genericType instanceof ParameterizedType) {
+			Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+			if (arguments.length > index && arguments[index] instanceof Class) {
+				return (Class<?>) arguments[index];
+			}
+		}
+		return Object.class;
+	}
+	
+	private static Object defaultValue(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return null;
+		}
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		}
+		if (type == long.class) {
+			return Long.valueOf(0L);
+		}
+		if (type == double.class) {
+			return Double.valueOf(0D);
+		}
+		if (type == float.class) {
+			return Float.valueOf(0F);
+		}
+		if (type == short.class) {
+			return Short.valueOf((short) 0);
+		}
+		if (type == byte.class) {
+			return Byte.valueOf((byte) 0);
+		}
+		if (type == char.class) {
+			return Character.valueOf((char) 0);
+		}
+		return Integer.valueOf(0);
+	}
+	
+}
@@ -1,5 +1,7 @@
 package blade.kit.json;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 import java.util.Map;
 
@@ -13,6 +15,25 @@ public class JSONKit {
 		return Json.parseToMap(jsonObject);
 	}
 	
+	/**
+	 * Parse a json string to a java bean, properties are set through the bean setters
+	 */
+	public static <T> T toBean(String json, Class<T> type){
+		return toBean(Json.parse(json), type);
+	}
+	
+	/**
+	 * Parse json from a reader to a java bean without reading it into a string first
+	 */
+	public static <T> T toBean(Reader reader, Class<T> type) throws IOException {
+		return toBean(Json.parse(reader), type);
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static <T> T toBean(JsonValue value, Class<T> type){
+		return (T) BeanBinder.bind(value, type, type);
+	}
+	
 	public static String toJSONString(Object bean){
 		return Json.parse(bean).toString();
 	}
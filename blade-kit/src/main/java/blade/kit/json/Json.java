@@ -340,6 +340,29 @@ public final class Json {
 		return new JsonParser(reader).parse();
 	}
 
+	/**
+	 * Parse JSON from a reader using a buffer of the caller, e.g. a pooled one
+	 *
+	 * @param reader
+	 *            the reader to read the JSON value from
+	 * @param buffer
+	 *            char buffer of the parser, at least 10 chars
+	 * @return a value that represents the parsed JSON
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws ParseException
+	 *             if the input is not valid JSON
+	 */
+	public static JsonValue parse(Reader reader, char[] buffer) throws IOException {
+		if (reader == null) {
+			throw new NullPointerException("reader is null");
+		}
+		if (buffer.length < 10) {
+			throw new IllegalArgumentException("buffer is smaller than 10 chars");
+		}
+		return new JsonParser(reader, buffer).parse();
+	}
+
 	/**
 	 * 对象转换为JsonValue对象
 	 * 
@@ -61,8 +61,12 @@ class JsonParser {
   }
 
   JsonParser(Reader reader, int buffersize) {
+    this(reader, new char[buffersize]);
+  }
+
+  JsonParser(Reader reader, char[] buffer) {
     this.reader = reader;
-    buffer = new char[buffersize];
+    this.buffer = buffer;
     line = 1;
     captureStart = -1;
   }
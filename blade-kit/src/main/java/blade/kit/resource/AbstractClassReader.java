@@ -17,15 +17,24 @@ package blade.kit.resource;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import blade.kit.Assert;
 import blade.kit.CollectionKit;
+import blade.kit.IOKit;
 import blade.kit.log.Logger;
 
 /**
@@ -38,6 +47,17 @@ public abstract class AbstractClassReader implements ClassReader {
 
 	private static final Logger LOGGER = Logger.getLogger(AbstractClassReader.class);
 	
+	/**
+	 * 已读取的class头信息，同一个读取器的多次扫描共享，扫描完成后调用clearCache释放
+	 */
+	private final Map<String, ClassInfo> classInfos = new ConcurrentHashMap<String, ClassInfo>();
+	
+	private final AtomicInteger scannedCount = new AtomicInteger();
+	
+	private final AtomicInteger loadedCount = new AtomicInteger();
+	
+	private final AtomicLong scanNanos = new AtomicLong();
+	
 	@Override
 	public Set<Class<?>> getClass(String packageName, boolean recursive) {
 		return this.getClassByAnnotation(packageName, null, null, recursive);
@@ -78,8 +98,12 @@ public abstract class AbstractClassReader implements ClassReader {
                 } else {
                     // 如果是java类文件 去掉后面的.class 只留下类名
                     String className = file.getName().substring(0, file.getName().length() - 6);
+                    // 先读取class头信息，不符合条件的类不加载
+                    if(!isCandidate(readClassInfo(file), parent, annotation)){
+                    	continue;
+                    }
                     try {
-                    	Class<?> clazz = Class.forName(packageName + '.' + className);
+                    	Class<?> clazz = loadClass(packageName + '.' + className);
                     	if(null != parent && null != annotation){
                     		if(null != clazz.getSuperclass() && clazz.getSuperclass().equals(parent) && 
                     				null != clazz.getAnnotation(annotation)){
@@ -134,16 +158,146 @@ public abstract class AbstractClassReader implements ClassReader {
 		return this.getClassByAnnotation(packageName, null, annotation, recursive);
 	}
 
+	/**
+	 * 读取class文件的头信息
+	 * @param file
+	 * @return 无法读取时返回null
+	 */
+	private ClassInfo readClassInfo(File file) {
+		String key = file.getAbsolutePath();
+		ClassInfo classInfo = classInfos.get(key);
+		if(null != classInfo){
+			return classInfo;
+		}
+		try {
+			return readClassInfo(key, new FileInputStream(file));
+		} catch (IOException e) {
+			LOGGER.debug("Can not read " + key + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * 读取class头信息并缓存
+	 * @param key	class文件的位置
+	 * @param in	class文件流，读取后关闭
+	 * @return 无法读取时返回null
+	 */
+	protected ClassInfo readClassInfo(String key, InputStream in) {
+		ClassInfo classInfo = classInfos.get(key);
+		if(null != classInfo){
+			IOKit.closeQuietly(in);
+			return classInfo;
+		}
+		try {
+			classInfo = ClassInfo.read(in);
+			classInfos.put(key, classInfo);
+			return classInfo;
+		} catch (IOException e) {
+			LOGGER.debug("Can not read " + key + ": " + e.getMessage());
+			return null;
+		} finally {
+			IOKit.closeQuietly(in);
+		}
+	}
+	
+	/**
+	 * 根据class头信息判断是否需要加载这个类，加载后仍按原规则检查
+	 * @param classInfo	class头信息，null时总是加载
+	 * @param parent
+	 * @param annotation
+	 * @return
+	 */
+	protected boolean isCandidate(ClassInfo classInfo, Class<?> parent, Class<? extends Annotation> annotation) {
+		scannedCount.incrementAndGet();
+		if(null == classInfo){
+			return true;
+		}
+		if(null != parent){
+			String parentName = parent.getName();
+			boolean isChild = parentName.equals(classInfo.getSuperName());
+			for(String interfaceName : classInfo.getInterfaceNames()){
+				isChild = isChild || parentName.equals(interfaceName);
+			}
+			if(!isChild){
+				return false;
+			}
+		}
+		if(null != annotation && !classInfo.hasAnnotation(annotation.getName())){
+			// 可继承的注解可能声明在父类上
+			return annotation.isAnnotationPresent(Inherited.class) && null != classInfo.getSuperName() 
+					&& !"java.lang.Object".equals(classInfo.getSuperName());
+		}
+		return true;
+	}
+	
+	/**
+	 * 加载类，不执行静态初始化
+	 * @param className
+	 * @return
+	 * @throws ClassNotFoundException
+	 */
+	protected Class<?> loadClass(String className) throws ClassNotFoundException {
+		loadedCount.incrementAndGet();
+		return Class.forName(className, false, getClassLoader());
+	}
+	
+	/**
+	 * @return 线程上下文类加载器，没有时返回加载此类的类加载器
+	 */
+	protected ClassLoader getClassLoader() {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return null != classLoader ? classLoader : AbstractClassReader.class.getClassLoader();
+	}
+	
+	/**
+	 * 清除已读取的class头信息，之后的扫描重新读取class文件
+	 */
+	public void clearCache() {
+		classInfos.clear();
+	}
+	
+	protected void scanned(long startNanos) {
+		scanNanos.addAndGet(System.nanoTime() - startNanos);
+	}
+	
+	/**
+	 * @return 扫描过的class文件数
+	 */
+	public int getScannedCount() {
+		return scannedCount.get();
+	}
+	
+	/**
+	 * @return 加载过的类数
+	 */
+	public int getLoadedCount() {
+		return loadedCount.get();
+	}
+	
+	/**
+	 * @return 扫描耗时，毫秒
+	 */
+	public long getScanTime() {
+		return TimeUnit.NANOSECONDS.toMillis(scanNanos.get());
+	}
+	
+	@Override
+	public String toString() {
+		return "scanned " + getScannedCount() + " classes, loaded " + getLoadedCount() + " in " + getScanTime() + "ms";
+	}
+	
 	@Override
 	public Set<Class<?>> getClassByAnnotation(String packageName, Class<?> parent, Class<? extends Annotation> annotation, boolean recursive) {
 		Assert.notBlank(packageName);
+		long start = System.nanoTime();
 		Set<Class<?>> classes = CollectionKit.newHashSet();
         // 获取包的名字 并进行替换
         String packageDirName = packageName.replace('.', '/');
         // 定义一个枚举的集合 并进行循环来处理这个目录下的URL
         Enumeration<URL> dirs;
         try {
-            dirs = Thread.currentThread().getContextClassLoader().getResources(packageDirName);
+            dirs = getClassLoader().getResources(packageDirName);
             // 循环迭代下去
             while (dirs.hasMoreElements()) {
                 // 获取下一个元素
@@ -157,6 +311,8 @@ public abstract class AbstractClassReader implements ClassReader {
             }
         } catch (IOException e) {
         	LOGGER.error(e.getMessage());
+        } finally {
+        	scanned(start);
         }
         return classes;
 	}
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2015, biezhi 王爵 (biezhi.me@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blade.kit.resource;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+
+import blade.kit.CollectionKit;
+
+/**
+ * Header of a class file, read without loading the class
+ * <p>
+ * Only the constant pool, the super types and the runtime visible annotations of the class are read,
+ * so a scanner can decide whether a class is a candidate before Class.forName loads it.
+ * </p>
+ *
+ * @author	<a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
+ * @since	1.5
+ */
+public class ClassInfo {
+	
+	private static final int MAGIC = 0xCAFEBABE;
+	
+	private static final int ACC_INTERFACE = 0x0200;
+	
+	private static final int ACC_ABSTRACT = 0x0400;
+	
+	private static final int ACC_ANNOTATION = 0x2000;
+	
+	private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+	
+	private final String name;
+	
+	private final String superName;
+	
+	private final String[] interfaceNames;
+	
+	private final Set<String> annotationNames;
+	
+	private final int access;
+	
+	private ClassInfo(String name, String superName, String[] interfaceNames, Set<String> annotationNames, int access) {
+		this.name = name;
+		this.superName = superName;
+		this.interfaceNames = interfaceNames;
+		this.annotationNames = annotationNames;
+		this.access = access;
+	}
+	
+	/**
+	 * Read the header of a class file, the stream is not closed
+	 * 
+	 * @param in	class file stream
+	 * @return		return the class info
+	 * @throws IOException	if the stream is not a class file
+	 */
+	public static ClassInfo read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a class file");
+		}
+		// minor and major version
+		data.readInt();
+		
+		int count = data.readUnsignedShort();
+		String[] utf8 = new String[count];
+		int[] classes = new int[count];
+		for (int i = 1; i < count; i++) {
+			int tag = data.readUnsignedByte();
+			switch (tag) {
+			case 1:
+				utf8[i] = data.readUTF();
+				break;
+			case 7:
+				classes[i] = data.readUnsignedShort();
+				break;
+			case 8: case 16: case 19: case 20:
+				skip(data, 2);
+				break;
+			case 15:
+				skip(data, 3);
+				break;
+			case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+				skip(data, 4);
+				break;
+			case 5: case 6:
+				// long and double take two entries
+				skip(data, 8);
+				i++;
+				break;
+			default:
+				throw new IOException("Unknown constant pool tag " + tag);
+			}
+		}
+		
+		int access = data.readUnsignedShort();
+		String name = className(utf8, classes, data.readUnsignedShort());
+		String superName = className(utf8, classes, data.readUnsignedShort());
+		String[] interfaceNames = new String[data.readUnsignedShort()];
+		for (int i = 0; i < interfaceNames.length; i++) {
+			interfaceNames[i] = className(utf8, classes, data.readUnsignedShort());
+		}
+		
+		// fields and methods
+		for (int n = 0; n < 2; n++) {
+			int members = data.readUnsignedShort();
+			for (int i = 0; i < members; i++) {
+				skip(data, 6);
+				skipAttributes(data);
+			}
+		}
+		
+		Set<String> annotationNames = Collections.emptySet();
+		int attributes = data.readUnsignedShort();
+		for (int i = 0; i < attributes; i++) {
+			String attribute = utf8[data.readUnsignedShort()];
+			int length = data.readInt();
+			if (!RUNTIME_VISIBLE_ANNOTATIONS.equals(attribute)) {
+				skip(data, length);
+				continue;
+			}
+			int annotations = data.readUnsignedShort();
+			annotationNames = CollectionKit.newHashSet(annotations);
+			for (int j = 0; j < annotations; j++) {
+				String descriptor = utf8[data.readUnsignedShort()];
+				// Lcom/blade/annotation/Path;
+				annotationNames.add(descriptor.substring(1, descriptor.length() - 1).replace('/', '.'));
+				skipElementValuePairs(data);
+			}
+			break;
+		}
+		return new ClassInfo(name, superName, interfaceNames, annotationNames, access);
+	}
+	
+	private static String className(String[] utf8, int[] classes, int index) {
+		if (index == 0) {
+			return null;
+		}
+		return utf8[classes[index]].replace('/', '.');
+	}
+	
+	private static void skipAttributes(DataInputStream data) throws IOException {
+		int attributes = data.readUnsignedShort();
+		for (int i = 0; i < attributes; i++) {
+			skip(data, 2);
+			skip(data, data.readInt());
+		}
+	}
+	
+	private static void skipElementValuePairs(DataInputStream data) throws IOException {
+		int pairs = data.readUnsignedShort();
+		for (int i = 0; i < pairs; i++) {
+			skip(data, 2);
+			skipElementValue(data);
+		}
+	}
+	
+	private static void skipElementValue(DataInputStream data) throws IOException {
+		int tag = data.readUnsignedByte();
+		switch (tag) {
+		case 'e':
+			skip(data, 4);
+			break;
+		case '@':
+			skip(data, 2);
+			skipElementValuePairs(data);
+			break;
+		case '[':
+			int values = data.readUnsignedShort();
+			for (int i = 0; i < values; i++) {
+				skipElementValue(data);
+			}
+			break;
+		default:
+			// constants and classes
+			skip(data, 2);
+		}
+	}
+	
+	private static void skip(DataInputStream data, int length) throws IOException {
+		int left = length;
+		while (left > 0) {
+			int skipped = data.skipBytes(left);
+			if (skipped <= 0) {
+				throw new IOException("Truncated class file");
+			}
+			left -= skipped;
+		}
+	}
+	
+	/**
+	 * @return	Return the fully qualified class name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return	Return the super class name, null for java.lang.Object
+	 */
+	public String getSuperName() {
+		return superName;
+	}
+	
+	public String[] getInterfaceNames() {
+		return interfaceNames;
+	}
+	
+	/**
+	 * @return	Return the names of the runtime visible annotations declared on the class
+	 */
+	public Set<String> getAnnotationNames() {
+		return annotationNames;
+	}
+	
+	public boolean hasAnnotation(String annotationName) {
+		return annotationNames.contains(annotationName);
+	}
+	
+	public boolean isInterface() {
+		return (access & ACC_INTERFACE) != 0;
+	}
+	
+	public boolean isAbstract() {
+		return (access & ACC_ABSTRACT) != 0;
+	}
+	
+	public boolean isAnnotation() {
+		return (access & ACC_ANNOTATION) != 0;
+	}
+	
+	@Override
+	public String toString() {
+		return name;
+	}
+	
+}
@@ -57,13 +57,14 @@ public class JarReaderImpl extends AbstractClassReader implements ClassReader {
 	@Override
 	public Set<Class<?>> getClassByAnnotation(String packageName, Class<?> parent, Class<? extends Annotation> annotation, boolean recursive) {
 		Assert.notBlank(packageName);
+		long start = System.nanoTime();
 		Set<Class<?>> classes = CollectionKit.newHashSet();
         // 获取包的名字 并进行替换
         String packageDirName = packageName.replace('.', '/');
         // 定义一个枚举的集合 并进行循环来处理这个目录下的URL
         Enumeration<URL> dirs;
         try {
-            dirs = Thread.currentThread().getContextClassLoader().getResources(packageDirName);
+            dirs = getClassLoader().getResources(packageDirName);
             // 循环迭代下去
             while (dirs.hasMoreElements()) {
                 // 获取下一个元素
@@ -75,6 +76,8 @@ public class JarReaderImpl extends AbstractClassReader implements ClassReader {
             }
         } catch (IOException e) {
         	LOGGER.error(e.getMessage());
+        } finally {
+        	scanned(start);
         }
         return classes;
 	}
@@ -114,9 +117,14 @@ public class JarReaderImpl extends AbstractClassReader implements ClassReader {
 							if (name.endsWith(".class") && !entry.isDirectory()) {
 								// 去掉后面的".class" 获取真正的类名
 								String className = name.substring(packageName.length() + 1, name.length() - 6);
+								// 先读取class头信息，不符合条件的类不加载
+								ClassInfo classInfo = readClassInfo(jarFile.getName() + "!/" + name, jarFile.getInputStream(entry));
+								if(!isCandidate(classInfo, parent, annotation)){
+									continue;
+								}
 								try {
 									// 添加到classes
-									Class<?> clazz = Class.forName(packageName + '.' + className);
+									Class<?> clazz = loadClass(packageName + '.' + className);
 									if(null != parent && null != annotation){
 			                    		if(null != clazz.getSuperclass() && 
 			                    			clazz.getSuperclass().equals(parent) && null != clazz.getAnnotation(annotation)){
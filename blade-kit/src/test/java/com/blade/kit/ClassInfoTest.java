@@ -0,0 +1,137 @@
+package com.blade.kit;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import blade.kit.resource.ClassInfo;
+
+public class ClassInfoTest {
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	public @interface Marker {
+		String value() default "";
+		ElementType type() default ElementType.TYPE;
+		int[] numbers() default {};
+		Class<?> target() default Object.class;
+		Retention nested() default @Retention(RetentionPolicy.CLASS);
+	}
+
+	@Retention(RetentionPolicy.CLASS)
+	public @interface Invisible {
+	}
+
+	public static class Base {
+	}
+
+	// every kind of element value, and long, double, float and int constants in the pool
+	@Marker(value = "fixture", type = ElementType.METHOD, numbers = { 1, 2 }, target = String.class, nested = @Retention(RetentionPolicy.SOURCE))
+	@Invisible
+	@Deprecated
+	public static class Fixture extends Base implements Serializable, Comparable<Fixture> {
+		private static final long serialVersionUID = 1L;
+		static long big = 1234567890123L;
+		static double ratio = 0.123456789D;
+		static float half = 0.5F;
+		static int large = 1234567;
+		String name = "fixture";
+
+		@Override
+		public int compareTo(Fixture o) {
+			return name.compareTo(o.name);
+		}
+	}
+
+	@Test
+	public void testFixture() throws IOException {
+		ClassInfo info = read(Fixture.class);
+		Assert.assertEquals(Fixture.class.getName(), info.getName());
+		Assert.assertEquals(Base.class.getName(), info.getSuperName());
+		Assert.assertEquals(Arrays.asList(Serializable.class.getName(), Comparable.class.getName()), Arrays.asList(info.getInterfaceNames()));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList(Marker.class.getName(), Deprecated.class.getName())), info.getAnnotationNames());
+		Assert.assertTrue(info.hasAnnotation(Marker.class.getName()));
+		Assert.assertFalse(info.hasAnnotation(Invisible.class.getName()));
+		Assert.assertFalse(info.isInterface());
+		Assert.assertFalse(info.isAbstract());
+		Assert.assertFalse(info.isAnnotation());
+	}
+
+	@Test
+	public void testKinds() throws IOException {
+		ClassInfo runnable = read(Runnable.class);
+		Assert.assertTrue(runnable.isInterface());
+		Assert.assertNull(read(Object.class).getSuperName());
+		Assert.assertTrue(read(AbstractList.class).isAbstract());
+
+		ClassInfo marker = read(Marker.class);
+		Assert.assertTrue(marker.isAnnotation());
+		Assert.assertTrue(marker.isInterface());
+		Assert.assertEquals(Arrays.asList("java.lang.annotation.Annotation"), Arrays.asList(marker.getInterfaceNames()));
+		Assert.assertTrue(marker.hasAnnotation(Retention.class.getName()));
+		Assert.assertTrue(marker.hasAnnotation(Target.class.getName()));
+	}
+
+	/**
+	 * Classes with method handle, method type and invokedynamic constants, the tags of lambdas
+	 */
+	@Test
+	public void testJdkClasses() throws IOException {
+		for (String name : new String[]{ "java.util.stream.Collectors", "java.util.Comparator", "java.lang.String", "java.util.HashMap" }) {
+			InputStream in = Object.class.getResourceAsStream("/" + name.replace('.', '/') + ".class");
+			if (null == in) {
+				// java 6 and 7 have no streams
+				continue;
+			}
+			try {
+				Assert.assertEquals(name, ClassInfo.read(in).getName());
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotClassFile() throws IOException {
+		ClassInfo.read(new ByteArrayInputStream("not a class file".getBytes("UTF-8")));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		InputStream in = ClassInfoTest.class.getResourceAsStream("ClassInfoTest$Fixture.class");
+		byte[] bytes;
+		try {
+			bytes = new byte[200];
+			int read = 0;
+			while (read < bytes.length) {
+				read += in.read(bytes, read, bytes.length - read);
+			}
+		} finally {
+			in.close();
+		}
+		ClassInfo.read(new ByteArrayInputStream(bytes));
+	}
+
+	private static ClassInfo read(Class<?> type) throws IOException {
+		String name = type.getName();
+		InputStream in = type.getResourceAsStream("/" + name.replace('.', '/') + ".class");
+		Assert.assertNotNull(name, in);
+		try {
+			return ClassInfo.read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -1,17 +1,155 @@
 package com.blade.kit;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
 
 import blade.kit.json.JSONKit;
 import blade.kit.json.Json;
 import blade.kit.json.JsonArray;
 import blade.kit.json.JsonObject;
 import blade.kit.json.JsonValue;
+import blade.kit.json.ParseException;
 
 public class JSONTest {
+	
+	public static class Order {
+		private String id;
+		private User buyer;
+		private List<User> users;
+		private Set<String> tags;
+		private Map<String, Integer> counts;
+		private int[] codes;
+		private int quantity;
+		private boolean paid;
+		private double total;
+		private Long version;
+		
+		public void setId(String id) { this.id = id; }
+		public void setBuyer(User buyer) { this.buyer = buyer; }
+		public void setUsers(List<User> users) { this.users = users; }
+		public void setTags(Set<String> tags) { this.tags = tags; }
+		public void setCounts(Map<String, Integer> counts) { this.counts = counts; }
+		public void setCodes(int[] codes) { this.codes = codes; }
+		public void setQuantity(int quantity) { this.quantity = quantity; }
+		public void setPaid(boolean paid) { this.paid = paid; }
+		public void setTotal(double total) { this.total = total; }
+		public void setVersion(Long version) { this.version = version; }
+	}
+	
+	/**
+	 * A reader returning at most a few chars per read, like a slow network stream
+	 */
+	static class TrickleReader extends Reader {
+		private final Reader reader;
+		private final int chunk;
+		
+		TrickleReader(String string, int chunk) {
+			this.reader = new StringReader(string);
+			this.chunk = chunk;
+		}
+		
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			return reader.read(cbuf, off, Math.min(len, chunk));
+		}
+		
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+	
+	@Test
+	public void testBindNested() {
+		Order order = JSONKit.toBean("{\"id\":\"A1\",\"buyer\":{\"name\":\"jack\",\"age\":20},\"unknown\":[1,{}]}", Order.class);
+		Assert.assertEquals("A1", order.id);
+		Assert.assertEquals("jack", order.buyer.getName());
+		Assert.assertEquals(20L, order.buyer.getAge());
+		Assert.assertNull(order.users);
+	}
+	
+	@Test
+	public void testBindCollection() {
+		Order order = JSONKit.toBean("{\"users\":[{\"name\":\"rose\",\"age\":22},{\"name\":\"jack\"}],"
+				+ "\"tags\":[\"a\",\"b\",\"a\"],\"counts\":{\"x\":1,\"y\":\"2\"},\"codes\":[3,4,5]}", Order.class);
+		Assert.assertEquals(2, order.users.size());
+		Assert.assertEquals("rose", order.users.get(0).getName());
+		Assert.assertEquals(22L, order.users.get(0).getAge());
+		Assert.assertEquals(0L, order.users.get(1).getAge());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("a", "b")), order.tags);
+		Assert.assertEquals(Integer.valueOf(1), order.counts.get("x"));
+		Assert.assertEquals(Integer.valueOf(2), order.counts.get("y"));
+		Assert.assertArrayEquals(new int[]{ 3, 4, 5 }, order.codes);
+		
+		List<?> list = JSONKit.toBean("[1,2.5,\"s\",true,null,[1],{\"k\":1}]", List.class);
+		Assert.assertEquals(Arrays.asList(1L, 2.5D, "s", true, null, Arrays.asList(1L), list.get(6)), list);
+	}
+	
+	@Test
+	public void testBindPrimitive() {
+		Order order = JSONKit.toBean("{\"quantity\":\"7\",\"paid\":true,\"total\":12.5,\"version\":9007199254740993}", Order.class);
+		Assert.assertEquals(7, order.quantity);
+		Assert.assertTrue(order.paid);
+		Assert.assertEquals(12.5D, order.total, 0D);
+		Assert.assertEquals(Long.valueOf(9007199254740993L), order.version);
+		
+		// null leaves primitives at their default
+		order = JSONKit.toBean("{\"quantity\":null,\"paid\":null,\"version\":null}", Order.class);
+		Assert.assertEquals(0, order.quantity);
+		Assert.assertFalse(order.paid);
+		Assert.assertNull(order.version);
+	}
+	
+	@Test
+	public void testParseReaderAcrossBuffers() throws IOException {
+		StringBuilder json = new StringBuilder("{\"text\":\"");
+		for (int i = 0; i < 50; i++) {
+			json.append("博客\\u00e9\\\"\uD83D\uDE00 ");
+		}
+		json.append("\",\"numbers\":[");
+		for (int i = 0; i < 50; i++) {
+			json.append(i > 0 ? "," : "").append(-1234567.875e-3 * i).append(',').append(Long.MAX_VALUE - i);
+		}
+		json.append("],\"literals\":[true,false,null],\"nested\":{\"a\":{\"b\":[[],{}]}}}");
+		
+		JsonValue expected = Json.parse(json.toString());
+		for (int size : new int[]{ 10, 11, 16, 1024 }) {
+			for (int chunk : new int[]{ 1, 3, 7, 4096 }) {
+				Assert.assertEquals(size + "/" + chunk, expected, Json.parse(new TrickleReader(json.toString(), chunk), new char[size]));
+			}
+		}
+		Assert.assertEquals(expected, Json.parse(new StringReader(json.toString())));
+	}
+	
+	@Test
+	public void testParseReaderMalformed() throws IOException {
+		String json = "{\"name\":\"0123456789abcdef\",\"age\":1x}";
+		try {
+			Json.parse(new TrickleReader(json, 3), new char[10]);
+			Assert.fail();
+		} catch (ParseException e) {
+			// the offset counts from the start of the input, not of the buffer
+			Assert.assertEquals(json.indexOf('x'), e.getOffset());
+			Assert.assertEquals(1, e.getLine());
+			Assert.assertEquals(json.indexOf('x'), e.getColumn());
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseReaderSmallBuffer() throws IOException {
+		Json.parse(new StringReader("{}"), new char[9]);
+	}
 
 	public static void main(String[] args) {
 		//[{"text": "首页","href": "/"},{"text": "博客","href": "blog"},{"text": "关于","href": "about"},{"text": "联系","href": "contact"}]
@@ -21,7 +21,7 @@ public final class DataSourceManager {
 	
 	private DataSource dataSource;
 	
-	private Sql2o sql2o = null;
+	private volatile Sql2o sql2o = null;
 	
 	private DataSourceManager() {
 	}
@@ -48,7 +48,7 @@ public final class DataSourceManager {
 		}
 	}
 	
-	public synchronized Sql2o getSql2o(){
+	public Sql2o getSql2o(){
 		return sql2o;
 	}
 	